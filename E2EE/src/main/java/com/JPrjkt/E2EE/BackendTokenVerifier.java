@@ -0,0 +1,32 @@
+package com.JPrjkt.E2EE;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import org.springframework.stereotype.Service;
+
+/**
+ * Checks access tokens issued by the backend without calling it: signature against the cached
+ * JWKS, then expiry. Only ES256 is accepted, so a token cannot downgrade to a shared-secret MAC.
+ */
+@Service
+public class BackendTokenVerifier {
+
+    private final JwtParser parser;
+
+    public BackendTokenVerifier(JwksKeyResolver keyResolver) {
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(keyResolver)
+                .setAllowedClockSkewSeconds(30)
+                .build();
+    }
+
+    public Claims verify(String token) {
+        var jws = parser.parseClaimsJws(token);
+        if (!"ES256".equals(jws.getHeader().getAlgorithm())) {
+            throw new JwtException("Unexpected algorithm " + jws.getHeader().getAlgorithm());
+        }
+        return jws.getBody();
+    }
+}
@@ -0,0 +1,46 @@
+package com.JPrjkt.E2EE;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+
+// Long-term identity key of a user and their current signed prekey; the server only stores and
+// hands out public halves, the signature is checked by the clients
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "identity_keys")
+public class IdentityKey {
+
+    static final int MAX_KEY_BYTES = 256;
+
+    @Id
+    private String email;
+
+    @JdbcTypeCode(SqlTypes.VARBINARY)
+    @Column(nullable = false, length = MAX_KEY_BYTES)
+    private byte[] identityKey;
+
+    @Column(nullable = false)
+    private int signedPreKeyId;
+
+    @JdbcTypeCode(SqlTypes.VARBINARY)
+    @Column(nullable = false, length = MAX_KEY_BYTES)
+    private byte[] signedPreKey;
+
+    @JdbcTypeCode(SqlTypes.VARBINARY)
+    @Column(nullable = false, length = MAX_KEY_BYTES)
+    private byte[] signedPreKeySignature;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,8 @@
+package com.JPrjkt.E2EE;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface IdentityKeyRepository extends JpaRepository<IdentityKey, String> {
+}
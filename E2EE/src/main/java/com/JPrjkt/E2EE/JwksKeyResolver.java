@@ -0,0 +1,140 @@
+package com.JPrjkt.E2EE;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.security.SignatureException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Resolves backend signing keys by kid from the backend's JWKS. The key set is refreshed in the
+ * background and on an unknown kid (at most once per min-refetch interval), so verifying a token
+ * never waits on the network except right after a rotation this node has not seen yet.
+ */
+@Component
+public class JwksKeyResolver extends SigningKeyResolverAdapter {
+
+    private static final Logger log = LoggerFactory.getLogger(JwksKeyResolver.class);
+
+    private final URI jwksUri;
+    private final long minRefetchMillis;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+
+    private volatile Map<String, PublicKey> keys = Map.of();
+    private volatile String etag;
+    private volatile long lastFetch;
+
+    public JwksKeyResolver(
+            @Value("${e2ee.auth.jwks-uri}") URI jwksUri,
+            @Value("${e2ee.auth.jwks-min-refetch-interval:PT30S}") Duration minRefetchInterval,
+            ObjectMapper objectMapper) {
+        this.jwksUri = jwksUri;
+        this.minRefetchMillis = minRefetchInterval.toMillis();
+        this.objectMapper = objectMapper;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(2))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+    }
+
+    @Override
+    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+        String kid = header.getKeyId();
+        PublicKey key = kid == null ? null : keys.get(kid);
+        if (key == null && kid != null) {
+            refetchFor(kid);
+            key = keys.get(kid);
+        }
+        if (key == null) {
+            throw new SignatureException("Unknown signing key " + kid);
+        }
+        return key;
+    }
+
+    // Runs once right after startup, then on the interval; failures keep the last known keys
+    @Scheduled(initialDelay = 0, fixedDelayString = "${e2ee.auth.jwks-refresh-interval:PT5M}")
+    public synchronized void refresh() {
+        lastFetch = System.currentTimeMillis();
+        try {
+            HttpRequest.Builder request = HttpRequest.newBuilder(jwksUri)
+                    .timeout(Duration.ofSeconds(5))
+                    .header("Accept", "application/json");
+            if (etag != null) {
+                request.header("If-None-Match", etag);
+            }
+            HttpResponse<byte[]> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() == 304) {
+                return;
+            }
+            if (response.statusCode() != 200) {
+                log.warn("JWKS fetch from {} returned {}", jwksUri, response.statusCode());
+                return;
+            }
+            keys = parse(objectMapper.readTree(response.body()));
+            etag = response.headers().firstValue("ETag").orElse(null);
+        } catch (IOException | GeneralSecurityException | IllegalArgumentException e) {
+            log.warn("JWKS fetch from {} failed: {}", jwksUri, e.toString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Concurrent misses for the same new kid wait for one fetch instead of each doing their own
+    private synchronized void refetchFor(String kid) {
+        if (!keys.containsKey(kid) && System.currentTimeMillis() - lastFetch >= minRefetchMillis) {
+            refresh();
+        }
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    private static Map<String, PublicKey> parse(JsonNode jwks) throws GeneralSecurityException {
+        AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+        parameters.init(new ECGenParameterSpec("secp256r1"));
+        ECParameterSpec p256 = parameters.getParameterSpec(ECParameterSpec.class);
+        KeyFactory keyFactory = KeyFactory.getInstance("EC");
+        Map<String, PublicKey> parsed = new HashMap<>();
+        for (JsonNode jwk : jwks.path("keys")) {
+            // Only what the backend issues; anything else in the set is ignored rather than trusted
+            if (!"EC".equals(jwk.path("kty").asText()) || !"P-256".equals(jwk.path("crv").asText())) {
+                continue;
+            }
+            ECPoint point = new ECPoint(coordinate(jwk.path("x").asText()), coordinate(jwk.path("y").asText()));
+            parsed.put(jwk.path("kid").asText(), keyFactory.generatePublic(new ECPublicKeySpec(point, p256)));
+        }
+        return Map.copyOf(parsed);
+    }
+
+    private static BigInteger coordinate(String base64Url) {
+        return new BigInteger(1, Base64.getUrlDecoder().decode(base64Url));
+    }
+}
@@ -0,0 +1,56 @@
+package com.JPrjkt.E2EE;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+// Authenticates requests carrying a backend access token. The principal is the token subject (the email).
+@Component
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    private final BackendTokenVerifier tokenVerifier;
+    private final String relayPath;
+
+    public JwtAuthenticationFilter(BackendTokenVerifier tokenVerifier, @Value("${e2ee.relay.path:/relay}") String relayPath) {
+        this.tokenVerifier = tokenVerifier;
+        this.relayPath = relayPath;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String token = token(request);
+        if (token != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            try {
+                Claims claims = tokenVerifier.verify(token);
+                if (claims.getSubject() != null) {
+                    SecurityContextHolder.getContext().setAuthentication(
+                            new UsernamePasswordAuthenticationToken(claims.getSubject(), null, List.of()));
+                }
+            } catch (JwtException | IllegalArgumentException e) {
+                // left unauthenticated; the authorization rules answer 401/403
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    // Browsers cannot set headers on a WebSocket handshake, so the relay also takes the token as a parameter
+    private String token(HttpServletRequest request) {
+        String authHeader = request.getHeader("Authorization");
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            return authHeader.substring(7);
+        }
+        return relayPath.equals(request.getRequestURI()) ? request.getParameter("access_token") : null;
+    }
+}
@@ -0,0 +1,68 @@
+package com.JPrjkt.E2EE;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/keys")
+public class KeyController {
+
+    public record BundleRequest(List<String> emails) {
+    }
+
+    private final KeyDirectoryService keyDirectoryService;
+
+    public KeyController(KeyDirectoryService keyDirectoryService) {
+        this.keyDirectoryService = keyDirectoryService;
+    }
+
+    @PutMapping("/identity")
+    public ResponseEntity<?> publishIdentity(Principal principal, @RequestBody KeyDirectoryService.Identity identity) {
+        try {
+            keyDirectoryService.publishIdentity(principal.getName(), identity);
+            return ResponseEntity.noContent().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/prekeys")
+    public ResponseEntity<?> uploadPreKeys(Principal principal, @RequestBody List<KeyDirectoryService.PreKey> preKeys) {
+        try {
+            return ResponseEntity.ok(Map.of("uploaded", keyDirectoryService.uploadPreKeys(principal.getName(), preKeys)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (DuplicateKeyException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("A prekey id was already uploaded");
+        }
+    }
+
+    // Clients top the pool up when this runs low
+    @GetMapping("/prekeys/count")
+    public Map<String, Long> preKeyCount(Principal principal) {
+        return Map.of("count", keyDirectoryService.preKeyCount(principal.getName()));
+    }
+
+    // POST because every bundle returned uses up one of the user's one-time prekeys
+    @PostMapping("/bundles")
+    public ResponseEntity<?> bundles(@RequestBody BundleRequest request) {
+        try {
+            return ResponseEntity.ok(keyDirectoryService.bundles(request.emails() == null ? List.of() : request.emails()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+}
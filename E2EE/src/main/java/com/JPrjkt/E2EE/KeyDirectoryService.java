@@ -0,0 +1,216 @@
+package com.JPrjkt.E2EE;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Directory of the public keys clients need to start a session with someone: an identity key with
+ * a signed prekey per user, and a pool of one-time prekeys that are each handed out once.
+ *
+ * Looking up a group costs one query for the identity keys that are not cached and one round of
+ * two statements to claim a prekey for every member. Claiming takes no locks: each round picks one
+ * of the oldest few prekeys per user at random and deletes the picks in one batch; a user whose
+ * pick was taken by a concurrent claim goes into the next round with a wider choice.
+ */
+@Service
+public class KeyDirectoryService {
+
+    static final int MAX_PREKEYS_PER_UPLOAD = 1000;
+    static final int MAX_LOOKUP = 256;
+    private static final int CANDIDATES = 4;
+    private static final int CLAIM_ROUNDS = 5;
+
+    public record PreKey(int keyId, byte[] publicKey) {
+    }
+
+    public record Identity(byte[] identityKey, int signedPreKeyId, byte[] signedPreKey, byte[] signedPreKeySignature) {
+    }
+
+    // oneTimePreKey is null once the user's pool is empty; the session then starts from the signed prekey alone
+    public record Bundle(String email, byte[] identityKey, int signedPreKeyId, byte[] signedPreKey,
+                         byte[] signedPreKeySignature, PreKey oneTimePreKey) {
+    }
+
+    private record Candidate(long id, String owner, PreKey preKey) {
+    }
+
+    private final IdentityKeyRepository identityKeyRepository;
+    private final OneTimePreKeyRepository oneTimePreKeyRepository;
+    private final JdbcTemplate jdbcTemplate;
+    // Users without keys are cached as empty too, so repeated lookups of them stay off the database
+    private final LoadingCache<String, Optional<Identity>> identities;
+
+    public KeyDirectoryService(
+            IdentityKeyRepository identityKeyRepository,
+            OneTimePreKeyRepository oneTimePreKeyRepository,
+            JdbcTemplate jdbcTemplate,
+            @Value("${e2ee.keys.identity-cache-size:100000}") long identityCacheSize,
+            @Value("${e2ee.keys.identity-cache-ttl:PT10M}") Duration identityCacheTtl) {
+        this.identityKeyRepository = identityKeyRepository;
+        this.oneTimePreKeyRepository = oneTimePreKeyRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        // Publishing evicts locally; the TTL bounds how long other nodes serve a replaced key
+        this.identities = Caffeine.newBuilder()
+                .maximumSize(identityCacheSize)
+                .expireAfterWrite(identityCacheTtl)
+                .build(new CacheLoader<>() {
+                    @Override
+                    public Optional<Identity> load(String email) {
+                        return loadAll(Set.of(email)).get(email);
+                    }
+
+                    @Override
+                    public Map<String, Optional<Identity>> loadAll(Set<? extends String> emails) {
+                        Map<String, Optional<Identity>> loaded = new HashMap<>();
+                        emails.forEach(email -> loaded.put(email, Optional.empty()));
+                        for (IdentityKey key : identityKeyRepository.findAllById(List.copyOf(emails))) {
+                            loaded.put(key.getEmail(), Optional.of(new Identity(key.getIdentityKey(),
+                                    key.getSignedPreKeyId(), key.getSignedPreKey(), key.getSignedPreKeySignature())));
+                        }
+                        return loaded;
+                    }
+                });
+    }
+
+    // A new identity key invalidates the one-time prekeys generated under the old one
+    @Transactional
+    public void publishIdentity(String email, Identity identity) {
+        checkKey(identity.identityKey(), "Identity key");
+        checkKey(identity.signedPreKey(), "Signed prekey");
+        checkKey(identity.signedPreKeySignature(), "Signed prekey signature");
+        Optional<IdentityKey> existing = identityKeyRepository.findById(email);
+        if (existing.isPresent() && !Arrays.equals(existing.get().getIdentityKey(), identity.identityKey())) {
+            oneTimePreKeyRepository.deleteByOwner(email);
+        }
+        identityKeyRepository.save(new IdentityKey(email, identity.identityKey(), identity.signedPreKeyId(),
+                identity.signedPreKey(), identity.signedPreKeySignature(), LocalDateTime.now()));
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                identities.invalidate(email);
+            }
+        });
+    }
+
+    // All or nothing; a key id the user already uploaded fails the whole batch with a DuplicateKeyException
+    @Transactional
+    public int uploadPreKeys(String email, List<PreKey> preKeys) {
+        if (preKeys == null || preKeys.isEmpty() || preKeys.size() > MAX_PREKEYS_PER_UPLOAD) {
+            throw new IllegalArgumentException("Upload between 1 and " + MAX_PREKEYS_PER_UPLOAD + " prekeys");
+        }
+        Set<Integer> keyIds = new HashSet<>();
+        for (PreKey preKey : preKeys) {
+            checkKey(preKey.publicKey(), "Prekey");
+            if (!keyIds.add(preKey.keyId())) {
+                throw new IllegalArgumentException("Duplicate prekey id " + preKey.keyId());
+            }
+        }
+        if (!identityKeyRepository.existsById(email)) {
+            throw new IllegalStateException("Publish an identity key first");
+        }
+        jdbcTemplate.batchUpdate("insert into one_time_prekeys (owner, key_id, public_key) values (?, ?, ?)",
+                preKeys, preKeys.size(), (ps, preKey) -> {
+                    ps.setString(1, email);
+                    ps.setInt(2, preKey.keyId());
+                    ps.setBytes(3, preKey.publicKey());
+                });
+        return preKeys.size();
+    }
+
+    public long preKeyCount(String email) {
+        return oneTimePreKeyRepository.countByOwner(email);
+    }
+
+    // Claims one one-time prekey per user found; users without an identity key are left out
+    public List<Bundle> bundles(Collection<String> emails) {
+        Set<String> distinct = new LinkedHashSet<>(emails);
+        if (distinct.isEmpty() || distinct.size() > MAX_LOOKUP) {
+            throw new IllegalArgumentException("Look up between 1 and " + MAX_LOOKUP + " users");
+        }
+        Map<String, Optional<Identity>> found = identities.getAll(distinct);
+        List<String> known = distinct.stream().filter(email -> found.get(email).isPresent()).toList();
+        Map<String, PreKey> claimed = known.isEmpty() ? Map.of() : claim(known);
+        List<Bundle> bundles = new ArrayList<>(known.size());
+        for (String email : known) {
+            Identity identity = found.get(email).get();
+            bundles.add(new Bundle(email, identity.identityKey(), identity.signedPreKeyId(), identity.signedPreKey(),
+                    identity.signedPreKeySignature(), claimed.get(email)));
+        }
+        return bundles;
+    }
+
+    // Not transactional: each delete commits on its own, so no claim waits on another's row locks
+    // for longer than a single statement
+    Map<String, PreKey> claim(List<String> owners) {
+        Map<String, PreKey> claimed = new HashMap<>();
+        List<String> pending = owners;
+        for (int round = 0; round < CLAIM_ROUNDS && !pending.isEmpty(); round++) {
+            List<Candidate> picks = pick(candidates(pending, CANDIDATES << round));
+            if (picks.isEmpty()) {
+                break;
+            }
+            int[] deleted = jdbcTemplate.batchUpdate("delete from one_time_prekeys where id = ?", picks, picks.size(),
+                    (ps, pick) -> ps.setLong(1, pick.id()))[0];
+            List<String> lost = new ArrayList<>();
+            for (int i = 0; i < picks.size(); i++) {
+                Candidate pick = picks.get(i);
+                if (deleted[i] == 1) {
+                    claimed.put(pick.owner(), pick.preKey());
+                } else {
+                    lost.add(pick.owner());
+                }
+            }
+            pending = lost;
+        }
+        return claimed;
+    }
+
+    private List<Candidate> candidates(List<String> owners, int perOwner) {
+        String placeholders = String.join(", ", Collections.nCopies(owners.size(), "?"));
+        List<Object> args = new ArrayList<>(owners);
+        args.add(perOwner);
+        return jdbcTemplate.query("select id, owner, key_id, public_key from ("
+                        + "select id, owner, key_id, public_key, row_number() over (partition by owner order by id) as position "
+                        + "from one_time_prekeys where owner in (" + placeholders + ")) oldest where position <= ?",
+                (rs, rowNum) -> new Candidate(rs.getLong(1), rs.getString(2), new PreKey(rs.getInt(3), rs.getBytes(4))),
+                args.toArray());
+    }
+
+    // One random candidate per owner, so concurrent claims for the same user rarely go for the same row
+    private static List<Candidate> pick(List<Candidate> candidates) {
+        Map<String, List<Candidate>> byOwner = new HashMap<>();
+        candidates.forEach(candidate -> byOwner.computeIfAbsent(candidate.owner(), owner -> new ArrayList<>()).add(candidate));
+        List<Candidate> picks = new ArrayList<>(byOwner.size());
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        byOwner.values().forEach(options -> picks.add(options.get(random.nextInt(options.size()))));
+        return picks;
+    }
+
+    private static void checkKey(byte[] key, String name) {
+        if (key == null || key.length == 0 || key.length > IdentityKey.MAX_KEY_BYTES) {
+            throw new IllegalArgumentException(name + " must be between 1 and " + IdentityKey.MAX_KEY_BYTES + " bytes");
+        }
+    }
+}
@@ -0,0 +1,432 @@
+package com.JPrjkt.E2EE;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Messages held for recipients with no open relay session, until one of their devices acknowledges
+ * them. Recipients are spread over shards; each shard is an append-only log of memory-mapped segment
+ * files plus, in memory only, the offsets of every recipient's unacknowledged messages. An offset is
+ * the message's position in its shard's log, so offsets only grow per recipient and a reconnect
+ * reads forward through the segments.
+ * <pre>
+ * entry: u32 length of the rest after the checksum, u32 CRC32C of it, u8 type, u16 length + UTF-8
+ *        recipient, then the message (MESSAGE) or the u64 offset acknowledged up to (ACK)
+ * </pre>
+ * Acknowledgements are entries too. The oldest segments are deleted once nothing in them is waiting,
+ * or once they are past retention; only ever deleting from the head means an acknowledgement is never
+ * deleted before the messages it covers. Startup rebuilds the offsets by scanning every segment up
+ * to its first invalid entry.
+ *
+ * Writes land in the page cache, so they survive the process dying; against losing the machine
+ * they are forced to disk every flush interval.
+ */
+@Component
+public class OfflineMailbox {
+
+    private static final Logger log = LoggerFactory.getLogger(OfflineMailbox.class);
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final int HEADER_BYTES = 8;
+    private static final byte MESSAGE = 1;
+    private static final byte ACK = 2;
+    private static final int READ_AHEAD = 1024;
+
+    public record Entry(long offset, byte[] message) {
+    }
+
+    private final Shard[] shards;
+    private final int segmentBytes;
+    private final int maxPending;
+    private final long retentionMillis;
+    private final ScheduledExecutorService flusher;
+
+    public OfflineMailbox(
+            @Value("${e2ee.mailbox.dir:data/mailbox}") Path dir,
+            @Value("${e2ee.mailbox.shards:16}") int shardCount,
+            @Value("${e2ee.mailbox.segment-size:64MB}") DataSize segmentSize,
+            @Value("${e2ee.mailbox.max-pending-per-recipient:10000}") int maxPending,
+            @Value("${e2ee.mailbox.retention:P30D}") Duration retention,
+            @Value("${e2ee.mailbox.flush-interval:PT0.1S}") Duration flushInterval) throws IOException {
+        this.segmentBytes = (int) Math.min(segmentSize.toBytes(), Integer.MAX_VALUE);
+        this.maxPending = maxPending;
+        this.retentionMillis = retention.toMillis();
+        Files.createDirectories(dir);
+        checkShardCount(dir, shardCount);
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(dir.resolve("shard-%03d".formatted(i)));
+        }
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "offline-mailbox-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    // The offset of the stored message, or -1 when the recipient already has the maximum waiting
+    public long append(String recipient, byte[] message) {
+        byte[] name = recipient.getBytes(StandardCharsets.UTF_8);
+        if (HEADER_BYTES + 3 + name.length + message.length > segmentBytes) {
+            throw new IllegalArgumentException("Message does not fit in a segment");
+        }
+        Shard shard = shard(recipient);
+        synchronized (shard) {
+            Pending pending = shard.pending.computeIfAbsent(recipient, r -> new Pending());
+            if (pending.size >= maxPending) {
+                return -1;
+            }
+            long offset = shard.write(MESSAGE, name, message);
+            pending.add(offset);
+            shard.active.live++;
+            return offset;
+        }
+    }
+
+    // Waiting messages after the given offset, oldest first, stopping after maxBytes (at least one)
+    public List<Entry> read(String recipient, long after, int maxBytes) {
+        Shard shard = shard(recipient);
+        long[] offsets;
+        Segment[] segments;
+        synchronized (shard) {
+            Pending pending = shard.pending.get(recipient);
+            if (pending == null) {
+                return List.of();
+            }
+            offsets = pending.after(after, READ_AHEAD);
+            segments = new Segment[offsets.length];
+            for (int i = 0; i < offsets.length; i++) {
+                segments[i] = shard.segments.floorEntry(offsets[i]).getValue();
+            }
+        }
+        // Outside the lock: written bytes never change, and a mapping stays readable after its file is deleted
+        List<Entry> entries = new ArrayList<>();
+        int bytes = 0;
+        for (int i = 0; i < offsets.length && (entries.isEmpty() || bytes < maxBytes); i++) {
+            int position = (int) (offsets[i] - segments[i].base);
+            MappedByteBuffer buffer = segments[i].buffer;
+            int length = buffer.getInt(position);
+            int nameLength = Short.toUnsignedInt(buffer.getShort(position + HEADER_BYTES + 1));
+            int start = position + HEADER_BYTES + 3 + nameLength;
+            byte[] message = new byte[length - 3 - nameLength];
+            buffer.get(start, message);
+            entries.add(new Entry(offsets[i], message));
+            bytes += message.length;
+        }
+        return entries;
+    }
+
+    public boolean hasAfter(String recipient, long after) {
+        Shard shard = shard(recipient);
+        synchronized (shard) {
+            Pending pending = shard.pending.get(recipient);
+            return pending != null && pending.size > 0 && pending.last() > after;
+        }
+    }
+
+    public int pending(String recipient) {
+        Shard shard = shard(recipient);
+        synchronized (shard) {
+            Pending pending = shard.pending.get(recipient);
+            return pending == null ? 0 : pending.size;
+        }
+    }
+
+    // Acknowledges every waiting message up to and including the offset
+    public void ack(String recipient, long upTo) {
+        Shard shard = shard(recipient);
+        synchronized (shard) {
+            Pending pending = shard.pending.get(recipient);
+            if (pending == null || pending.size == 0 || pending.first() > upTo) {
+                return;
+            }
+            byte[] name = recipient.getBytes(StandardCharsets.UTF_8);
+            shard.write(ACK, name, ByteBuffer.allocate(8).putLong(upTo).array());
+            shard.acknowledge(recipient, pending, upTo);
+            shard.truncate(System.currentTimeMillis());
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        flusher.shutdown();
+        flush();
+    }
+
+    private void flush() {
+        long now = System.currentTimeMillis();
+        for (Shard shard : shards) {
+            MappedByteBuffer dirty = null;
+            synchronized (shard) {
+                if (shard.dirty) {
+                    shard.dirty = false;
+                    dirty = shard.active.buffer;
+                }
+                shard.truncate(now);
+            }
+            if (dirty != null) {
+                dirty.force();
+            }
+        }
+    }
+
+    private Shard shard(String recipient) {
+        return shards[Math.floorMod(recipient.hashCode(), shards.length)];
+    }
+
+    // Recipients are placed by shard count, so reopening with a different one would lose track of them
+    private static void checkShardCount(Path dir, int shardCount) throws IOException {
+        Path file = dir.resolve("shards");
+        if (Files.exists(file)) {
+            int existing = Integer.parseInt(Files.readString(file).trim());
+            if (existing != shardCount) {
+                throw new IllegalStateException("Mailbox at " + dir + " has " + existing + " shards, not " + shardCount);
+            }
+        } else {
+            Files.writeString(file, Integer.toString(shardCount));
+        }
+    }
+
+    private static final class Segment {
+        final long base;
+        final Path path;
+        final MappedByteBuffer buffer;
+        int end;
+        // Messages in this segment not acknowledged yet
+        int live;
+        long lastWrite;
+
+        Segment(long base, Path path, MappedByteBuffer buffer, long lastWrite) {
+            this.base = base;
+            this.path = path;
+            this.buffer = buffer;
+            this.lastWrite = lastWrite;
+        }
+    }
+
+    // Guarded by its own monitor
+    private final class Shard {
+        final Path dir;
+        final TreeMap<Long, Segment> segments = new TreeMap<>();
+        final Map<String, Pending> pending = new HashMap<>();
+        final CRC32C crc = new CRC32C();
+        Segment active;
+        boolean dirty;
+
+        Shard(Path dir) throws IOException {
+            this.dir = dir;
+            Files.createDirectories(dir);
+            recover();
+        }
+
+        long write(byte type, byte[] name, byte[] body) {
+            int length = 3 + name.length + body.length;
+            if (active.end + HEADER_BYTES + length > active.buffer.capacity()) {
+                roll();
+            }
+            int position = active.end;
+            ByteBuffer out = active.buffer.duplicate().position(position + HEADER_BYTES);
+            out.put(type).putShort((short) name.length).put(name).put(body);
+            crc.reset();
+            crc.update(active.buffer.slice(position + HEADER_BYTES, length));
+            active.buffer.putInt(position + 4, (int) crc.getValue());
+            // Length last: a scan never sees an entry whose length is there but whose body is not
+            active.buffer.putInt(position, length);
+            active.end = position + HEADER_BYTES + length;
+            active.lastWrite = System.currentTimeMillis();
+            dirty = true;
+            return active.base + position;
+        }
+
+        void acknowledge(String recipient, Pending waiting, long upTo) {
+            while (waiting.size > 0 && waiting.first() <= upTo) {
+                Map.Entry<Long, Segment> segment = segments.floorEntry(waiting.poll());
+                if (segment != null) {
+                    segment.getValue().live--;
+                }
+            }
+            if (waiting.size == 0) {
+                pending.remove(recipient);
+            }
+        }
+
+        // Drops head segments nothing waits on any more, and those past retention along with what still waits in them
+        void truncate(long now) {
+            while (segments.size() > 1) {
+                Segment head = segments.firstEntry().getValue();
+                if (head.live > 0 && now - head.lastWrite < retentionMillis) {
+                    return;
+                }
+                segments.pollFirstEntry();
+                if (head.live > 0) {
+                    long next = segments.firstKey();
+                    Iterator<Pending> waiting = pending.values().iterator();
+                    while (waiting.hasNext()) {
+                        Pending recipient = waiting.next();
+                        while (recipient.size > 0 && recipient.first() < next) {
+                            recipient.poll();
+                        }
+                        if (recipient.size == 0) {
+                            waiting.remove();
+                        }
+                    }
+                    log.warn("Dropped {} unacknowledged messages past retention from {}", head.live, head.path);
+                }
+                try {
+                    Files.deleteIfExists(head.path);
+                } catch (IOException e) {
+                    log.warn("Could not delete mailbox segment {}", head.path, e);
+                }
+            }
+        }
+
+        private void roll() {
+            // Offsets start at 1; 0 marks a live message on the wire and is where a replay starts from
+            long base = active == null ? 1 : active.base + active.buffer.capacity();
+            if (active != null) {
+                active.buffer.force();
+            }
+            Path path = dir.resolve("%020d%s".formatted(base, SEGMENT_SUFFIX));
+            try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+                file.setLength(segmentBytes);
+                MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+                active = new Segment(base, path, buffer, System.currentTimeMillis());
+                segments.put(base, active);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void recover() throws IOException {
+            List<Path> files;
+            try (Stream<Path> listed = Files.list(dir)) {
+                files = listed.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().toList();
+            }
+            boolean clean = true;
+            for (Path path : files) {
+                String file = path.getFileName().toString();
+                long base = Long.parseLong(file.substring(0, file.length() - SEGMENT_SUFFIX.length()));
+                try (RandomAccessFile raf = new RandomAccessFile(path.toFile(), "rw")) {
+                    if (raf.length() < HEADER_BYTES) {
+                        // Created but never sized
+                        Files.delete(path);
+                        continue;
+                    }
+                    MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raf.length());
+                    active = new Segment(base, path, buffer, Files.getLastModifiedTime(path).toMillis());
+                    segments.put(base, active);
+                    clean = scan(active);
+                }
+            }
+            // Appending over a torn tail could line new entries up with stale bytes behind them, so start afresh
+            if (active == null || !clean) {
+                roll();
+            }
+            truncate(System.currentTimeMillis());
+        }
+
+        // Replays entries up to the first invalid one; false when that one is not the zeroed end of the segment
+        private boolean scan(Segment segment) {
+            MappedByteBuffer buffer = segment.buffer;
+            int position = 0;
+            while (position + HEADER_BYTES <= buffer.capacity()) {
+                int length = buffer.getInt(position);
+                if (length == 0) {
+                    segment.end = position;
+                    return true;
+                }
+                if (length < 3 || length > buffer.capacity() - position - HEADER_BYTES) {
+                    break;
+                }
+                crc.reset();
+                crc.update(buffer.slice(position + HEADER_BYTES, length));
+                if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                    break;
+                }
+                int nameLength = Short.toUnsignedInt(buffer.getShort(position + HEADER_BYTES + 1));
+                byte[] name = new byte[nameLength];
+                buffer.get(position + HEADER_BYTES + 3, name);
+                String recipient = new String(name, StandardCharsets.UTF_8);
+                long offset = segment.base + position;
+                if (buffer.get(position + HEADER_BYTES) == MESSAGE) {
+                    pending.computeIfAbsent(recipient, r -> new Pending()).add(offset);
+                    segment.live++;
+                } else {
+                    Pending waiting = pending.get(recipient);
+                    if (waiting != null) {
+                        acknowledge(recipient, waiting, buffer.getLong(position + HEADER_BYTES + 3 + nameLength));
+                    }
+                }
+                position += HEADER_BYTES + length;
+            }
+            segment.end = position;
+            return position + HEADER_BYTES > buffer.capacity();
+        }
+    }
+
+    // Ascending offsets of one recipient's waiting messages
+    private static final class Pending {
+        private long[] offsets = new long[4];
+        private int head;
+        private int size;
+
+        void add(long offset) {
+            if (head + size == offsets.length) {
+                if (head > offsets.length / 2) {
+                    System.arraycopy(offsets, head, offsets, 0, size);
+                } else {
+                    offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                    System.arraycopy(offsets, head, offsets, 0, size);
+                }
+                head = 0;
+            }
+            offsets[head + size++] = offset;
+        }
+
+        long first() {
+            return offsets[head];
+        }
+
+        long last() {
+            return offsets[head + size - 1];
+        }
+
+        long poll() {
+            size--;
+            return offsets[head++];
+        }
+
+        long[] after(long after, int max) {
+            int from = Arrays.binarySearch(offsets, head, head + size, after);
+            from = from >= 0 ? from + 1 : -from - 1;
+            return Arrays.copyOfRange(offsets, from, Math.min(head + size, from + max));
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.JPrjkt.E2EE;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+// Each row is handed out once: claiming deletes it. Written and claimed through KeyDirectoryService's
+// JDBC batches; the entity mostly describes the table.
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "one_time_prekeys",
+        uniqueConstraints = @UniqueConstraint(name = "uk_one_time_prekeys_owner_key", columnNames = {"owner", "key_id"}),
+        indexes = @Index(name = "idx_one_time_prekeys_owner_id", columnList = "owner, id"))
+public class OneTimePreKey {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String owner;
+
+    @Column(name = "key_id", nullable = false)
+    private int keyId;
+
+    @JdbcTypeCode(SqlTypes.VARBINARY)
+    @Column(nullable = false, length = IdentityKey.MAX_KEY_BYTES)
+    private byte[] publicKey;
+}
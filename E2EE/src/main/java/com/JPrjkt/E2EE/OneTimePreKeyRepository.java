@@ -0,0 +1,16 @@
+package com.JPrjkt.E2EE;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OneTimePreKeyRepository extends JpaRepository<OneTimePreKey, Long> {
+
+    long countByOwner(String owner);
+
+    @Modifying
+    @Query("delete from OneTimePreKey k where k.owner = :owner")
+    int deleteByOwner(String owner);
+}
@@ -0,0 +1,31 @@
+package com.JPrjkt.E2EE;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+@Configuration
+@EnableWebSocket
+public class RelayConfiguration implements WebSocketConfigurer {
+
+    private final RelayHandler relayHandler;
+    private final String path;
+    private final String[] allowedOrigins;
+
+    public RelayConfiguration(
+            RelayHandler relayHandler,
+            @Value("${e2ee.relay.path:/relay}") String path,
+            @Value("${e2ee.relay.allowed-origins:}") String[] allowedOrigins) {
+        this.relayHandler = relayHandler;
+        this.path = path;
+        this.allowedOrigins = allowedOrigins;
+    }
+
+    // No origins listed leaves only same-origin handshakes (and clients that send no Origin) through
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(relayHandler, path).setAllowedOrigins(allowedOrigins);
+    }
+}
@@ -0,0 +1,90 @@
+package com.JPrjkt.E2EE;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Wire format of the relay; every frame is binary and the relay never looks inside the ciphertext.
+ * <pre>
+ * client to relay: u8 recipient count, per recipient u16 length + UTF-8 email, then the ciphertext;
+ *                  or u8 0 and a u64 offset, acknowledging stored messages up to that offset
+ * relay to client: one or more records, each u32 length of the rest, u64 mailbox offset (0 when
+ *                  the message was relayed live and needs no acknowledgement), u16 length + UTF-8
+ *                  sender email, then the ciphertext
+ * </pre>
+ * Several records may arrive in one frame when the relay batches a queue.
+ */
+final class RelayFrames {
+
+    sealed interface Frame permits Inbound, Ack {
+    }
+
+    record Inbound(List<String> recipients, ByteBuffer payload) implements Frame {
+    }
+
+    record Ack(long upTo) implements Frame {
+    }
+
+    private RelayFrames() {
+    }
+
+    static Frame decode(ByteBuffer frame) {
+        ByteBuffer in = frame.duplicate();
+        if (!in.hasRemaining()) {
+            throw new IllegalArgumentException("Empty frame");
+        }
+        int count = Byte.toUnsignedInt(in.get());
+        if (count == 0) {
+            if (in.remaining() != 8) {
+                throw new IllegalArgumentException("Malformed acknowledgement");
+            }
+            return new Ack(in.getLong());
+        }
+        List<String> recipients = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            recipients.add(string(in));
+        }
+        return new Inbound(recipients, in.slice());
+    }
+
+    // Encoded once per message and shared by every recipient session
+    static byte[] record(String sender, ByteBuffer payload) {
+        byte[] name = sender.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = ByteBuffer.allocate(4 + 8 + 2 + name.length + payload.remaining());
+        record.putInt(record.capacity() - 4)
+                .putLong(0)
+                .putShort((short) name.length)
+                .put(name)
+                .put(payload.duplicate());
+        return record.array();
+    }
+
+    // What the mailbox keeps: the record without its length and offset
+    static byte[] stored(byte[] record) {
+        return Arrays.copyOfRange(record, 4 + 8, record.length);
+    }
+
+    static byte[] record(long offset, byte[] stored) {
+        return ByteBuffer.allocate(4 + 8 + stored.length)
+                .putInt(8 + stored.length)
+                .putLong(offset)
+                .put(stored)
+                .array();
+    }
+
+    private static String string(ByteBuffer in) {
+        if (in.remaining() < 2) {
+            throw new IllegalArgumentException("Truncated frame");
+        }
+        int length = Short.toUnsignedInt(in.getShort());
+        if (in.remaining() < length) {
+            throw new IllegalArgumentException("Truncated frame");
+        }
+        byte[] value = new byte[length];
+        in.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,207 @@
+package com.JPrjkt.E2EE;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+import org.springframework.web.socket.handler.BinaryWebSocketHandler;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Relays client-encrypted messages between users over WebSockets. A message goes to every open
+ * session (device) of each recipient; the record is encoded once and shared by all of them. Writes
+ * happen on virtual threads owned by each session's queue, so a slow client only ever costs its
+ * own queue.
+ *
+ * Messages for a recipient with no open session go to the OfflineMailbox and are replayed to each of
+ * their sessions when they connect, until one device acknowledges them. Replayed and live messages
+ * may interleave; clients order by their own message counters.
+ */
+@Component
+public class RelayHandler extends BinaryWebSocketHandler {
+
+    private static final String RELAY_SESSION = RelaySession.class.getName();
+
+    private final Map<String, Set<RelaySession>> sessionsByUser = new ConcurrentHashMap<>();
+    private final ExecutorService writers = Executors.newVirtualThreadPerTaskExecutor();
+    private final RelayStats stats = new RelayStats();
+    private final OfflineMailbox mailbox;
+    private final RelaySession.Limits limits;
+    private final int maxMessageBytes;
+    private final long idleTimeoutMillis;
+
+    public RelayHandler(
+            OfflineMailbox mailbox,
+            @Value("${e2ee.relay.queue-capacity:1024}") int queueCapacity,
+            @Value("${e2ee.relay.max-queued-bytes:4MB}") DataSize maxQueuedBytes,
+            @Value("${e2ee.relay.max-batch-bytes:64KB}") DataSize maxBatchBytes,
+            @Value("${e2ee.relay.overflow-policy:CLOSE}") RelaySession.OverflowPolicy overflowPolicy,
+            @Value("${e2ee.relay.max-message-bytes:256KB}") DataSize maxMessageBytes,
+            @Value("${e2ee.relay.idle-timeout:PT5M}") Duration idleTimeout) {
+        this.mailbox = mailbox;
+        this.limits = new RelaySession.Limits(queueCapacity, maxQueuedBytes.toBytes(), (int) maxBatchBytes.toBytes(),
+                overflowPolicy);
+        this.maxMessageBytes = (int) maxMessageBytes.toBytes();
+        this.idleTimeoutMillis = idleTimeout.toMillis();
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws IOException {
+        if (session.getPrincipal() == null) {
+            session.close(CloseStatus.NOT_ACCEPTABLE);
+            return;
+        }
+        // Larger inbound frames close the session; so does silence past the idle timeout
+        session.setBinaryMessageSizeLimit(maxMessageBytes);
+        session.setTextMessageSizeLimit(1024);
+        if (session instanceof NativeWebSocketSession nativeSession
+                && nativeSession.getNativeSession(jakarta.websocket.Session.class) != null) {
+            nativeSession.getNativeSession(jakarta.websocket.Session.class).setMaxIdleTimeout(idleTimeoutMillis);
+        }
+        RelaySession relaySession = new RelaySession(session, limits, writers, stats);
+        session.getAttributes().put(RELAY_SESSION, relaySession);
+        // Added inside compute, so a concurrent close of the user's last other session cannot drop the set
+        sessionsByUser.compute(session.getPrincipal().getName(), (user, sessions) -> {
+            Set<RelaySession> updated = sessions == null ? ConcurrentHashMap.newKeySet() : sessions;
+            updated.add(relaySession);
+            return updated;
+        });
+        replay(session.getPrincipal().getName(), relaySession);
+    }
+
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) {
+        RelaySession from = (RelaySession) session.getAttributes().get(RELAY_SESSION);
+        RelayFrames.Frame frame;
+        try {
+            frame = RelayFrames.decode(message.getPayload());
+        } catch (IllegalArgumentException e) {
+            from.close(CloseStatus.BAD_DATA);
+            return;
+        }
+        if (frame instanceof RelayFrames.Ack ack) {
+            mailbox.ack(session.getPrincipal().getName(), ack.upTo());
+            return;
+        }
+        RelayFrames.Inbound inbound = (RelayFrames.Inbound) frame;
+        stats.received();
+        byte[] record = RelayFrames.record(session.getPrincipal().getName(), inbound.payload());
+        byte[] stored = null;
+        for (String recipient : inbound.recipients()) {
+            Set<RelaySession> sessions = sessionsByUser.get(recipient);
+            if (sessions == null || sessions.isEmpty()) {
+                stored = stored == null ? RelayFrames.stored(record) : stored;
+                store(recipient, stored);
+                continue;
+            }
+            for (RelaySession to : sessions) {
+                to.offer(record);
+            }
+        }
+    }
+
+    private void store(String recipient, byte[] stored) {
+        if (mailbox.append(recipient, stored) < 0) {
+            stats.undeliverable();
+            return;
+        }
+        stats.stored();
+        // The recipient may have connected, and finished replaying, since the lookup
+        Set<RelaySession> sessions = sessionsByUser.get(recipient);
+        if (sessions != null) {
+            sessions.forEach(session -> replay(recipient, session));
+        }
+    }
+
+    // At most one replay per session; a message stored while it runs is picked up by the re-check
+    private void replay(String user, RelaySession session) {
+        if (session.startReplay()) {
+            writers.execute(() -> continueReplay(user, session));
+        }
+    }
+
+    // Holds the session's replay until the mailbox is exhausted. When the queue is full it returns
+    // and is resumed by the session once its drain task has made room, so no thread waits meanwhile.
+    private void continueReplay(String user, RelaySession session) {
+        do {
+            boolean paused = false;
+            try {
+                paused = !replayStored(user, session);
+            } finally {
+                if (!paused) {
+                    session.endReplay();
+                }
+            }
+            if (paused) {
+                session.whenRoom(() -> continueReplay(user, session));
+                return;
+            }
+        } while (!session.isClosed() && mailbox.hasAfter(user, session.replayed()) && session.startReplay());
+    }
+
+    // False when it stopped for lack of room in the session's queue
+    private boolean replayStored(String user, RelaySession session) {
+        while (!session.isClosed()) {
+            List<OfflineMailbox.Entry> entries = mailbox.read(user, session.replayed(), limits.maxBatchBytes());
+            if (entries.isEmpty()) {
+                return true;
+            }
+            for (OfflineMailbox.Entry entry : entries) {
+                if (!session.hasRoom()) {
+                    return false;
+                }
+                if (!session.offer(RelayFrames.record(entry.offset(), entry.message()))) {
+                    return true;
+                }
+                session.replayed(entry.offset());
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        RelaySession relaySession = (RelaySession) session.getAttributes().remove(RELAY_SESSION);
+        if (relaySession == null) {
+            return;
+        }
+        relaySession.close(status);
+        sessionsByUser.computeIfPresent(session.getPrincipal().getName(), (user, sessions) -> {
+            sessions.remove(relaySession);
+            return sessions.isEmpty() ? null : sessions;
+        });
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) {
+        RelaySession relaySession = (RelaySession) session.getAttributes().get(RELAY_SESSION);
+        if (relaySession != null) {
+            relaySession.close(CloseStatus.SERVER_ERROR);
+        }
+    }
+
+    public int connectedUsers() {
+        return sessionsByUser.size();
+    }
+
+    public RelayStats stats() {
+        return stats;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        writers.shutdown();
+    }
+}
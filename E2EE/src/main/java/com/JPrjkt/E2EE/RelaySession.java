@@ -0,0 +1,202 @@
+package com.JPrjkt.E2EE;
+
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Outbound side of one relay connection. Senders only append to a lock-free queue bounded by count
+ * and bytes; a single drain task, started by whoever finds the session idle, packs as many queued
+ * records as fit into one frame and writes it. No lock is held while writing, and a sender never
+ * waits on a slow client: once the queue is full the record is dropped or the session is closed,
+ * depending on the policy.
+ */
+class RelaySession {
+
+    static final CloseStatus SLOW_CONSUMER = new CloseStatus(CloseStatus.POLICY_VIOLATION.getCode(), "Slow consumer");
+
+    enum OverflowPolicy {
+        DROP,
+        CLOSE
+    }
+
+    record Limits(int queueCapacity, long maxQueuedBytes, int maxBatchBytes, OverflowPolicy overflowPolicy) {
+    }
+
+    private final WebSocketSession session;
+    private final Limits limits;
+    private final Executor executor;
+    private final RelayStats stats;
+    private final ConcurrentLinkedQueue<byte[]> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong queuedBytes = new AtomicLong();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final AtomicBoolean replaying = new AtomicBoolean();
+    // Run once the queue has room again (or the session closed); set while a replay is waiting for it
+    private final AtomicReference<Runnable> onRoom = new AtomicReference<>();
+    // Highest mailbox offset handed to this session's queue
+    private volatile long replayed;
+    // Owned by the drain task
+    private final List<byte[]> batch = new ArrayList<>();
+
+    RelaySession(WebSocketSession session, Limits limits, Executor executor, RelayStats stats) {
+        this.session = session;
+        this.limits = limits;
+        this.executor = executor;
+        this.stats = stats;
+    }
+
+    WebSocketSession session() {
+        return session;
+    }
+
+    // False when the record was not accepted
+    boolean offer(byte[] record) {
+        if (closed.get()) {
+            return false;
+        }
+        // Non-short-circuit: both counters are always taken, so both can be given back
+        if (queued.incrementAndGet() > limits.queueCapacity()
+                | queuedBytes.addAndGet(record.length) > limits.maxQueuedBytes()) {
+            queued.decrementAndGet();
+            queuedBytes.addAndGet(-record.length);
+            overflow();
+            return false;
+        }
+        queue.offer(record);
+        if (draining.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+        return true;
+    }
+
+    int queued() {
+        return queued.get();
+    }
+
+    boolean isClosed() {
+        return closed.get();
+    }
+
+    // Replay of stored messages stops here until the queue has drained to half, so a long backlog
+    // never trips the overflow policy
+    boolean hasRoom() {
+        return queued.get() < limits.queueCapacity() / 2 && queuedBytes.get() < limits.maxQueuedBytes() / 2;
+    }
+
+    // Runs the callback on the executor once hasRoom() holds or the session is closed; right away if
+    // that is already so. Only one callback waits at a time.
+    void whenRoom(Runnable callback) {
+        onRoom.set(callback);
+        // The drain task may have made room, or close may have run, before the callback was visible
+        if ((hasRoom() || closed.get()) && onRoom.compareAndSet(callback, null)) {
+            executor.execute(callback);
+        }
+    }
+
+    boolean startReplay() {
+        return replaying.compareAndSet(false, true);
+    }
+
+    void endReplay() {
+        replaying.set(false);
+    }
+
+    long replayed() {
+        return replayed;
+    }
+
+    void replayed(long offset) {
+        replayed = offset;
+    }
+
+    void close(CloseStatus status) {
+        if (closed.compareAndSet(false, true)) {
+            queue.clear();
+            signalRoom();
+            executor.execute(() -> {
+                try {
+                    session.close(status);
+                } catch (IOException e) {
+                    // already gone
+                }
+            });
+        }
+    }
+
+    private void signalRoom() {
+        Runnable callback = onRoom.getAndSet(null);
+        if (callback != null) {
+            executor.execute(callback);
+        }
+    }
+
+    private void overflow() {
+        if (limits.overflowPolicy() == OverflowPolicy.CLOSE) {
+            stats.slowConsumerClosed();
+            close(SLOW_CONSUMER);
+        } else {
+            stats.dropped();
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            try {
+                byte[] first;
+                while (!closed.get() && (first = queue.poll()) != null) {
+                    send(first);
+                }
+            } catch (IOException | RuntimeException e) {
+                close(CloseStatus.SERVER_ERROR);
+            }
+            draining.set(false);
+            // A record offered after the last poll but before the flag cleared would otherwise wait
+            // for the next offer
+            if (closed.get() || queue.isEmpty() || !draining.compareAndSet(false, true)) {
+                return;
+            }
+        }
+    }
+
+    // Only the drain task touches the head of the queue, so peek-then-poll is safe
+    private void send(byte[] first) throws IOException {
+        batch.clear();
+        batch.add(first);
+        int size = first.length;
+        byte[] next;
+        while ((next = queue.peek()) != null && size + next.length <= limits.maxBatchBytes()) {
+            batch.add(queue.poll());
+            size += next.length;
+        }
+        ByteBuffer frame;
+        if (batch.size() == 1) {
+            frame = ByteBuffer.wrap(first);
+        } else {
+            frame = ByteBuffer.allocate(size);
+            batch.forEach(frame::put);
+            frame.flip();
+        }
+        queued.addAndGet(-batch.size());
+        queuedBytes.addAndGet(-size);
+        if (onRoom.get() != null && hasRoom()) {
+            signalRoom();
+        }
+        int records = batch.size();
+        batch.clear();
+        session.sendMessage(new BinaryMessage(frame, true));
+        stats.sent(records);
+    }
+}
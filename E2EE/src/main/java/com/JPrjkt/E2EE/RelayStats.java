@@ -0,0 +1,54 @@
+package com.JPrjkt.E2EE;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Relay counters since startup. Records are single messages to one session; frames are what was
+ * actually written, so records / frames is the batching factor.
+ */
+public class RelayStats {
+
+    public record Snapshot(long received, long records, long frames, long dropped, long slowConsumersClosed,
+                           long stored, long undeliverable) {
+    }
+
+    private final LongAdder received = new LongAdder();
+    private final LongAdder records = new LongAdder();
+    private final LongAdder frames = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder slowConsumersClosed = new LongAdder();
+    private final LongAdder stored = new LongAdder();
+    private final LongAdder undeliverable = new LongAdder();
+
+    void received() {
+        received.increment();
+    }
+
+    void sent(int records) {
+        this.records.add(records);
+        frames.increment();
+    }
+
+    void dropped() {
+        dropped.increment();
+    }
+
+    void slowConsumerClosed() {
+        slowConsumersClosed.increment();
+    }
+
+    // Addressed to someone with no open session and kept in the mailbox
+    void stored() {
+        stored.increment();
+    }
+
+    // Addressed to someone with no open session whose mailbox was full
+    void undeliverable() {
+        undeliverable.increment();
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(received.sum(), records.sum(), frames.sum(), dropped.sum(), slowConsumersClosed.sum(),
+                stored.sum(), undeliverable.sum());
+    }
+}
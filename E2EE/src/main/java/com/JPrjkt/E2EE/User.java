@@ -12,8 +12,12 @@ import lombok.NoArgsConstructor;
 @Entity
 @Table(name = "users")
 public class User{
+    // Ids are handed out in blocks of this size, by Hibernate and by UserProvisioningService alike
+    public static final int ID_ALLOCATION = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = ID_ALLOCATION)
     private Long id;
 
     private String username;
@@ -2,9 +2,19 @@ package com.JPrjkt.E2EE;
 
 import com.JPrjkt.E2EE.User;
 import com.JPrjkt.E2EE.UserService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.security.Principal;
+import java.util.Set;
+
 @RestController
 @RequestMapping("/api/users")
 public class UserController {
@@ -12,11 +22,31 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private UserProvisioningService provisioningService;
+
+    // Subjects allowed to provision accounts in bulk
+    @Value("${e2ee.provisioning.allowed-users:}")
+    private Set<String> provisioners;
+
     @PostMapping("/register")
     public User register(@RequestBody User user) {
         return userService.saveUser(user);
     }
 
+    // The body is a JSON array of {username, email, password, role}, read as a stream
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> provision(Principal principal, HttpServletRequest request) throws IOException {
+        if (!provisioners.contains(principal.getName())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        try {
+            return ResponseEntity.ok(provisioningService.provision(request.getInputStream()));
+        } catch (IllegalArgumentException | JsonProcessingException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @GetMapping("/{email}")
     public User getByEmail(@PathVariable String email) {
         return userService.getUserByEmail(email).orElse(null);
@@ -0,0 +1,234 @@
+package com.JPrjkt.E2EE;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates accounts in bulk, for onboarding an organization in one request. The body is a JSON array
+ * read as a stream and handled in chunks: passwords of a chunk are hashed on a pool sized to the
+ * cores, ids are taken in blocks from the same sequence Hibernate uses for User, and the rows go in
+ * as one JDBC batch. A row that cannot be created is reported with its index and skipped; it never
+ * takes the rest of the request down with it.
+ */
+@Service
+public class UserProvisioningService {
+
+    private static final int MIN_PASSWORD_LENGTH = 8;
+    private static final int MAX_LENGTH = 255;
+
+    public record NewUser(String username, String email, String password, String role) {
+    }
+
+    public record Failure(int index, String email, String reason) {
+    }
+
+    public record Result(int created, List<Failure> failures) {
+    }
+
+    private record Row(int index, NewUser user, String email) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final ObjectReader userReader;
+    private final int chunkSize;
+    private final ExecutorService hashers;
+    private final String nextIdsSql;
+
+    public UserProvisioningService(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            PasswordEncoder passwordEncoder,
+            ObjectMapper objectMapper,
+            @Value("${e2ee.provisioning.chunk-size:500}") int chunkSize,
+            @Value("${e2ee.provisioning.hash-threads:0}") int hashThreads) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.passwordEncoder = passwordEncoder;
+        this.userReader = objectMapper.readerFor(NewUser.class);
+        this.chunkSize = chunkSize;
+        AtomicInteger threads = new AtomicInteger();
+        this.hashers = Executors.newFixedThreadPool(hashThreads > 0 ? hashThreads : Runtime.getRuntime().availableProcessors(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        if (isPostgres(jdbcTemplate)) {
+            this.nextIdsSql = "select nextval('users_seq') from generate_series(1, ?)";
+        } else {
+            this.nextIdsSql = "select next value for users_seq from system_range(1, ?)";
+        }
+    }
+
+    // Reports malformed JSON by throwing; everything created before that point stays
+    public Result provision(InputStream body) throws IOException {
+        List<Failure> failures = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        List<Row> chunk = new ArrayList<>(chunkSize);
+        int created = 0;
+        int index = 0;
+        try (JsonParser parser = userReader.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Expected a JSON array of users");
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                NewUser user = userReader.readValue(parser);
+                String problem = validate(user);
+                String email = user.email() == null ? null : user.email().trim().toLowerCase(Locale.ROOT);
+                if (problem == null && !seen.add(email)) {
+                    problem = "Duplicate email in this request";
+                }
+                if (problem != null) {
+                    failures.add(new Failure(index++, user.email(), problem));
+                    continue;
+                }
+                chunk.add(new Row(index++, user, email));
+                if (chunk.size() == chunkSize) {
+                    created += write(chunk, failures);
+                    chunk.clear();
+                }
+            }
+        }
+        created += write(chunk, failures);
+        failures.sort((a, b) -> Integer.compare(a.index(), b.index()));
+        return new Result(created, failures);
+    }
+
+    private int write(List<Row> chunk, List<Failure> failures) {
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+        Set<String> existing = existingEmails(chunk);
+        List<Row> fresh = new ArrayList<>(chunk.size());
+        for (Row row : chunk) {
+            if (existing.contains(row.email())) {
+                failures.add(new Failure(row.index(), row.email(), "Email already registered"));
+            } else {
+                fresh.add(row);
+            }
+        }
+        if (fresh.isEmpty()) {
+            return 0;
+        }
+        List<String> hashes = hash(fresh);
+        List<Long> ids = nextIds(fresh.size());
+        List<Object[]> args = new ArrayList<>(fresh.size());
+        for (int i = 0; i < fresh.size(); i++) {
+            NewUser user = fresh.get(i).user();
+            args.add(new Object[]{ids.get(i), user.username() == null ? fresh.get(i).email() : user.username(),
+                    fresh.get(i).email(), hashes.get(i), user.role() == null ? "USER" : user.role()});
+        }
+        String insert = "insert into users (id, username, email, password, role) values (?, ?, ?, ?, ?)";
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(insert, args));
+            return fresh.size();
+        } catch (DataIntegrityViolationException e) {
+            // Someone registered one of these emails since the check; find out which, one row at a time
+            int created = 0;
+            for (int i = 0; i < fresh.size(); i++) {
+                try {
+                    jdbcTemplate.update(insert, args.get(i));
+                    created++;
+                } catch (DataIntegrityViolationException rowFailure) {
+                    failures.add(new Failure(fresh.get(i).index(), fresh.get(i).email(),
+                            rowFailure instanceof DuplicateKeyException ? "Email already registered" : "Rejected by the database"));
+                }
+            }
+            return created;
+        }
+    }
+
+    private Set<String> existingEmails(List<Row> chunk) {
+        String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+        return new HashSet<>(jdbcTemplate.queryForList("select lower(email) from users where lower(email) in (" + placeholders + ")",
+                String.class, chunk.stream().map(Row::email).toArray()));
+    }
+
+    // BCrypt is deliberately slow, so this is where a chunk spends its time
+    private List<String> hash(List<Row> rows) {
+        List<Callable<String>> tasks = rows.stream()
+                .<Callable<String>>map(row -> () -> passwordEncoder.encode(row.user().password()))
+                .toList();
+        try {
+            List<String> hashes = new ArrayList<>(rows.size());
+            for (Future<String> hash : hashers.invokeAll(tasks)) {
+                hashes.add(hash.get());
+            }
+            return hashes;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing passwords");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Hashing a password failed", e.getCause());
+        }
+    }
+
+    // Same block semantics as Hibernate's pooled optimizer: a sequence value v covers the ids up to
+    // and including v, down to v - ID_ALLOCATION + 1
+    private List<Long> nextIds(int count) {
+        List<Long> ids = new ArrayList<>(count);
+        while (ids.size() < count) {
+            int blocks = (count - ids.size() + User.ID_ALLOCATION - 1) / User.ID_ALLOCATION;
+            for (long high : jdbcTemplate.queryForList(nextIdsSql, Long.class, blocks)) {
+                for (long id = Math.max(1, high - User.ID_ALLOCATION + 1); id <= high && ids.size() < count; id++) {
+                    ids.add(id);
+                }
+            }
+        }
+        return ids;
+    }
+
+    private static String validate(NewUser user) {
+        if (user.email() == null || !user.email().contains("@") || user.email().length() > MAX_LENGTH) {
+            return "A valid email is required";
+        }
+        if (user.username() != null && (user.username().isBlank() || user.username().length() > MAX_LENGTH)) {
+            return "Username must be between 1 and " + MAX_LENGTH + " characters";
+        }
+        if (user.password() == null || user.password().length() < MIN_PASSWORD_LENGTH) {
+            return "Password must be at least " + MIN_PASSWORD_LENGTH + " characters";
+        }
+        if (user.role() != null && !user.role().equals("USER") && !user.role().equals("ADMIN")) {
+            return "Role must be USER or ADMIN";
+        }
+        return null;
+    }
+
+    private static boolean isPostgres(JdbcTemplate jdbcTemplate) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        hashers.shutdown();
+    }
+}
@@ -0,0 +1,13 @@
+-- The users table as Hibernate's ddl-auto=update created it before migrations were introduced,
+-- with IDENTITY ids. Databases built that way are baselined at this version instead of running it
+-- (spring.flyway.baseline-on-migrate); everything added since comes from the later versions.
+
+create table users (
+    id bigint generated by default as identity,
+    username varchar(255),
+    email varchar(255),
+    password varchar(255),
+    role varchar(255),
+    primary key (id),
+    constraint uk_users_email unique (email)
+);
@@ -0,0 +1,4 @@
+-- Ids now come from a pooled sequence so bulk provisioning can batch its inserts; the identity
+-- default stays on the column but is no longer used
+
+create sequence if not exists users_seq start with 1 increment by 50;
@@ -0,0 +1,21 @@
+-- Key directory: one identity and signed prekey per user plus a pool of one-time prekeys
+
+create table identity_keys (
+    email varchar(255) not null,
+    identity_key bytea not null,
+    signed_pre_key_id integer not null,
+    signed_pre_key bytea not null,
+    signed_pre_key_signature bytea not null,
+    updated_at timestamp(6) not null,
+    primary key (email)
+);
+
+create table one_time_prekeys (
+    id bigint generated by default as identity,
+    owner varchar(255) not null,
+    key_id integer not null,
+    public_key bytea not null,
+    primary key (id),
+    constraint uk_one_time_prekeys_owner_key unique (owner, key_id)
+);
+create index idx_one_time_prekeys_owner_id on one_time_prekeys (owner, id);
@@ -0,0 +1,2 @@
+-- Users created while ids were IDENTITY generated are ahead of the freshly created sequence
+select setval('users_seq', greatest((select last_value from users_seq), (select coalesce(max(id), 0) from users) + 50));
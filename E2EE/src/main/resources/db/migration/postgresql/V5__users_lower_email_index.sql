@@ -0,0 +1,5 @@
+-- Bulk provisioning checks for existing accounts case-insensitively (lower(email) in (...)).
+-- CONCURRENTLY keeps signups writable while it builds; see flyway.postgresql.transactional-lock in
+-- application.yml. An INVALID leftover of an interrupted build is dropped so the retry starts clean.
+drop index concurrently if exists idx_users_email_lower;
+create index concurrently idx_users_email_lower on users (lower(email));
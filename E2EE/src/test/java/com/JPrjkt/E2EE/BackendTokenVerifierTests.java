@@ -0,0 +1,108 @@
+package com.JPrjkt.E2EE;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.interfaces.ECPublicKey;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BackendTokenVerifierTests {
+
+	private final AtomicInteger fetches = new AtomicInteger();
+	private final List<Map<String, String>> published = new ArrayList<>();
+	private HttpServer server;
+	private BackendTokenVerifier verifier;
+
+	@BeforeEach
+	void startJwksServer() throws Exception {
+		ObjectMapper objectMapper = new ObjectMapper();
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/.well-known/jwks.json", exchange -> {
+			fetches.incrementAndGet();
+			byte[] body = objectMapper.writeValueAsBytes(Map.of("keys", published));
+			exchange.sendResponseHeaders(200, body.length);
+			exchange.getResponseBody().write(body);
+			exchange.close();
+		});
+		server.start();
+		URI uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/.well-known/jwks.json");
+		verifier = new BackendTokenVerifier(new JwksKeyResolver(uri, Duration.ZERO, objectMapper));
+	}
+
+	@AfterEach
+	void stopJwksServer() {
+		server.stop(0);
+	}
+
+	@Test
+	void verifiesLocallyAfterOneFetchAndPicksUpRotatedKeys() {
+		KeyPair first = publish("k1");
+		for (int i = 0; i < 100; i++) {
+			assertEquals("alice@devvault.local", verifier.verify(sign(first, "k1")).getSubject());
+		}
+		assertEquals(1, fetches.get());
+
+		KeyPair second = publish("k2");
+		assertEquals("alice@devvault.local", verifier.verify(sign(second, "k2")).getSubject());
+		assertEquals("alice@devvault.local", verifier.verify(sign(first, "k1")).getSubject());
+		assertEquals(2, fetches.get());
+	}
+
+	@Test
+	void rejectsUnknownKidsAndHmacTokens() {
+		publish("k1");
+		assertThrows(RuntimeException.class, () -> verifier.verify(sign(Keys.keyPairFor(SignatureAlgorithm.ES256), "k1")));
+		assertThrows(RuntimeException.class, () -> verifier.verify(sign(Keys.keyPairFor(SignatureAlgorithm.ES256), "nope")));
+		String hmac = Jwts.builder()
+				.setHeaderParam("kid", "k1")
+				.setSubject("alice@devvault.local")
+				.signWith(Keys.hmacShaKeyFor("0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.US_ASCII)))
+				.compact();
+		assertThrows(RuntimeException.class, () -> verifier.verify(hmac));
+	}
+
+	private KeyPair publish(String kid) {
+		KeyPair pair = Keys.keyPairFor(SignatureAlgorithm.ES256);
+		ECPublicKey key = (ECPublicKey) pair.getPublic();
+		published.add(Map.of("kty", "EC", "crv", "P-256", "kid", kid, "alg", "ES256",
+				"x", coordinate(key.getW().getAffineX()), "y", coordinate(key.getW().getAffineY())));
+		return pair;
+	}
+
+	private static String sign(KeyPair pair, String kid) {
+		return Jwts.builder()
+				.setHeaderParam("kid", kid)
+				.setSubject("alice@devvault.local")
+				.setExpiration(new Date(System.currentTimeMillis() + 60_000))
+				.signWith(pair.getPrivate(), SignatureAlgorithm.ES256)
+				.compact();
+	}
+
+	private static String coordinate(BigInteger value) {
+		byte[] bytes = value.toByteArray();
+		byte[] padded = new byte[32];
+		int length = Math.min(bytes.length, 32);
+		System.arraycopy(bytes, bytes.length - length, padded, 32 - length, length);
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(padded);
+	}
+}
@@ -0,0 +1,137 @@
+package com.JPrjkt.E2EE;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class KeyDirectoryTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private KeyDirectoryService keyDirectoryService;
+
+	@Test
+	void handsOutEachPreKeyOnceAndFallsBackToTheSignedPreKey() throws Exception {
+		publish("dana@devvault.local", 1, 2);
+		publish("erin@devvault.local", 1, 1);
+		mockMvc.perform(post("/api/keys/prekeys").with(user("dana@devvault.local"))
+						.contentType(MediaType.APPLICATION_JSON).content(json(List.of(preKey(2)))))
+				.andExpect(status().isConflict());
+		mockMvc.perform(post("/api/keys/prekeys").with(user("nokeys@devvault.local"))
+						.contentType(MediaType.APPLICATION_JSON).content(json(List.of(preKey(1)))))
+				.andExpect(status().isConflict());
+
+		JsonNode first = bundles("dana@devvault.local", "erin@devvault.local", "nobody@devvault.local");
+		assertEquals(2, first.size());
+		assertEquals("dana@devvault.local", first.get(0).get("email").asText());
+		assertEquals(1, first.get(0).get("signedPreKeyId").asInt());
+		JsonNode second = bundles("dana@devvault.local", "erin@devvault.local");
+		assertTrue(first.get(0).get("oneTimePreKey").get("keyId").asInt() != second.get(0).get("oneTimePreKey").get("keyId").asInt());
+		assertTrue(second.get(1).get("oneTimePreKey").isNull());
+		assertTrue(bundles("dana@devvault.local").get(0).get("oneTimePreKey").isNull());
+		mockMvc.perform(get("/api/keys/prekeys/count").with(user("dana@devvault.local")))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.count").value(0));
+
+		// a new identity key drops the prekeys made under the old one
+		publish("erin@devvault.local", 3, 5);
+		mockMvc.perform(put("/api/keys/identity").with(user("erin@devvault.local")).contentType(MediaType.APPLICATION_JSON)
+						.content(json(new KeyDirectoryService.Identity(new byte[]{9}, 4, new byte[]{4}, new byte[]{4}))))
+				.andExpect(status().isNoContent());
+		assertEquals(0, keyDirectoryService.preKeyCount("erin@devvault.local"));
+		assertEquals(4, bundles("erin@devvault.local").get(0).get("signedPreKeyId").asInt());
+	}
+
+	@Test
+	void concurrentClaimsNeverShareAPreKey() throws Exception {
+		String owner = "popular@devvault.local";
+		keyDirectoryService.publishIdentity(owner, new KeyDirectoryService.Identity(new byte[]{1}, 1, new byte[]{1}, new byte[]{1}));
+		List<KeyDirectoryService.PreKey> preKeys = new ArrayList<>();
+		for (int i = 0; i < 400; i++) {
+			preKeys.add(preKey(i));
+		}
+		keyDirectoryService.uploadPreKeys(owner, preKeys);
+
+		Set<Integer> claimed = ConcurrentHashMap.newKeySet();
+		List<Future<Integer>> results = new ArrayList<>();
+		try (ExecutorService claimers = Executors.newFixedThreadPool(16)) {
+			for (int t = 0; t < 16; t++) {
+				results.add(claimers.submit(() -> {
+					int count = 0;
+					for (int i = 0; i < 25; i++) {
+						KeyDirectoryService.PreKey preKey = keyDirectoryService.bundles(List.of(owner)).get(0).oneTimePreKey();
+						if (preKey != null) {
+							assertTrue(claimed.add(preKey.keyId()));
+							count++;
+						}
+					}
+					return count;
+				}));
+			}
+		}
+		int total = 0;
+		for (Future<Integer> result : results) {
+			total += result.get();
+		}
+		assertEquals(claimed.size(), total);
+		assertEquals(400, total + keyDirectoryService.preKeyCount(owner));
+	}
+
+	private void publish(String email, int signedPreKeyId, int preKeys) throws Exception {
+		mockMvc.perform(put("/api/keys/identity").with(user(email)).contentType(MediaType.APPLICATION_JSON)
+						.content(json(new KeyDirectoryService.Identity(new byte[]{1, 2}, signedPreKeyId, new byte[]{3}, new byte[]{4}))))
+				.andExpect(status().isNoContent());
+		List<KeyDirectoryService.PreKey> batch = new ArrayList<>();
+		for (int i = 1; i <= preKeys; i++) {
+			batch.add(preKey(i));
+		}
+		mockMvc.perform(post("/api/keys/prekeys").with(user(email)).contentType(MediaType.APPLICATION_JSON).content(json(batch)))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.uploaded").value(preKeys));
+	}
+
+	private JsonNode bundles(String... emails) throws Exception {
+		return objectMapper.readTree(mockMvc.perform(post("/api/keys/bundles").with(user("requester@devvault.local"))
+						.contentType(MediaType.APPLICATION_JSON).content(json(Map.of("emails", List.of(emails)))))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString());
+	}
+
+	private String json(Object value) throws Exception {
+		return objectMapper.writeValueAsString(value);
+	}
+
+	private static KeyDirectoryService.PreKey preKey(int keyId) {
+		return new KeyDirectoryService.PreKey(keyId, new byte[]{(byte) keyId, 7});
+	}
+}
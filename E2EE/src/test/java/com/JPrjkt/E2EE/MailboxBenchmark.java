@@ -0,0 +1,140 @@
+package com.JPrjkt.E2EE;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Offline mailbox against storing each message as a JPA row: N appends spread over many recipients,
+// then every recipient drains and acknowledges its backlog.
+// mvn -Pbenchmark test -Djava.version=21 [-Dbench.messages=200000 -Dspring.datasource.url=jdbc:postgresql://...]
+// The default in-memory H2 flatters the JPA side; it pays no network round trips and no fsync.
+@Tag("benchmark")
+@SpringBootTest
+class MailboxBenchmark {
+
+	private static final int MESSAGES = Integer.getInteger("bench.messages", 100_000);
+	private static final int RECIPIENTS = Integer.getInteger("bench.recipients", 1000);
+	private static final int THREADS = Integer.getInteger("bench.threads", 8);
+	private static final int PAYLOAD = Integer.getInteger("bench.payload-bytes", 256);
+
+	@Entity
+	@Table(name = "baseline_messages", indexes = @Index(columnList = "recipient, id"))
+	static class BaselineMessage {
+		@Id
+		@GeneratedValue(strategy = GenerationType.IDENTITY)
+		Long id;
+
+		@Column(nullable = false)
+		String recipient;
+
+		@Column(nullable = false, length = 4096)
+		byte[] message;
+	}
+
+	@TempDir
+	Path dir;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Test
+	void mailboxAgainstJpaRows() throws Exception {
+		byte[] message = new byte[PAYLOAD];
+		OfflineMailbox mailbox = new OfflineMailbox(dir, 16, DataSize.ofMegabytes(64), Integer.MAX_VALUE,
+				Duration.ofDays(1), Duration.ofMillis(100));
+		report("mailbox append", parallel(i -> mailbox.append(recipient(i), message)));
+		AtomicLong drained = new AtomicLong();
+		report("mailbox drain", parallelRecipients(r -> {
+			long after = 0;
+			List<OfflineMailbox.Entry> entries;
+			while (!(entries = mailbox.read(recipient(r), after, 64 * 1024)).isEmpty()) {
+				after = entries.get(entries.size() - 1).offset();
+				drained.addAndGet(entries.size());
+			}
+			mailbox.ack(recipient(r), after);
+		}));
+		assertEquals(MESSAGES, drained.get());
+		mailbox.close();
+
+		SimpleJpaRepository<BaselineMessage, Long> repository = new SimpleJpaRepository<>(BaselineMessage.class, entityManager);
+		report("jpa append", parallel(i -> transactionTemplate.executeWithoutResult(status -> {
+			BaselineMessage row = new BaselineMessage();
+			row.recipient = recipient(i);
+			row.message = message;
+			repository.save(row);
+		})));
+		drained.set(0);
+		report("jpa drain", parallelRecipients(r -> transactionTemplate.executeWithoutResult(status -> {
+			List<BaselineMessage> rows = entityManager.createQuery(
+							"select m from MailboxBenchmark$BaselineMessage m where m.recipient = :recipient order by m.id",
+							BaselineMessage.class)
+					.setParameter("recipient", recipient(r))
+					.getResultList();
+			drained.addAndGet(rows.size());
+			repository.deleteAllInBatch(rows);
+		})));
+		assertEquals(MESSAGES, drained.get());
+	}
+
+	private interface Task {
+		void run(int i) throws Exception;
+	}
+
+	private static long parallel(Task task) throws Exception {
+		return timed(THREADS, MESSAGES, task);
+	}
+
+	private static long parallelRecipients(Task task) throws Exception {
+		return timed(THREADS, RECIPIENTS, task);
+	}
+
+	private static long timed(int threads, int count, Task task) throws Exception {
+		long start = System.nanoTime();
+		try (ExecutorService pool = Executors.newFixedThreadPool(threads)) {
+			for (int t = 0; t < threads; t++) {
+				int first = t;
+				pool.submit(() -> {
+					for (int i = first; i < count; i += threads) {
+						task.run(i);
+					}
+					return null;
+				});
+			}
+		}
+		return System.nanoTime() - start;
+	}
+
+	private static void report(String phase, long nanos) {
+		System.out.printf("%-15s %,d messages in %,d ms = %,.0f msg/s%n", phase, MESSAGES, nanos / 1_000_000,
+				MESSAGES / (nanos / 1e9));
+	}
+
+	private static String recipient(int i) {
+		return "user" + (i % RECIPIENTS) + "@bench.local";
+	}
+}
@@ -0,0 +1,95 @@
+package com.JPrjkt.E2EE;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OfflineMailboxTests {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void recoversWaitingMessagesAndTruncatesAcknowledgedSegments() throws Exception {
+		OfflineMailbox mailbox = open();
+		long first = mailbox.append("ann@devvault.local", message(1));
+		for (int i = 2; i <= 40; i++) {
+			mailbox.append("ann@devvault.local", message(i));
+		}
+		long ben = mailbox.append("ben@devvault.local", message(99));
+		assertTrue(segments() > 1);
+		mailbox.ack("ann@devvault.local", first);
+		mailbox.close();
+
+		// a crash half way through an append: a length with garbage behind it
+		Path active = lastSegment();
+		try (RandomAccessFile file = new RandomAccessFile(active.toFile(), "rw")) {
+			long end = 0;
+			while (file.length() - end >= 4) {
+				file.seek(end);
+				int length = file.readInt();
+				if (length == 0) {
+					break;
+				}
+				end += 8 + length;
+			}
+			file.seek(end);
+			file.writeInt(500);
+			file.writeInt(12345);
+		}
+
+		OfflineMailbox reopened = open();
+		assertEquals(39, reopened.pending("ann@devvault.local"));
+		List<OfflineMailbox.Entry> entries = reopened.read("ann@devvault.local", 0, Integer.MAX_VALUE);
+		assertEquals(39, entries.size());
+		assertArrayEquals(message(2), entries.get(0).message());
+		assertArrayEquals(message(40), entries.get(38).message());
+		assertEquals(ben, reopened.read("ben@devvault.local", 0, 1).get(0).offset());
+		// appends go to a fresh segment after the torn one
+		long next = reopened.append("ann@devvault.local", message(41));
+		assertTrue(next > ben);
+		assertEquals(1, reopened.read("ann@devvault.local", entries.get(38).offset(), 1).size());
+
+		int before = segments();
+		reopened.ack("ann@devvault.local", next);
+		reopened.ack("ben@devvault.local", ben);
+		assertEquals(1, segments());
+		assertTrue(before > 1);
+		reopened.close();
+		assertEquals(0, open().pending("ann@devvault.local"));
+	}
+
+	private OfflineMailbox open() throws IOException {
+		return new OfflineMailbox(dir, 1, DataSize.ofKilobytes(4), 1000, Duration.ofDays(1), Duration.ofHours(1));
+	}
+
+	private int segments() throws IOException {
+		try (Stream<Path> files = Files.list(dir.resolve("shard-000"))) {
+			return (int) files.count();
+		}
+	}
+
+	private Path lastSegment() throws IOException {
+		try (Stream<Path> files = Files.list(dir.resolve("shard-000"))) {
+			return files.sorted().reduce((a, b) -> b).orElseThrow();
+		}
+	}
+
+	private static byte[] message(int i) {
+		byte[] message = new byte[300];
+		message[0] = (byte) i;
+		return message;
+	}
+}
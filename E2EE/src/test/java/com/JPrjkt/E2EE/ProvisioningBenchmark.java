@@ -0,0 +1,73 @@
+package com.JPrjkt.E2EE;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.StringJoiner;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// One register call per user against a single bulk request for the same number of users, in process
+// (no network on either side). BCrypt dominates both; run with a low strength to see the database part.
+// mvn -Pbenchmark test -Djava.version=21 [-Dbench.users=5000 -Dbench.bcrypt-strength=4]
+@Tag("benchmark")
+@SpringBootTest(properties = {
+		"e2ee.provisioning.allowed-users=admin@bench.local",
+		"e2ee.auth.bcrypt-strength=${bench.bcrypt-strength:10}",
+		"logging.level.org.hibernate.SQL=WARN"
+})
+@AutoConfigureMockMvc
+class ProvisioningBenchmark {
+
+	private static final int USERS = Integer.getInteger("bench.users", 1000);
+	private static final String USER = "{\"username\":\"%s\",\"email\":\"%s\",\"password\":\"correct horse battery\"}";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Test
+	void bulkAgainstOneByOne() throws Exception {
+		long start = System.nanoTime();
+		for (int i = 0; i < USERS; i++) {
+			String email = "single" + i + "@bench.local";
+			mockMvc.perform(post("/api/users/register").with(user("admin@bench.local"))
+							.contentType(MediaType.APPLICATION_JSON).content(USER.formatted("single" + i, email)))
+					.andExpect(status().isOk());
+		}
+		report("register x" + USERS, System.nanoTime() - start);
+
+		StringJoiner body = new StringJoiner(",", "[", "]");
+		for (int i = 0; i < USERS; i++) {
+			body.add(USER.formatted("bulk" + i, "bulk" + i + "@bench.local"));
+		}
+		start = System.nanoTime();
+		JsonNode result = objectMapper.readTree(mockMvc.perform(post("/api/users/bulk").with(user("admin@bench.local"))
+						.contentType(MediaType.APPLICATION_JSON).content(body.toString()))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString());
+		report("bulk", System.nanoTime() - start);
+		assertEquals(USERS, result.get("created").asInt());
+		assertEquals(2L * USERS, userRepository.count());
+	}
+
+	private static void report(String path, long nanos) {
+		System.out.printf("%-15s %,d users in %,d ms = %,.0f users/s (%d cores)%n", path, USERS, nanos / 1_000_000,
+				USERS / (nanos / 1e9), Runtime.getRuntime().availableProcessors());
+	}
+}
@@ -0,0 +1,163 @@
+package com.JPrjkt.E2EE;
+
+import jakarta.websocket.ContainerProvider;
+import jakarta.websocket.WebSocketContainer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.BinaryWebSocketHandler;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Relay throughput and fan-out latency over real sockets on one node.
+// mvn -Pbenchmark test -Djava.version=21 [-Dbench.connections=20000 -Dbench.messages=200000]
+// Tens of thousands of connections need a matching open file limit (ulimit -n).
+@Tag("benchmark")
+class RelayBenchmark {
+
+	private static final int CONNECTIONS = Integer.getInteger("bench.connections", 2000);
+	private static final int SENDERS = Integer.getInteger("bench.senders", 16);
+	private static final int MESSAGES = Integer.getInteger("bench.messages", 100_000);
+	private static final int FAN_OUT = Integer.getInteger("bench.fan-out", 250);
+	private static final int ROUNDS = Integer.getInteger("bench.rounds", 200);
+	private static final int PAYLOAD = Integer.getInteger("bench.payload-bytes", 256);
+
+	@Test
+	void throughputAndFanOut() throws Exception {
+		TestJwks jwks = new TestJwks();
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(E2EEApplication.class).run(
+				"--server.port=0",
+				"--e2ee.auth.jwks-uri=" + jwks.uri(),
+				"--e2ee.relay.queue-capacity=100000",
+				"--e2ee.relay.max-queued-bytes=256MB",
+				"--logging.level.root=WARN")) {
+			URI relay = URI.create("ws://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort() + "/relay");
+			RelayHandler handler = context.getBean(RelayHandler.class);
+			AtomicLong delivered = new AtomicLong();
+			AtomicReference<long[]> latencies = new AtomicReference<>(new long[0]);
+			AtomicLong latencyCount = new AtomicLong();
+			// Batched frames go up to e2ee.relay.max-batch-bytes, past the container's 8KB default
+			WebSocketContainer container = ContainerProvider.getWebSocketContainer();
+			container.setDefaultMaxBinaryMessageBufferSize(64 * 1024);
+			StandardWebSocketClient client = new StandardWebSocketClient(container);
+
+			long connectStart = System.nanoTime();
+			List<WebSocketSession> sessions = new ArrayList<>(CONNECTIONS);
+			try (ExecutorService connectors = Executors.newVirtualThreadPerTaskExecutor()) {
+				List<Future<WebSocketSession>> pending = new ArrayList<>();
+				for (int i = 0; i < CONNECTIONS; i++) {
+					String email = "user" + i + "@bench.local";
+					pending.add(connectors.submit(() -> connect(client, relay, jwks.token(email), delivered, latencies, latencyCount)));
+				}
+				for (Future<WebSocketSession> session : pending) {
+					sessions.add(session.get());
+				}
+			}
+			System.out.printf("%nconnected %d sessions in %d ms%n", sessions.size(), (System.nanoTime() - connectStart) / 1_000_000);
+
+			// Throughput: each sender streams to its own recipient, so queues fill and batching kicks in
+			RelayStats.Snapshot before = handler.stats().snapshot();
+			long start = System.nanoTime();
+			try (ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor()) {
+				for (int s = 0; s < SENDERS; s++) {
+					WebSocketSession sender = sessions.get(s);
+					String recipient = "user" + (SENDERS + s) + "@bench.local";
+					senders.submit(() -> {
+						ByteBuffer frame = RelayTests.inbound(List.of(recipient), new byte[PAYLOAD]);
+						for (int m = 0; m < MESSAGES / SENDERS; m++) {
+							sender.sendMessage(new BinaryMessage(frame.duplicate()));
+						}
+						return null;
+					});
+				}
+			}
+			long target = (long) (MESSAGES / SENDERS) * SENDERS;
+			while (delivered.get() < target && System.nanoTime() - start < TimeUnit.SECONDS.toNanos(120)) {
+				Thread.sleep(5);
+			}
+			double seconds = (System.nanoTime() - start) / 1e9;
+			RelayStats.Snapshot after = handler.stats().snapshot();
+			long frames = after.frames() - before.frames();
+			System.out.printf("throughput: %d messages in %.2f s = %.0f msg/s, %.1f records per frame%n",
+					delivered.get(), seconds, delivered.get() / seconds, (double) (after.records() - before.records()) / frames);
+
+			// Fan-out: one message to FAN_OUT recipients, latency from send to each delivery
+			List<String> recipients = new ArrayList<>();
+			for (int i = 0; i < FAN_OUT; i++) {
+				recipients.add("user" + (CONNECTIONS - 1 - i) + "@bench.local");
+			}
+			latencies.set(new long[ROUNDS * FAN_OUT]);
+			latencyCount.set(0);
+			WebSocketSession sender = sessions.get(0);
+			for (int round = 0; round < ROUNDS; round++) {
+				long expected = (long) (round + 1) * FAN_OUT;
+				byte[] payload = ByteBuffer.allocate(PAYLOAD).putLong(System.nanoTime()).array();
+				sender.sendMessage(new BinaryMessage(RelayTests.inbound(recipients, payload)));
+				while (latencyCount.get() < expected) {
+					Thread.onSpinWait();
+				}
+			}
+			long[] sorted = latencies.get().clone();
+			Arrays.sort(sorted);
+			System.out.printf("fan-out to %d: p50 %.2f ms, p99 %.2f ms, max %.2f ms over %d deliveries%n", FAN_OUT,
+					sorted[sorted.length / 2] / 1e6, sorted[(int) (sorted.length * 0.99)] / 1e6, sorted[sorted.length - 1] / 1e6,
+					sorted.length);
+			System.out.println(handler.stats().snapshot());
+			for (WebSocketSession session : sessions) {
+				session.close();
+			}
+		}
+	}
+
+	private static WebSocketSession connect(StandardWebSocketClient client, URI relay, String token, AtomicLong delivered,
+										 AtomicReference<long[]> latencies, AtomicLong latencyCount) throws Exception {
+		WebSocketHttpHeaders headers = new WebSocketHttpHeaders();
+		headers.setBearerAuth(token);
+		CountDownLatch open = new CountDownLatch(1);
+		WebSocketSession session = client.execute(new BinaryWebSocketHandler() {
+			@Override
+			public void afterConnectionEstablished(WebSocketSession session) {
+				open.countDown();
+			}
+
+			@Override
+			protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) {
+				long now = System.nanoTime();
+				ByteBuffer frame = message.getPayload();
+				while (frame.hasRemaining()) {
+					int length = frame.getInt();
+					int next = frame.position() + length;
+					// skip the mailbox offset and the sender
+					frame.position(frame.position() + 8);
+					frame.position(frame.position() + 2 + Short.toUnsignedInt(frame.getShort(frame.position())));
+					long[] samples = latencies.get();
+					if (samples.length > 0) {
+						long index = latencyCount.getAndIncrement();
+						samples[(int) Math.min(index, samples.length - 1)] = now - frame.getLong(frame.position());
+					}
+					delivered.incrementAndGet();
+					frame.position(next);
+				}
+			}
+		}, headers, relay).get(30, TimeUnit.SECONDS);
+		open.await();
+		return session;
+	}
+}
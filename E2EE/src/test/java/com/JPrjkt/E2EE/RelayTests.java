@@ -0,0 +1,291 @@
+package com.JPrjkt.E2EE;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.BinaryWebSocketHandler;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class RelayTests {
+
+	private static final TestJwks JWKS = new TestJwks();
+
+	@DynamicPropertySource
+	static void jwks(DynamicPropertyRegistry registry) {
+		registry.add("e2ee.auth.jwks-uri", JWKS::uri);
+	}
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private RelayHandler relayHandler;
+
+	@Autowired
+	private OfflineMailbox mailbox;
+
+	@Test
+	void relaysToEveryDeviceOfEachRecipient() throws Exception {
+		BlockingQueue<ByteBuffer> phone = new LinkedBlockingQueue<>();
+		BlockingQueue<ByteBuffer> laptop = new LinkedBlockingQueue<>();
+		connect("alice@devvault.local", phone);
+		connect("alice@devvault.local", laptop);
+		WebSocketSession bob = connect("bob@devvault.local", new LinkedBlockingQueue<>());
+
+		byte[] ciphertext = "sealed for alice".getBytes(StandardCharsets.UTF_8);
+		bob.sendMessage(new BinaryMessage(inbound(List.of("carol@devvault.local", "alice@devvault.local"), ciphertext)));
+
+		for (BlockingQueue<ByteBuffer> device : List.of(phone, laptop)) {
+			ByteBuffer record = device.poll(5, TimeUnit.SECONDS);
+			assertEquals(record.remaining() - 4, record.getInt());
+			assertEquals(0, record.getLong());
+			byte[] sender = new byte[record.getShort()];
+			record.get(sender);
+			assertEquals("bob@devvault.local", new String(sender, StandardCharsets.UTF_8));
+			byte[] payload = new byte[record.remaining()];
+			record.get(payload);
+			assertArrayEquals(ciphertext, payload);
+		}
+		// carol is offline; her copy was stored before alice's devices were offered theirs
+		assertEquals(1, relayHandler.stats().snapshot().stored());
+
+		assertThrows(Exception.class, () -> new StandardWebSocketClient()
+				.execute(new BinaryWebSocketHandler(), new WebSocketHttpHeaders(), URI.create("ws://localhost:" + port + "/relay"))
+				.get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void replaysStoredMessagesUntilAcknowledged() throws Exception {
+		WebSocketSession bob = connect("bob@devvault.local", new LinkedBlockingQueue<>());
+		for (int i = 0; i < 3; i++) {
+			bob.sendMessage(new BinaryMessage(inbound(List.of("frank@devvault.local"), new byte[]{(byte) i})));
+		}
+		while (mailbox.pending("frank@devvault.local") < 3) {
+			Thread.sleep(5);
+		}
+
+		BlockingQueue<ByteBuffer> first = new LinkedBlockingQueue<>();
+		WebSocketSession frank = connect("frank@devvault.local", first);
+		// replayed records are batched, so split the frames
+		List<ByteBuffer> records = new ArrayList<>();
+		while (records.size() < 3) {
+			ByteBuffer frame = first.poll(5, TimeUnit.SECONDS);
+			while (frame.hasRemaining()) {
+				int length = frame.getInt();
+				records.add(frame.slice(frame.position(), length));
+				frame.position(frame.position() + length);
+			}
+		}
+		long last = 0;
+		for (int i = 0; i < 3; i++) {
+			ByteBuffer record = records.get(i);
+			long offset = record.getLong();
+			assertTrue(offset > last);
+			last = offset;
+			record.position(record.position() + 2 + "bob@devvault.local".length());
+			assertEquals(i, record.get());
+		}
+		frank.sendMessage(new BinaryMessage(ByteBuffer.allocate(9).put((byte) 0).putLong(last).flip()));
+		frank.close();
+		while (mailbox.pending("frank@devvault.local") > 0) {
+			Thread.sleep(5);
+		}
+
+		BlockingQueue<ByteBuffer> second = new LinkedBlockingQueue<>();
+		connect("frank@devvault.local", second);
+		assertNull(second.poll(200, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	void batchesQueuedRecordsAndDropsOnceTheQueueIsFull() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		List<Integer> frameSizes = new java.util.concurrent.CopyOnWriteArrayList<>();
+		WebSocketSession client = mock(WebSocketSession.class);
+		doAnswer(invocation -> {
+			frameSizes.add(((BinaryMessage) invocation.getArgument(0)).getPayloadLength());
+			release.await();
+			return null;
+		}).when(client).sendMessage(any());
+		RelayStats stats = new RelayStats();
+		RelaySession session = new RelaySession(client,
+				new RelaySession.Limits(4, 1 << 20, 1 << 16, RelaySession.OverflowPolicy.DROP),
+				Executors.newVirtualThreadPerTaskExecutor(), stats);
+
+		assertTrue(session.offer(new byte[10]));
+		// the first write is now stuck on the client; four more fit in the queue
+		while (frameSizes.isEmpty()) {
+			Thread.sleep(1);
+		}
+		for (int i = 0; i < 4; i++) {
+			assertTrue(session.offer(new byte[10]));
+		}
+		assertFalse(session.offer(new byte[10]));
+		release.countDown();
+		verify(client, timeout(5000).times(2)).sendMessage(any());
+		assertEquals(List.of(10, 40), frameSizes);
+		RelayStats.Snapshot snapshot = stats.snapshot();
+		assertEquals(5, snapshot.records());
+		assertEquals(2, snapshot.frames());
+		assertEquals(1, snapshot.dropped());
+
+		WebSocketSession slow = mock(WebSocketSession.class);
+		doAnswer(invocation -> {
+			Thread.sleep(60_000);
+			return null;
+		}).when(slow).sendMessage(any());
+		RelaySession closing = new RelaySession(slow,
+				new RelaySession.Limits(1, 1 << 20, 1 << 16, RelaySession.OverflowPolicy.CLOSE),
+				Executors.newVirtualThreadPerTaskExecutor(), stats);
+		closing.offer(new byte[10]);
+		closing.offer(new byte[10]);
+		closing.offer(new byte[10]);
+		verify(slow, timeout(5000)).close(RelaySession.SLOW_CONSUMER);
+	}
+
+	@Test
+	void aWaitingReplayIsWokenWhenTheQueueDrainsOrCloses() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		WebSocketSession client = mock(WebSocketSession.class);
+		doAnswer(invocation -> {
+			release.await();
+			return null;
+		}).when(client).sendMessage(any());
+		RelaySession session = new RelaySession(client,
+				new RelaySession.Limits(4, 1 << 20, 1 << 16, RelaySession.OverflowPolicy.DROP),
+				Executors.newVirtualThreadPerTaskExecutor(), new RelayStats());
+		// the first write is stuck on the client, and the two queued behind it leave no room
+		session.offer(new byte[10]);
+		verify(client, timeout(5000)).sendMessage(any());
+		session.offer(new byte[10]);
+		session.offer(new byte[10]);
+		assertFalse(session.hasRoom());
+
+		CountDownLatch resumed = new CountDownLatch(1);
+		session.whenRoom(resumed::countDown);
+		assertFalse(resumed.await(100, TimeUnit.MILLISECONDS));
+		release.countDown();
+		assertTrue(resumed.await(5, TimeUnit.SECONDS));
+
+		WebSocketSession stuck = mock(WebSocketSession.class);
+		doAnswer(invocation -> {
+			Thread.sleep(60_000);
+			return null;
+		}).when(stuck).sendMessage(any());
+		RelaySession closing = new RelaySession(stuck,
+				new RelaySession.Limits(4, 1 << 20, 1 << 16, RelaySession.OverflowPolicy.DROP),
+				Executors.newVirtualThreadPerTaskExecutor(), new RelayStats());
+		closing.offer(new byte[10]);
+		verify(stuck, timeout(5000)).sendMessage(any());
+		closing.offer(new byte[10]);
+		closing.offer(new byte[10]);
+		CountDownLatch woken = new CountDownLatch(1);
+		closing.whenRoom(woken::countDown);
+		closing.close(CloseStatus.GOING_AWAY);
+		assertTrue(woken.await(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void replaysABacklogMuchLargerThanTheQueue() throws Exception {
+		String user = "grace@devvault.local";
+		for (int i = 0; i < 200; i++) {
+			mailbox.append(user, RelayFrames.stored(RelayFrames.record("bob@devvault.local", ByteBuffer.wrap(new byte[]{(byte) i}))));
+		}
+		// one record per frame, and replay has to wait for room every other record
+		RelayHandler handler = new RelayHandler(mailbox, 4, DataSize.ofMegabytes(1), DataSize.ofBytes(64),
+				RelaySession.OverflowPolicy.CLOSE, DataSize.ofKilobytes(256), Duration.ofMinutes(5));
+		BlockingQueue<ByteBuffer> frames = new LinkedBlockingQueue<>();
+		WebSocketSession client = mock(WebSocketSession.class);
+		when(client.getPrincipal()).thenReturn(() -> user);
+		when(client.getAttributes()).thenReturn(new ConcurrentHashMap<>());
+		doAnswer(invocation -> {
+			frames.add(((BinaryMessage) invocation.getArgument(0)).getPayload());
+			return null;
+		}).when(client).sendMessage(any());
+		try {
+			handler.afterConnectionEstablished(client);
+			for (int i = 0; i < 200; i++) {
+				ByteBuffer record = frames.poll(5, TimeUnit.SECONDS);
+				record.position(4 + 8 + 2 + "bob@devvault.local".length());
+				assertEquals((byte) i, record.get());
+			}
+			verify(client, never()).close(any());
+		} finally {
+			handler.shutdown();
+		}
+	}
+
+	@Test
+	void refusesBrowsersFromOtherOriginsByDefault() throws Exception {
+		WebSocketHttpHeaders headers = new WebSocketHttpHeaders();
+		headers.setBearerAuth(JWKS.token("eve@devvault.local"));
+		headers.setOrigin("https://elsewhere.example");
+		assertThrows(ExecutionException.class, () -> connect(headers, new LinkedBlockingQueue<>()));
+
+		headers.setOrigin("http://localhost:" + port);
+		connect(headers, new LinkedBlockingQueue<>()).close();
+	}
+
+	private WebSocketSession connect(String email, BlockingQueue<ByteBuffer> received) throws Exception {
+		WebSocketHttpHeaders headers = new WebSocketHttpHeaders();
+		headers.setBearerAuth(JWKS.token(email));
+		return connect(headers, received);
+	}
+
+	private WebSocketSession connect(WebSocketHttpHeaders headers, BlockingQueue<ByteBuffer> received) throws Exception {
+		return new StandardWebSocketClient().execute(new BinaryWebSocketHandler() {
+			@Override
+			protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) {
+				received.add(message.getPayload());
+			}
+
+			@Override
+			public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+			}
+		}, headers, URI.create("ws://localhost:" + port + "/relay")).get(5, TimeUnit.SECONDS);
+	}
+
+	static ByteBuffer inbound(List<String> recipients, byte[] payload) {
+		List<byte[]> names = recipients.stream().map(r -> r.getBytes(StandardCharsets.UTF_8)).toList();
+		ByteBuffer frame = ByteBuffer.allocate(1 + names.stream().mapToInt(n -> 2 + n.length).sum() + payload.length);
+		frame.put((byte) names.size());
+		names.forEach(name -> frame.putShort((short) name.length).put(name));
+		return frame.put(payload).flip();
+	}
+}
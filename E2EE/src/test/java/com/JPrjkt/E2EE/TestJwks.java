@@ -0,0 +1,66 @@
+package com.JPrjkt.E2EE;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.security.KeyPair;
+import java.security.interfaces.ECPublicKey;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+// Stands in for the backend: publishes one ES256 key and signs access tokens with it
+final class TestJwks {
+
+	private static final String KID = "test";
+
+	private final KeyPair pair = Keys.keyPairFor(SignatureAlgorithm.ES256);
+	private final HttpServer server;
+
+	TestJwks() {
+		ECPublicKey key = (ECPublicKey) pair.getPublic();
+		Map<String, Object> jwks = Map.of("keys", List.of(Map.of("kty", "EC", "crv", "P-256", "kid", KID, "alg", "ES256",
+				"x", coordinate(key.getW().getAffineX()), "y", coordinate(key.getW().getAffineY()))));
+		try {
+			byte[] body = new ObjectMapper().writeValueAsBytes(jwks);
+			server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+			server.createContext("/.well-known/jwks.json", exchange -> {
+				exchange.sendResponseHeaders(200, body.length);
+				exchange.getResponseBody().write(body);
+				exchange.close();
+			});
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		server.start();
+	}
+
+	String uri() {
+		return "http://127.0.0.1:" + server.getAddress().getPort() + "/.well-known/jwks.json";
+	}
+
+	String token(String email) {
+		return Jwts.builder()
+				.setHeaderParam("kid", KID)
+				.setSubject(email)
+				.setExpiration(new Date(System.currentTimeMillis() + 3_600_000))
+				.signWith(pair.getPrivate(), SignatureAlgorithm.ES256)
+				.compact();
+	}
+
+	private static String coordinate(BigInteger value) {
+		byte[] bytes = value.toByteArray();
+		byte[] padded = new byte[32];
+		int length = Math.min(bytes.length, 32);
+		System.arraycopy(bytes, bytes.length - length, padded, 32 - length, length);
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(padded);
+	}
+}
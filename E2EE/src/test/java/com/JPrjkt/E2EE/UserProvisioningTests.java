@@ -0,0 +1,89 @@
+package com.JPrjkt.E2EE;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+		"e2ee.provisioning.allowed-users=admin@devvault.local",
+		"e2ee.provisioning.chunk-size=2",
+		"e2ee.auth.bcrypt-strength=4"
+})
+@AutoConfigureMockMvc
+class UserProvisioningTests {
+
+	private static final String USER = "{\"username\":\"%s\",\"email\":\"%s\",\"password\":\"%s\"}";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private PasswordEncoder passwordEncoder;
+
+	@Test
+	void createsValidRowsAndReportsTheRest() throws Exception {
+		long registered = register("existing@org.local");
+		String body = "[" + String.join(",",
+				USER.formatted("ann", "ann@org.local", "correct horse"),
+				USER.formatted("bad", "not-an-email", "correct horse"),
+				USER.formatted("ben", "ben@org.local", "short"),
+				USER.formatted("ann again", "ANN@org.local", "correct horse"),
+				USER.formatted("old", "existing@org.local", "correct horse"),
+				USER.formatted("cid", "cid@org.local", "correct horse"),
+				USER.formatted("dee", "dee@org.local", "correct horse")) + "]";
+
+		mockMvc.perform(post("/api/users/bulk").with(user("someone@org.local"))
+						.contentType(MediaType.APPLICATION_JSON).content(body))
+				.andExpect(status().isForbidden());
+		JsonNode result = objectMapper.readTree(mockMvc.perform(post("/api/users/bulk").with(user("admin@devvault.local"))
+						.contentType(MediaType.APPLICATION_JSON).content(body))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString());
+
+		assertEquals(3, result.get("created").asInt());
+		List<Integer> failed = new ArrayList<>();
+		result.get("failures").forEach(failure -> failed.add(failure.get("index").asInt()));
+		assertEquals(List.of(1, 2, 3, 4), failed);
+		assertEquals("Email already registered", result.get("failures").get(3).get("reason").asText());
+
+		// bulk ids and ids Hibernate hands out afterwards come from the same sequence without overlapping
+		long later = register("later@org.local");
+		Set<Long> ids = new HashSet<>(List.of(registered, later));
+		for (String email : List.of("ann@org.local", "cid@org.local", "dee@org.local")) {
+			User created = userRepository.findByEmail(email).orElseThrow();
+			assertTrue(passwordEncoder.matches("correct horse", created.getPassword()));
+			assertEquals("USER", created.getRole());
+			assertTrue(ids.add(created.getId()));
+		}
+	}
+
+	private long register(String email) throws Exception {
+		return objectMapper.readTree(mockMvc.perform(post("/api/users/register").with(user(email))
+						.contentType(MediaType.APPLICATION_JSON).content(USER.formatted("x", email, "correct horse")))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString()).get("id").asLong();
+	}
+}
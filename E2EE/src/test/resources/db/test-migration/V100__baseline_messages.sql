@@ -0,0 +1,8 @@
+-- Table of MailboxBenchmark's JPA baseline, an entity that only exists on the test classpath
+create table baseline_messages (
+    id bigint generated by default as identity,
+    recipient varchar(255) not null,
+    message bytea not null,
+    primary key (id)
+);
+create index idx_baseline_messages_recipient_id on baseline_messages (recipient, id);
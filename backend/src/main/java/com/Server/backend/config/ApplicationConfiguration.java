@@ -1,30 +1,55 @@
 package com.Server.backend.config;
 
+import com.Server.backend.model.UserPrincipal;
 import com.Server.backend.repository.UserRepository;
+import com.Server.backend.service.BoundedPasswordEncoder;
+import com.Server.backend.service.UserDetailsCache;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
 @Configuration
 public class ApplicationConfiguration {
 private final UserRepository userRepository;
-public ApplicationConfiguration(UserRepository userRepository){
+private final UserDetailsCache userDetailsCache;
+private final ReadYourWrites readYourWrites;
+@Value("${security.password.bcrypt-strength:10}")
+private int bcryptStrength;
+@Value("${security.password.hashing.threads:0}")
+private int hashingThreads;
+@Value("${security.password.hashing.queue-capacity:64}")
+private int hashingQueueCapacity;
+public ApplicationConfiguration(UserRepository userRepository, UserDetailsCache userDetailsCache, ReadYourWrites readYourWrites){
     this.userRepository = userRepository;
+    this.userDetailsCache = userDetailsCache;
+    this.readYourWrites = readYourWrites;
 }
 @Bean
     UserDetailsService userDetailsService(){
-    return username -> userRepository.findByEmail(username)
-            .orElseThrow(()-> new UsernameNotFoundException("User Not Found"));
+    return username -> userDetailsCache.get(username, email -> readYourWrites.readingFor(email, () -> userRepository.findByEmail(email))
+            .map(UserPrincipal::of)
+            .orElseThrow(()-> new UsernameNotFoundException("User Not Found")));
 }
 @Bean
-    BCryptPasswordEncoder passwordEncoder(){
-    return new BCryptPasswordEncoder();
+    BoundedPasswordEncoder passwordEncoder(){
+    int threads = hashingThreads > 0 ? hashingThreads : Runtime.getRuntime().availableProcessors();
+    return new BoundedPasswordEncoder(bcryptStrength, threads, hashingQueueCapacity);
+}
+// Lets DaoAuthenticationProvider store a rehashed password after login when the configured cost changed
+@Bean
+    UserDetailsPasswordService userDetailsPasswordService(){
+    return (user, newPassword) -> {
+        userRepository.updatePassword(user.getUsername(), newPassword);
+        userDetailsCache.invalidate(user.getUsername());
+        return user instanceof UserPrincipal principal ? principal.withPassword(newPassword) : user;
+    };
 }
 @Bean
     
@@ -36,6 +61,7 @@ public ApplicationConfiguration(UserRepository userRepository){
     DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
     authProvider.setUserDetailsService(userDetailsService());
     authProvider.setPasswordEncoder(passwordEncoder());
+    authProvider.setUserDetailsPasswordService(userDetailsPasswordService());
 
     return authProvider;
 }
@@ -0,0 +1,68 @@
+package com.Server.backend.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+// Replaces the single auto-configured pool with a primary and a replica pool once
+// datasource.replica.jdbc-url is set. The primary keeps all spring.datasource.* settings; the replica
+// pool is configured under datasource.replica.* with Hikari's property names. Both pools report the
+// usual hikaricp.* meters, tagged pool=primary and pool=replica.
+@Configuration
+@ConditionalOnProperty("datasource.replica.jdbc-url")
+public class DataSourceRoutingConfiguration {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("datasource.replica")
+    HikariDataSource replicaDataSource() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    ReadWriteRoutingDataSource routingDataSource(HikariDataSource primaryDataSource, HikariDataSource replicaDataSource,
+                                                 ReadYourWrites readYourWrites) {
+        return new ReadWriteRoutingDataSource(primaryDataSource, replicaDataSource, readYourWrites);
+    }
+
+    // What JPA, JdbcTemplate and the transaction managers get
+    @Bean
+    @Primary
+    DataSource dataSource(ReadWriteRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Bean
+    MeterBinder dataSourceRoutingMetrics(ReadWriteRoutingDataSource routing, ReadYourWrites readYourWrites) {
+        return registry -> {
+            for (ReadWriteRoutingDataSource.Route route : ReadWriteRoutingDataSource.Route.values()) {
+                FunctionCounter.builder("datasource.routing.connections", routing, r -> r.connections(route))
+                        .tag("route", route.name().toLowerCase())
+                        .description("Connections handed out per route")
+                        .register(registry);
+            }
+            FunctionCounter.builder("datasource.routing.read_your_writes", readYourWrites, ReadYourWrites::pinnedReads)
+                    .description("Read-only transactions kept on the primary because the reader just wrote")
+                    .register(registry);
+        };
+    }
+}
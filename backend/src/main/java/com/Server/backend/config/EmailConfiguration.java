@@ -10,22 +10,33 @@ import java.util.Properties;
 
 @Configuration
 public class EmailConfiguration {
+    @Value("${spring.mail.host:smtp.gmail.com}")
+    private String host;
+    @Value("${spring.mail.port:587}")
+    private int port;
     @Value("${spring.mail.username}")
     private String emailUsername;
     @Value("${spring.mail.password}")
     private String password;
+    @Value("${spring.mail.properties.mail.smtp.auth:true}")
+    private boolean auth;
+    @Value("${spring.mail.properties.mail.smtp.starttls.enable:true}")
+    private boolean starttls;
 @Bean
     public JavaMailSender javaMailSender(){
     JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
-    mailSender.setHost("smtp.gmail.com");
-    mailSender.setPort(587);
+    mailSender.setHost(host);
+    mailSender.setPort(port);
     mailSender.setUsername(emailUsername);
     mailSender.setPassword(password);
     Properties props = mailSender.getJavaMailProperties();
     props.put("mail.transport.protocol","smtp");
-    props.put("mail.smtp.auth","true");
-    props.put("mail.smtp.starttls.enable","true");
-    props.put("mail.debug","true");
+    props.put("mail.smtp.auth",String.valueOf(auth));
+    props.put("mail.smtp.starttls.enable",String.valueOf(starttls));
+    // Only the outbox dispatcher talks to SMTP now, so bound how long a dead server can hold a batch
+    props.put("mail.smtp.connectiontimeout","5000");
+    props.put("mail.smtp.timeout","10000");
+    props.put("mail.smtp.writetimeout","10000");
     return mailSender;
 }
 }
@@ -1,6 +1,11 @@
 package com.Server.backend.config;
 
 import com.Server.backend.service.JwtService;
+import com.Server.backend.service.TokenRevocationService;
+import com.Server.backend.service.VerifiedToken;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -17,19 +22,36 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import org.springframework.web.servlet.HandlerExceptionResolver;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 private final HandlerExceptionResolver handlerExceptionResolver;
 private final JwtService jwtService;
 private final UserDetailsService userDetailsService;
+private final MeterRegistry meterRegistry;
+private final TokenRevocationService tokenRevocationService;
+private final Timer verifyTimer;
+private final Timer filterTimer;
+private final Counter authenticatedCounter;
 public JwtAuthenticationFilter(
         JwtService jwtService,
         UserDetailsService userDetailsService,
-        HandlerExceptionResolver handlerExceptionResolver){
+        HandlerExceptionResolver handlerExceptionResolver,
+        MeterRegistry meterRegistry,
+        TokenRevocationService tokenRevocationService){
 this.jwtService = jwtService;
 this.userDetailsService = userDetailsService;
 this.handlerExceptionResolver = handlerExceptionResolver;
+this.meterRegistry = meterRegistry;
+this.tokenRevocationService = tokenRevocationService;
+this.verifyTimer = Timer.builder("auth.jwt.verify")
+        .description("Token parse and signature check, including token cache lookups")
+        .register(meterRegistry);
+this.filterTimer = Timer.builder("auth.jwt.filter")
+        .description("Time spent authenticating a bearer token before the request is dispatched")
+        .register(meterRegistry);
+this.authenticatedCounter = Counter.builder("auth.jwt.authenticated").register(meterRegistry);
 }
 @Override
     protected void doFilterInternal(
@@ -42,13 +64,20 @@ if(authHeader == null || !authHeader.startsWith("Bearer ")){
 filterChain.doFilter(request, response);
 return;
 }
+long started = System.nanoTime();
+boolean dispatched = false;
 try{
     final String jwt = authHeader.substring(7);
-    final String userEmail = jwtService.extractUsername(jwt);
+    final VerifiedToken token = verifyTimer.record(() -> jwtService.verify(jwt));
+    final String userEmail = token.subject();
     Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-    if(userEmail != null && authentication == null){
+    if(userEmail != null && authentication == null && tokenRevocationService.isRevoked(token)){
+        jwtService.evict(jwt);
+        reject("revoked");
+    }
+    else if(userEmail != null && authentication == null){
         UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
-        if(jwtService.isTokenValid(jwt, userDetails)){
+        if(jwtService.isTokenValid(token, userDetails)){
             UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                     userDetails,
                     null,
@@ -56,11 +85,23 @@ try{
             );
             authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
             SecurityContextHolder.getContext().setAuthentication(authToken);
+            authenticatedCounter.increment();
+        }
+        else {
+            reject("subject_mismatch_or_expired");
         }
     }
+    filterTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+    dispatched = true;
     filterChain.doFilter(request, response);
 }catch(Exception exception){
+    if(!dispatched){
+        reject(exception.getClass().getSimpleName());
+    }
     handlerExceptionResolver.resolveException(request, response, null, exception);
 }
 }
+private void reject(String reason){
+    meterRegistry.counter("auth.jwt.rejected", "reason", reason).increment();
+}
 }
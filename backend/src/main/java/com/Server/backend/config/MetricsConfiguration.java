@@ -0,0 +1,110 @@
+package com.Server.backend.config;
+
+import com.Server.backend.service.BoundedPasswordEncoder;
+import com.Server.backend.service.EmailOutboxDispatcher;
+import com.Server.backend.service.JwtService;
+import com.Server.backend.service.UserDetailsCache;
+import com.Server.backend.service.VerificationCodeStore;
+import com.Server.backend.service.VerifiedTokenCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+// Exposes the counters our own components keep as Micrometer meters. Hikari pool gauges,
+// Spring Data repository timings and HTTP server timings come from Actuator itself.
+@Configuration
+public class MetricsConfiguration {
+
+    // Enables @Timed on AuthenticationService and friends
+    @Bean
+    TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    @Bean
+    MeterBinder tokenCacheMetrics(JwtService jwtService) {
+        return registry -> {
+            VerifiedTokenCache cache = jwtService.getTokenCache();
+            if (cache != null) {
+                bindCache(registry, "jwt", cache::stats, cache::size);
+            }
+        };
+    }
+
+    @Bean
+    MeterBinder userCacheMetrics(UserDetailsCache cache) {
+        return registry -> bindCache(registry, "user_details", cache::stats, cache::size);
+    }
+
+    @Bean
+    MeterBinder passwordHashingMetrics(BoundedPasswordEncoder encoder) {
+        return registry -> {
+            FunctionTimer.builder("auth.password.hash", encoder,
+                            BoundedPasswordEncoder::getOperations,
+                            BoundedPasswordEncoder::getTotalHashNanos, TimeUnit.NANOSECONDS)
+                    .description("BCrypt time spent on the hashing pool")
+                    .register(registry);
+            FunctionTimer.builder("auth.password.queue.wait", encoder,
+                            BoundedPasswordEncoder::getOperations,
+                            BoundedPasswordEncoder::getTotalQueueWaitNanos, TimeUnit.NANOSECONDS)
+                    .description("Time a hashing request waited for a pool thread")
+                    .register(registry);
+            FunctionCounter.builder("auth.password.rejected", encoder, BoundedPasswordEncoder::getRejections)
+                    .description("Hashing requests turned away with 429 because the pool was full")
+                    .register(registry);
+            Gauge.builder("auth.password.queue.size", encoder, BoundedPasswordEncoder::getQueueSize)
+                    .register(registry);
+            Gauge.builder("auth.password.bcrypt.cost", encoder, BoundedPasswordEncoder::getStrength)
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    MeterBinder emailOutboxMetrics(EmailOutboxDispatcher dispatcher) {
+        return registry -> {
+            Gauge.builder("mail.outbox.depth", dispatcher, EmailOutboxDispatcher::queueDepth)
+                    .description("Emails waiting to be sent")
+                    .register(registry);
+            Gauge.builder("mail.outbox.lag", dispatcher, d -> d.lag().toMillis() / 1000.0)
+                    .description("Age of the oldest unsent email")
+                    .baseUnit("seconds")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    MeterBinder verificationStoreMetrics(VerificationCodeStore store) {
+        return registry -> Gauge.builder("auth.verification.pending", store, VerificationCodeStore::size)
+                .description("Pending verification codes held in memory")
+                .register(registry);
+    }
+
+    private static void bindCache(MeterRegistry registry, String name, Supplier<CacheStats> stats, Supplier<Long> size) {
+        counter(registry, name, "hit", stats, CacheStats::hitCount);
+        counter(registry, name, "miss", stats, CacheStats::missCount);
+        FunctionCounter.builder("auth.cache.evictions", stats, s -> s.get().evictionCount())
+                .tag("cache", name)
+                .register(registry);
+        Gauge.builder("auth.cache.size", size, s -> s.get())
+                .tag("cache", name)
+                .register(registry);
+    }
+
+    private static void counter(MeterRegistry registry, String name, String result, Supplier<CacheStats> stats,
+                                ToDoubleFunction<CacheStats> value) {
+        FunctionCounter.builder("auth.cache.requests", stats, s -> value.applyAsDouble(s.get()))
+                .tag("cache", name)
+                .tag("result", result)
+                .register(registry);
+    }
+}
@@ -0,0 +1,203 @@
+package com.Server.backend.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Remembers who just wrote (their account, vault items or attachments), so their own reads stay on the
+// primary until a replica has had time to catch up. The reader is whoever is named through readingFor, or else the
+// authenticated user of the request.
+//
+// The node that took the write remembers it, and the response carries a marker (the X-Read-Your-Writes
+// header and a cookie of the same name) holding when the window ends, signed for that reader. A client
+// that sends it back is kept on the primary by whichever node gets the request, so no sticky sessions
+// are needed; every node must share datasource.read-your-writes.signing-key. Without a replica every
+// read is on the primary already, so it does nothing and needs no key.
+@Component
+public class ReadYourWrites {
+
+    public static final String MARKER = "X-Read-Your-Writes";
+    private static final String COOKIE = "read_your_writes";
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+
+    private final Cache<String, Boolean> recentWriters;
+    private final Duration window;
+    private final SecretKeySpec signingKey;
+    private final ThreadLocal<String> reader = new ThreadLocal<>();
+    private final LongAdder pinnedReads = new LongAdder();
+
+    @Autowired
+    public ReadYourWrites(
+            @Value("${datasource.read-your-writes.window:PT5S}") Duration window,
+            @Value("${datasource.read-your-writes.maximum-size:100000}") long maximumSize,
+            @Value("${datasource.replica.jdbc-url:}") String replicaUrl,
+            @Value("${datasource.read-your-writes.signing-key:}") String signingKey
+    ) {
+        this(window, maximumSize, replicaUrl.isBlank() ? null : signingKey);
+    }
+
+    // A null signing key switches it off
+    ReadYourWrites(Duration window, long maximumSize, String signingKey) {
+        if (signingKey == null) {
+            this.signingKey = null;
+        } else {
+            byte[] key = Base64.getDecoder().decode(signingKey);
+            if (key.length < 32) {
+                throw new IllegalArgumentException("datasource.read-your-writes.signing-key must be at least 32 bytes, base64 encoded");
+            }
+            this.signingKey = new SecretKeySpec(key, MAC_ALGORITHM);
+        }
+        this.window = window;
+        this.recentWriters = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(window)
+                .build();
+    }
+
+    // The window starts once the write is visible on the primary, i.e. after commit
+    public void wrote(String email) {
+        if (signingKey == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remember(email);
+                }
+            });
+        } else {
+            remember(email);
+        }
+    }
+
+    // The writer is the authenticated user of the request, the reader mustReadPrimary will look for
+    public void wrote() {
+        String email = currentReader();
+        if (email != null) {
+            wrote(email);
+        }
+    }
+
+    public <T> T readingFor(String email, Supplier<T> read) {
+        String previous = reader.get();
+        reader.set(email);
+        try {
+            return read.get();
+        } finally {
+            if (previous == null) {
+                reader.remove();
+            } else {
+                reader.set(previous);
+            }
+        }
+    }
+
+    boolean mustReadPrimary() {
+        String email = currentReader();
+        if (email != null && (recentWriters.getIfPresent(email) != null || markedByClient(email))) {
+            pinnedReads.increment();
+            return true;
+        }
+        return false;
+    }
+
+    long pinnedReads() {
+        return pinnedReads.sum();
+    }
+
+    private String currentReader() {
+        String email = reader.get();
+        if (email == null) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            email = authentication == null ? null : authentication.getName();
+        }
+        return email;
+    }
+
+    private void remember(String email) {
+        recentWriters.put(email, Boolean.TRUE);
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                && attributes.getResponse() != null) {
+            HttpServletResponse response = attributes.getResponse();
+            String marker = marker(email, System.currentTimeMillis() + window.toMillis());
+            response.setHeader(MARKER, marker);
+            response.addHeader(HttpHeaders.SET_COOKIE, ResponseCookie.from(COOKIE, marker)
+                    .httpOnly(true)
+                    .secure(attributes.getRequest().isSecure())
+                    .sameSite("Lax")
+                    .path("/")
+                    .maxAge(window)
+                    .build()
+                    .toString());
+        }
+    }
+
+    // Written by another node (or this one, before a restart) within the window
+    private boolean markedByClient(String email) {
+        if (signingKey == null || !(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return false;
+        }
+        String marker = received(attributes.getRequest());
+        int dot = marker == null ? -1 : marker.indexOf('.');
+        if (dot < 0) {
+            return false;
+        }
+        long until;
+        try {
+            until = Long.parseLong(marker.substring(0, dot));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        return until > System.currentTimeMillis() && MessageDigest.isEqual(
+                marker(email, until).getBytes(StandardCharsets.US_ASCII), marker.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static String received(HttpServletRequest request) {
+        String header = request.getHeader(MARKER);
+        if (header != null || request.getCookies() == null) {
+            return header;
+        }
+        for (Cookie cookie : request.getCookies()) {
+            if (COOKIE.equals(cookie.getName())) {
+                return cookie.getValue();
+            }
+        }
+        return null;
+    }
+
+    // <end of window, epoch millis>.<HMAC of reader and end of window>
+    private String marker(String email, long until) {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(signingKey);
+            byte[] signature = mac.doFinal((until + "\n" + email).getBytes(StandardCharsets.UTF_8));
+            return until + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot sign read-your-writes marker", e);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.Server.backend.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationProvider;
@@ -19,19 +20,24 @@ import java.util.List;
 public class SecurityConfiguration {
 private final AuthenticationProvider authenticationProvider;
 private final JwtAuthenticationFilter jwtAuthenticationFIlter;
+private final int managementPort;
 public SecurityConfiguration(
         JwtAuthenticationFilter jwtAuthenticationFIlter,
-        AuthenticationProvider authenticationProvider
+        AuthenticationProvider authenticationProvider,
+        @Value("${management.server.port:-1}") int managementPort
 ){
     this.authenticationProvider = authenticationProvider;
     this.jwtAuthenticationFIlter = jwtAuthenticationFIlter;
+    this.managementPort = managementPort;
 }
 @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http)throws  Exception{
     http
             .csrf(csrf->csrf.disable())
             .authorizeHttpRequests(authorize->authorize
-                    .requestMatchers("/auth/**","/","/public/**").permitAll()
+                    .requestMatchers("/auth/**","/","/public/**","/.well-known/jwks.json").permitAll()
+                    // Actuator is only served on management.server.port; without one it needs a token like the rest
+                    .requestMatchers(request -> managementPort > 0 && request.getLocalPort() == managementPort).permitAll()
                     .anyRequest().authenticated()
             )
             .sessionManagement(session->session
@@ -45,7 +51,8 @@ public SecurityConfiguration(
     CorsConfiguration corsConfiguration = new CorsConfiguration();
     corsConfiguration.setAllowedOrigins(List.of("https://backend.com","https://localhost:8080"));
     corsConfiguration.setAllowedMethods(List.of("GET","POST","PUT","DELETE"));
-    corsConfiguration.setAllowedHeaders(List.of("Authorization","Content-Type"));
+    corsConfiguration.setAllowedHeaders(List.of("Authorization","Content-Type",ReadYourWrites.MARKER));
+    corsConfiguration.setExposedHeaders(List.of(ReadYourWrites.MARKER));
     UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
     source.registerCorsConfiguration("/**", corsConfiguration);
     return source;
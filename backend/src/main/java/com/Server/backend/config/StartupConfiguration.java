@@ -0,0 +1,28 @@
+package com.Server.backend.config;
+
+import jakarta.servlet.Filter;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Controller;
+import org.springframework.util.ReflectionUtils;
+
+import java.util.Arrays;
+
+// Under spring.main.lazy-initialization (the fast-startup profile) some beans still have to be built at
+// startup: controllers and filters, so the first request does not pay for the whole request path, and
+// beans with @Scheduled methods, which nothing injects and which would otherwise never be scheduled.
+@Configuration
+public class StartupConfiguration {
+
+    @Bean
+    static LazyInitializationExcludeFilter eagerRequestPathAndJobs() {
+        return (beanName, beanDefinition, beanType) -> beanType != null
+                && (AnnotatedElementUtils.hasAnnotation(beanType, Controller.class)
+                || Filter.class.isAssignableFrom(beanType)
+                || Arrays.stream(ReflectionUtils.getUniqueDeclaredMethods(beanType))
+                        .anyMatch(method -> AnnotatedElementUtils.hasAnnotation(method, Scheduled.class)));
+    }
+}
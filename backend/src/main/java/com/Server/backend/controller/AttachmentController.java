@@ -0,0 +1,134 @@
+package com.Server.backend.controller;
+
+import com.Server.backend.model.Attachment;
+import com.Server.backend.model.UserPrincipal;
+import com.Server.backend.responses.AttachmentResponse;
+import com.Server.backend.service.AttachmentService;
+import com.Server.backend.util.ByteRange;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+@RequestMapping("/vault/items/{itemId}/attachments")
+@RestController
+public class AttachmentController {
+// Tomcat's NIO connector sends a file named in these request attributes with sendfile/transferTo
+private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+private final AttachmentService attachmentService;
+public AttachmentController(AttachmentService attachmentService){
+    this.attachmentService = attachmentService;
+}
+private static long currentUserId(){
+    return ((UserPrincipal) SecurityContextHolder.getContext().getAuthentication().getPrincipal()).getId();
+}
+// The body is the client-encrypted file, streamed into the chunk store; never mapped to a @RequestBody
+@PostMapping(consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<?> upload(
+            @PathVariable long itemId,
+            @RequestParam String name,
+            @RequestParam(required = false) String contentType,
+            @RequestHeader("X-Chunk-Size") int chunkSize,
+            HttpServletRequest request) throws IOException{
+    try{
+        return ResponseEntity.ok(attachmentService.upload(currentUserId(), itemId, name, contentType, chunkSize, request.getInputStream()));
+    } catch (IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    } catch (IllegalStateException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    } catch (RuntimeException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+    }
+}
+@GetMapping
+    public ResponseEntity<List<AttachmentResponse>> attachments(@PathVariable long itemId){
+    return ResponseEntity.ok(attachmentService.attachments(currentUserId(), itemId));
+}
+// Single byte ranges are honoured, so clients can fetch just the chunks they need or resume
+@GetMapping("/{id}")
+    public void download(@PathVariable long itemId, @PathVariable long id,
+                         HttpServletRequest request, HttpServletResponse response) throws IOException{
+    AttachmentService.Download download;
+    try{
+        download = attachmentService.download(currentUserId(), itemId, id);
+    } catch (RuntimeException e) {
+        throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+    }
+    Attachment attachment = download.attachment();
+    long size = attachment.getSize();
+    String etag = "\"" + attachment.getSha256() + "\"";
+    String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+    ByteRange range;
+    try{
+        range = ifRange == null || ifRange.equals(etag) ? ByteRange.parse(request.getHeader(HttpHeaders.RANGE), size) : null;
+    } catch (IllegalArgumentException e) {
+        response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+        response.sendError(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+        return;
+    }
+    long start = range == null ? 0 : range.start();
+    long length = range == null ? size : range.length();
+    response.setStatus(range == null ? HttpStatus.OK.value() : HttpStatus.PARTIAL_CONTENT.value());
+    if (range != null){
+        response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + range.start() + "-" + range.end() + "/" + size);
+    }
+    response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+    response.setContentLengthLong(length);
+    response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+    response.setHeader(HttpHeaders.ETAG, etag);
+    response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+            ContentDisposition.attachment().filename(attachment.getName(), StandardCharsets.UTF_8).build().toString());
+    response.setHeader("X-Chunk-Size", Integer.toString(attachment.getChunkSize()));
+    long sealedChunk = download.sealedChunkSize();
+    int first = (int) (start / sealedChunk);
+    int last = (int) ((start + length - 1) / sealedChunk);
+    // Sendfile takes one file, which covers the common case of a client fetching a single chunk
+    if (first == last && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))){
+        long offset = start - first * sealedChunk;
+        request.setAttribute(SENDFILE_FILENAME, download.chunk(first).toString());
+        request.setAttribute(SENDFILE_START, offset);
+        request.setAttribute(SENDFILE_END, offset + length);
+        return;
+    }
+    WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+    long position = start;
+    long remaining = length;
+    for (int index = first; remaining > 0; index++){
+        try (FileChannel file = FileChannel.open(download.chunk(index), StandardOpenOption.READ)){
+            long offset = position - index * sealedChunk;
+            long count = Math.min(remaining, file.size() - offset);
+            for (long sent = 0; sent < count; ){
+                sent += file.transferTo(offset + sent, count - sent, out);
+            }
+            position += count;
+            remaining -= count;
+        }
+    }
+}
+@DeleteMapping("/{id}")
+    public ResponseEntity<?> delete(@PathVariable long itemId, @PathVariable long id){
+    try{
+        attachmentService.delete(currentUserId(), itemId, id);
+        return ResponseEntity.noContent().build();
+    } catch (RuntimeException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+    }
+}
+}
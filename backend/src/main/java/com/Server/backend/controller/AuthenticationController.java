@@ -1,12 +1,20 @@
 package com.Server.backend.controller;
 
 import com.Server.backend.dto.LoginUserDto;
+import com.Server.backend.dto.RefreshTokenDto;
 import com.Server.backend.dto.RegisterUserDto;
 import com.Server.backend.dto.VerifyUserDto;
 import com.Server.backend.model.User;
+import com.Server.backend.model.UserPrincipal;
 import com.Server.backend.responses.LoginResponse;
+import com.Server.backend.responses.UserSummary;
+import com.Server.backend.service.AuthRateLimiter;
 import com.Server.backend.service.AuthenticationService;
 import com.Server.backend.service.JwtService;
+import com.Server.backend.service.RefreshTokenService;
+import com.Server.backend.service.VerifiedToken;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -15,24 +23,65 @@ import org.springframework.web.bind.annotation.*;
 public class AuthenticationController {
     private final JwtService jwtService;
     private final AuthenticationService authenticationService;
-    public AuthenticationController(JwtService jwtService, AuthenticationService authenticationService){
+    private final AuthRateLimiter authRateLimiter;
+    private final RefreshTokenService refreshTokenService;
+    public AuthenticationController(JwtService jwtService, AuthenticationService authenticationService, AuthRateLimiter authRateLimiter, RefreshTokenService refreshTokenService){
         this.jwtService = jwtService;
         this.authenticationService = authenticationService;
+        this.authRateLimiter = authRateLimiter;
+        this.refreshTokenService = refreshTokenService;
+    }
+    private long refreshTokenLifetime(){
+        return refreshTokenService.getLifetimeMillis();
     }
     @PostMapping("/signup")
-    public ResponseEntity <User> register(@RequestBody RegisterUserDto registerUserDto){
+    public ResponseEntity <UserSummary> register(@RequestBody RegisterUserDto registerUserDto){
         User registeredUser = authenticationService.signup(registerUserDto);
-        return ResponseEntity.ok(registeredUser);
+        return ResponseEntity.ok(new UserSummary(registeredUser.getId(), registeredUser.getUsername(),
+                registeredUser.getEmail(), registeredUser.isEnabled()));
     }
     @PostMapping("/login")
-    public ResponseEntity <LoginResponse> authenticate(@RequestBody LoginUserDto loginUserDto){
+    public ResponseEntity <LoginResponse> authenticate(@RequestBody LoginUserDto loginUserDto, HttpServletRequest request){
+        authRateLimiter.checkLogin(loginUserDto.getEmail(), request.getRemoteAddr());
         User authenticatedUser = authenticationService.authenticate(loginUserDto);
-        String jwtToken = jwtService.generateToken(authenticatedUser);
-        LoginResponse loginResponse = new LoginResponse(jwtToken, jwtService.getExpirationTime());
+        String jwtToken = jwtService.generateToken(UserPrincipal.of(authenticatedUser));
+        String refreshToken = authenticationService.issueRefreshToken(authenticatedUser);
+        LoginResponse loginResponse = new LoginResponse(jwtToken, jwtService.getExpirationTime(),
+                refreshToken, refreshTokenLifetime());
         return ResponseEntity.ok(loginResponse);
     }
+    @PostMapping("/refresh")
+    public ResponseEntity <?> refresh(@RequestBody RefreshTokenDto refreshTokenDto){
+        try{
+            return ResponseEntity.ok(authenticationService.refresh(refreshTokenDto.getRefreshToken()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(e.getMessage());
+        }
+    }
+    @PostMapping("/logout")
+    public ResponseEntity <?> logout(
+            @RequestHeader(value = "Authorization", required = false) String authorization,
+            @RequestBody(required = false) RefreshTokenDto refreshTokenDto,
+            @RequestParam(defaultValue = "false") boolean all){
+        String presented = null;
+        VerifiedToken accessToken = null;
+        if (authorization != null && authorization.startsWith("Bearer ")){
+            presented = authorization.substring(7);
+            try{
+                accessToken = jwtService.verify(presented);
+            } catch (RuntimeException e) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid Access Token");
+            }
+        }
+        authenticationService.logout(accessToken, refreshTokenDto == null ? null : refreshTokenDto.getRefreshToken(), all);
+        if (presented != null){
+            jwtService.evict(presented);
+        }
+        return ResponseEntity.ok("Logged out");
+    }
     @PostMapping("/verify")
-    public ResponseEntity <?> verifyUser(@RequestBody VerifyUserDto verifyUserDto){
+    public ResponseEntity <?> verifyUser(@RequestBody VerifyUserDto verifyUserDto, HttpServletRequest request){
+        authRateLimiter.checkVerify(verifyUserDto.getEmail(), request.getRemoteAddr());
         try{
             authenticationService.verifyUser(verifyUserDto);
             return ResponseEntity.ok("Account Verified successfully");
@@ -41,7 +90,8 @@ public class AuthenticationController {
         }
     }
     @PostMapping("/resend")
-    public ResponseEntity<?> resendVerificationCode(@RequestParam String email){
+    public ResponseEntity<?> resendVerificationCode(@RequestParam String email, HttpServletRequest request){
+        authRateLimiter.checkResend(email, request.getRemoteAddr());
         try{authenticationService.resendVerificationCode(email);
             return ResponseEntity.ok("Verification Code Sent");}
     catch (RuntimeException e){
@@ -0,0 +1,33 @@
+package com.Server.backend.controller;
+
+import com.Server.backend.service.JwtKeyRing;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Duration;
+
+@RestController
+public class JwksController {
+private final JwtKeyRing keyRing;
+public JwksController(JwtKeyRing keyRing){
+    this.keyRing = keyRing;
+}
+// Successor keys are published an activation delay ahead, so caching for less than that is safe
+@GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<byte[]> jwks(WebRequest request){
+    String etag = keyRing.jwksEtag();
+    CacheControl cacheControl = CacheControl.maxAge(Duration.ofMinutes(5)).cachePublic();
+    if(request.checkNotModified(etag)){
+        return ResponseEntity.status(304).eTag(etag).cacheControl(cacheControl).build();
+    }
+    return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .eTag(etag)
+            .cacheControl(cacheControl)
+            .body(keyRing.jwks());
+}
+}
@@ -0,0 +1,26 @@
+package com.Server.backend.controller;
+
+import com.Server.backend.model.UserPrincipal;
+import com.Server.backend.responses.SyncResponse;
+import com.Server.backend.service.VaultService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class SyncController {
+private final VaultService vaultService;
+public SyncController(VaultService vaultService){
+    this.vaultService = vaultService;
+}
+// Start with since=0 and keep the returned cursor; repeat while hasMore is set
+@GetMapping("/sync")
+    public ResponseEntity<SyncResponse> sync(
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(defaultValue = "200") int limit){
+    long userId = ((UserPrincipal) SecurityContextHolder.getContext().getAuthentication().getPrincipal()).getId();
+    return ResponseEntity.ok(vaultService.changesSince(userId, since, limit));
+}
+}
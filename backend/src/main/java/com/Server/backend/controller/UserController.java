@@ -1,32 +1,60 @@
 package com.Server.backend.controller;
 
-import com.Server.backend.model.User;
+import com.Server.backend.model.UserPrincipal;
+import com.Server.backend.responses.UserPageResponse;
+import com.Server.backend.responses.UserSummary;
 import com.Server.backend.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 
 @RequestMapping("/users")
 @RestController
 public class UserController {
+private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
 private final UserService userService;
-public UserController(UserService userService){
+private final ObjectWriter summaryWriter;
+public UserController(UserService userService, ObjectMapper objectMapper){
     this.userService = userService;
+    this.summaryWriter = objectMapper.writerFor(UserSummary.class).withRootValueSeparator("\n");
 }
 @GetMapping("/me")
-    public ResponseEntity<User> authenticatedUser(){
+    public ResponseEntity<UserSummary> authenticatedUser(){
     Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-    User currentUser = (User) authentication.getPrincipal();
-    return ResponseEntity.ok(currentUser);
+    UserPrincipal currentUser = (UserPrincipal) authentication.getPrincipal();
+    return ResponseEntity.ok(new UserSummary(currentUser.getId(), currentUser.getDisplayName(), currentUser.getEmail(), currentUser.isEnabled()));
 }
 @GetMapping("/")
-    public ResponseEntity<List<User>> allUsers(){
-    List <User> users = userService.allUsers();
-    return ResponseEntity.ok(users);
+    public ResponseEntity<UserPageResponse> allUsers(
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(defaultValue = "100") int limit){
+    return ResponseEntity.ok(userService.users(after, limit));
+}
+@GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamUsers(){
+    StreamingResponseBody body = out -> {
+        try (SequenceWriter lines = summaryWriter.writeValues(out)) {
+            userService.streamUsers(user -> {
+                try {
+                    lines.write(user);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    };
+    return ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(body);
 }
 }
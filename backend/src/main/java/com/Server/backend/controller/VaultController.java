@@ -0,0 +1,87 @@
+package com.Server.backend.controller;
+
+import com.Server.backend.dto.VaultItemDto;
+import com.Server.backend.model.UserPrincipal;
+import com.Server.backend.model.VaultItem;
+import com.Server.backend.responses.ImportResponse;
+import com.Server.backend.responses.VaultItemSummary;
+import com.Server.backend.responses.VaultPageResponse;
+import com.Server.backend.service.VaultService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.List;
+
+@RequestMapping("/vault/items")
+@RestController
+public class VaultController {
+private final VaultService vaultService;
+public VaultController(VaultService vaultService){
+    this.vaultService = vaultService;
+}
+private static long currentUserId(){
+    return ((UserPrincipal) SecurityContextHolder.getContext().getAuthentication().getPrincipal()).getId();
+}
+@GetMapping
+    public ResponseEntity<VaultPageResponse> items(
+            @RequestParam(defaultValue = "0") long after,
+            @RequestParam(defaultValue = "100") int limit){
+    return ResponseEntity.ok(vaultService.items(currentUserId(), after, limit));
+}
+// e.g. ?q=kube prod&tag=work&type=CREDENTIAL; every word of q is matched as a prefix
+@GetMapping("/search")
+    public ResponseEntity<List<VaultItemSummary>> search(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) List<String> tag,
+            @RequestParam(required = false) VaultItem.Type type,
+            @RequestParam(defaultValue = "50") int limit){
+    return ResponseEntity.ok(vaultService.search(currentUserId(), q, tag, type, limit));
+}
+@GetMapping("/{id}")
+    public ResponseEntity<?> item(@PathVariable long id){
+    try{
+        return ResponseEntity.ok(vaultService.item(currentUserId(), id));
+    } catch (RuntimeException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+    }
+}
+@PostMapping
+    public ResponseEntity<?> create(@RequestBody VaultItemDto vaultItemDto){
+    try{
+        return ResponseEntity.ok(vaultService.create(currentUserId(), vaultItemDto));
+    } catch (RuntimeException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
+@PutMapping("/{id}")
+    public ResponseEntity<?> update(@PathVariable long id, @RequestBody VaultItemDto vaultItemDto){
+    try{
+        return ResponseEntity.ok(vaultService.update(currentUserId(), id, vaultItemDto));
+    } catch (RuntimeException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
+@DeleteMapping("/{id}")
+    public ResponseEntity<?> delete(@PathVariable long id){
+    try{
+        vaultService.delete(currentUserId(), id);
+        return ResponseEntity.noContent().build();
+    } catch (RuntimeException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+    }
+}
+// The body is read as a stream, never buffered whole; see VaultService#importItems
+@PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> importItems(HttpServletRequest request) throws IOException{
+    try{
+        return ResponseEntity.ok(new ImportResponse(vaultService.importItems(currentUserId(), request.getInputStream())));
+    } catch (RuntimeException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
+}
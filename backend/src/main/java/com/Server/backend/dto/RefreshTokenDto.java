@@ -0,0 +1,11 @@
+package com.Server.backend.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class RefreshTokenDto {
+private String refreshToken;
+
+}
@@ -0,0 +1,15 @@
+package com.Server.backend.dto;
+
+import com.Server.backend.model.VaultItem;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class VaultItemDto {
+private VaultItem.Type type;
+private String title;
+private String tags;
+// Client-side encrypted, base64 in JSON
+private byte[] payload;
+}
@@ -0,0 +1,77 @@
+package com.Server.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+
+// A file attached to a vault item: a sequence of AES-GCM sealed chunks produced by the client,
+// each kept once in the ChunkStore. This row holds their hashes in order and what is needed to serve it.
+@Entity
+@Table(name = "attachments", indexes = {
+        @Index(name = "idx_attachments_vault_item_id", columnList = "vault_item_id")
+})
+@Getter
+@Setter
+public class Attachment {
+
+    // 32768 chunks, enough for the 2GB limit at 64KB chunks; smaller chunks mean smaller files
+    public static final int MAX_CHUNK_HASH_BYTES = 1_048_576;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "attachment_seq")
+    @SequenceGenerator(name = "attachment_seq", sequenceName = "attachment_seq", allocationSize = 50)
+    private long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "vault_item_id", nullable = false)
+    private VaultItem vaultItem;
+
+    @Column(name = "user_id", nullable = false)
+    private long userId;
+
+    @Column(nullable = false)
+    private String name;
+
+    // Of the plaintext, as declared by the client; the stored bytes are always ciphertext
+    @Column(name = "content_type", nullable = false)
+    private String contentType;
+
+    // Stored (ciphertext) size in bytes
+    @Column(nullable = false)
+    private long size;
+
+    // Plaintext bytes per chunk; every stored chunk but the last is chunkSize + 16 bytes of tag
+    @Column(name = "chunk_size", nullable = false)
+    private int chunkSize;
+
+    @Column(nullable = false, length = 64)
+    private String sha256;
+
+    // 32-byte SHA-256 of each sealed chunk, concatenated in file order; bytea on Postgres
+    @JdbcTypeCode(SqlTypes.VARBINARY)
+    @Column(name = "chunk_hashes", nullable = false, length = Attachment.MAX_CHUNK_HASH_BYTES)
+    private byte[] chunkHashes;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public Attachment(VaultItem vaultItem, long userId, String name, String contentType, long size, int chunkSize,
+                      String sha256, byte[] chunkHashes, LocalDateTime createdAt) {
+        this.vaultItem = vaultItem;
+        this.userId = userId;
+        this.name = name;
+        this.contentType = contentType;
+        this.size = size;
+        this.chunkSize = chunkSize;
+        this.sha256 = sha256;
+        this.chunkHashes = chunkHashes;
+        this.createdAt = createdAt;
+    }
+
+    public Attachment() {
+    }
+}
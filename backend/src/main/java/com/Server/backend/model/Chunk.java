@@ -0,0 +1,39 @@
+package com.Server.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// Index entry of the content-addressed chunk store: one row per distinct sealed chunk, counting
+// the attachments that reference it. The bytes live in a file named after the hash.
+@Entity
+@Table(name = "chunks", indexes = {
+        @Index(name = "idx_chunks_unreferenced_since", columnList = "unreferenced_since")
+})
+@Getter
+@Setter
+public class Chunk {
+
+    // Hex SHA-256 of the stored bytes
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    @Column(nullable = false)
+    private int size;
+
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+
+    // Set while refCount is 0; the collector only takes chunks that stayed unreferenced for a while
+    @Column(name = "unreferenced_since")
+    private LocalDateTime unreferencedSince;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public Chunk() {
+    }
+}
@@ -0,0 +1,43 @@
+package com.Server.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "pending_verifications", indexes = {
+        @Index(name = "idx_pending_verifications_expires_at", columnList = "expires_at"),
+        @Index(name = "idx_pending_verifications_user_id_expires_at", columnList = "user_id, expires_at")
+})
+@Getter
+@Setter
+public class PendingVerification {
+
+    @Id
+    private String email;
+
+    @Column(name = "user_id", nullable = false)
+    private long userId;
+
+    @Column(nullable = false, length = 16)
+    private String code;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    public PendingVerification(String email, long userId, String code, LocalDateTime expiresAt) {
+        this.email = email;
+        this.userId = userId;
+        this.code = code;
+        this.expiresAt = expiresAt;
+    }
+
+    public PendingVerification() {
+    }
+
+    public boolean isExpired(LocalDateTime now) {
+        return expiresAt.isBefore(now);
+    }
+}
@@ -0,0 +1,58 @@
+package com.Server.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// One entry of the JWT key ring. Keys are shared through the database so every node signs with
+// the same current key and can verify tokens signed by any other node.
+@Entity
+@Table(name = "signing_keys", indexes = {
+        @Index(name = "idx_signing_keys_retires_at", columnList = "retires_at")
+})
+@Getter
+@Setter
+public class SigningKey {
+
+    @Id
+    @Column(length = 36)
+    private String kid;
+
+    @Column(nullable = false, length = 16)
+    private String algorithm;
+
+    // X.509 SubjectPublicKeyInfo
+    @Column(name = "public_key", nullable = false, length = 512)
+    private byte[] publicKey;
+
+    // PKCS#8, sealed under the key-encryption key
+    @Column(name = "private_key", nullable = false, length = 512)
+    private byte[] privateKey;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Published in the JWKS from createdAt, used for signing from activatesAt
+    @Column(name = "activates_at", nullable = false)
+    private LocalDateTime activatesAt;
+
+    // Nothing signed with this key is still valid after this instant
+    @Column(name = "retires_at", nullable = false)
+    private LocalDateTime retiresAt;
+
+    public SigningKey(String kid, String algorithm, byte[] publicKey, byte[] privateKey,
+                      LocalDateTime createdAt, LocalDateTime activatesAt, LocalDateTime retiresAt) {
+        this.kid = kid;
+        this.algorithm = algorithm;
+        this.publicKey = publicKey;
+        this.privateKey = privateKey;
+        this.createdAt = createdAt;
+        this.activatesAt = activatesAt;
+        this.retiresAt = retiresAt;
+    }
+
+    public SigningKey() {
+    }
+}
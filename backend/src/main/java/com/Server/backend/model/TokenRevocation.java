@@ -0,0 +1,54 @@
+package com.Server.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// Append-only revocation log. Every node tails it to keep its in-memory filter current.
+@Entity
+@Table(name = "token_revocations", indexes = {
+        @Index(name = "idx_token_revocations_kind_value", columnList = "kind, revoked_value"),
+        @Index(name = "idx_token_revocations_expires_at", columnList = "expires_at"),
+        @Index(name = "idx_token_revocations_created_at", columnList = "created_at")
+})
+@Getter
+@Setter
+public class TokenRevocation {
+
+    public enum Kind {
+        // a single access token, by jti
+        TOKEN,
+        // every access token of a user issued up to createdAt, by email
+        USER
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 8)
+    private Kind kind;
+
+    @Column(name = "revoked_value", nullable = false)
+    private String value;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // After this instant every token the entry could match has expired on its own
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    public TokenRevocation(Kind kind, String value, LocalDateTime createdAt, LocalDateTime expiresAt) {
+        this.kind = kind;
+        this.value = value;
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public TokenRevocation() {
+    }
+}
@@ -3,18 +3,16 @@ package com.Server.backend.model;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDateTime;
-import java.util.Collection;
-import java.util.List;
 
+// Spring Security never sees this entity; requests carry a UserPrincipal copy of it
 @Entity
 @Table(name = "users")
 @Getter
 @Setter
-public class User implements UserDetails {
+public class User {
 
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
@@ -31,11 +29,21 @@ public class User implements UserDetails {
 
     private boolean enabled;
 
-    @Column(name = "verification_code")
-    private String verificationCode;
+    // Set when the email address is verified. Unlike enabled it is never cleared, so the purge of
+    // abandoned signups cannot take a disabled account for one.
+    @Column(name = "verified_at")
+    private LocalDateTime verifiedAt;
 
-    @Column(name = "verification_expiration")
-    private LocalDateTime verificationCodeExpiresAt;
+    // Last change version handed out for this user's vault; bumped under the row lock so versions
+    // commit in order and a sync cursor never skips a change
+    @ColumnDefault("0")
+    @Column(name = "vault_version", nullable = false)
+    private long vaultVersion;
+
+    // Highest version whose tombstone has been compacted away; older cursors must resync from 0
+    @ColumnDefault("0")
+    @Column(name = "vault_compacted_version", nullable = false)
+    private long vaultCompactedVersion;
 
     public User(String username, String password, String email) {
         this.username = username;
@@ -45,29 +53,4 @@ public class User implements UserDetails {
 
     public User() {
     }
-
-    @Override
-    public Collection<? extends GrantedAuthority> getAuthorities() {
-        return List.of();
-    }
-
-    @Override
-    public boolean isAccountNonExpired() {
-        return true;
-    }
-
-    @Override
-    public boolean isAccountNonLocked() {
-        return true;
-    }
-
-    @Override
-    public boolean isCredentialsNonExpired() {   // ✅ fixed spelling
-        return true;
-    }
-
-    @Override
-    public boolean isEnabled() {
-        return enabled;
-    }
 }
@@ -0,0 +1,52 @@
+package com.Server.backend.model;
+
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+// Immutable copy of a User as Spring Security sees it. This is what the principal cache holds and
+// what every authenticated request gets, so no request shares or mutates a managed entity.
+@Getter
+public final class UserPrincipal implements UserDetails {
+
+    private final long id;
+    private final String email;
+    private final String displayName;
+    private final String password;
+    private final boolean enabled;
+
+    public UserPrincipal(long id, String email, String displayName, String password, boolean enabled) {
+        this.id = id;
+        this.email = email;
+        this.displayName = displayName;
+        this.password = password;
+        this.enabled = enabled;
+    }
+
+    public static UserPrincipal of(User user) {
+        return new UserPrincipal(user.getId(), user.getEmail(), user.getUsername(), user.getPassword(), user.isEnabled());
+    }
+
+    public UserPrincipal withPassword(String password) {
+        return new UserPrincipal(id, email, displayName, password, enabled);
+    }
+
+    // Spring Security identifies users by email (login, JWT subject, user lookup)
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return List.of();
+    }
+
+    @Override
+    public String toString() {
+        return "UserPrincipal[id=" + id + ", email=" + email + "]";
+    }
+}
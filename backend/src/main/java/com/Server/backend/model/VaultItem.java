@@ -0,0 +1,82 @@
+package com.Server.backend.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+
+// A project, credential or note. The payload is encrypted on the client and never read by the
+// server; only the metadata columns are plaintext, so listing and search never touch the payload.
+@Entity
+@Table(name = "vault_items", indexes = {
+        @Index(name = "idx_vault_items_user_id_id", columnList = "user_id, id"),
+        // Serves /sync: one range scan from the client's cursor
+        @Index(name = "idx_vault_items_user_id_version", columnList = "user_id, version"),
+        @Index(name = "idx_vault_items_deleted_updated_at", columnList = "deleted, updated_at")
+})
+@Getter
+@Setter
+public class VaultItem {
+
+    public enum Type {
+        PROJECT,
+        CREDENTIAL,
+        NOTE
+    }
+
+    // Pooled sequence: one round trip reserves 50 ids, so inserts can be sent as JDBC batches
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "vault_item_seq")
+    @SequenceGenerator(name = "vault_item_seq", sequenceName = "vault_item_seq", allocationSize = 50)
+    private long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Type type;
+
+    @Column(nullable = false)
+    private String title;
+
+    @Column(length = 512)
+    private String tags;
+
+    // bytea on Postgres; null once the item is a tombstone
+    @JdbcTypeCode(SqlTypes.VARBINARY)
+    @Column(length = 1_048_576)
+    private byte[] payload;
+
+    // Per-user change version of the last create, update or delete
+    @Column(nullable = false)
+    private long version;
+
+    // Deleted items stay as tombstones so syncing clients learn about the delete
+    @Column(nullable = false)
+    private boolean deleted;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public VaultItem(User user, Type type, String title, String tags, byte[] payload, long version, LocalDateTime now) {
+        this.user = user;
+        this.version = version;
+        this.type = type;
+        this.title = title;
+        this.tags = tags;
+        this.payload = payload;
+        this.createdAt = now;
+        this.updatedAt = now;
+    }
+
+    public VaultItem() {
+    }
+}
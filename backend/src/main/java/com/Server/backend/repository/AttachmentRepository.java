@@ -0,0 +1,18 @@
+package com.Server.backend.repository;
+
+import com.Server.backend.model.Attachment;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AttachmentRepository extends CrudRepository<Attachment, Long> {
+
+    Optional<Attachment> findByIdAndVaultItemIdAndUserId(long id, long vaultItemId, long userId);
+
+    List<Attachment> findByVaultItemIdAndUserIdOrderById(long vaultItemId, long userId);
+
+    List<Attachment> findByVaultItemId(long vaultItemId);
+}
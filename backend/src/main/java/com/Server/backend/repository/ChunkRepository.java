@@ -0,0 +1,44 @@
+package com.Server.backend.repository;
+
+import com.Server.backend.model.Chunk;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ChunkRepository extends CrudRepository<Chunk, String> {
+
+    @Query("select c.hash from Chunk c where c.hash in :hashes")
+    List<String> findExisting(Collection<String> hashes);
+
+    // Restarts the grace period of unreferenced chunks an upload is about to reuse. Waits for a
+    // collector that has already deleted the row, which then stays missing.
+    @Modifying
+    @Query("update Chunk c set c.unreferencedSince = :now where c.hash in :hashes and c.refCount = 0")
+    int claim(Collection<String> hashes, LocalDateTime now);
+
+    // One reference per attachment, however often the chunk repeats inside it
+    @Modifying
+    @Query("update Chunk c set c.refCount = c.refCount + 1, c.unreferencedSince = null where c.hash in :hashes")
+    int addReferences(Collection<String> hashes);
+
+    @Modifying
+    @Query("update Chunk c set c.refCount = c.refCount - 1, "
+            + "c.unreferencedSince = case when c.refCount = 1 then :now else c.unreferencedSince end "
+            + "where c.hash in :hashes")
+    int removeReferences(Collection<String> hashes, LocalDateTime now);
+
+    @Query("select c.hash from Chunk c where c.refCount = 0 and c.unreferencedSince < :cutoff order by c.unreferencedSince")
+    List<String> findCollectable(LocalDateTime cutoff, Pageable pageable);
+
+    // Re-checks the condition, so a chunk referenced again in the meantime survives
+    @Modifying
+    @Query("delete from Chunk c where c.hash = :hash and c.refCount = 0 and c.unreferencedSince < :cutoff")
+    int deleteIfCollectable(String hash, LocalDateTime cutoff);
+}
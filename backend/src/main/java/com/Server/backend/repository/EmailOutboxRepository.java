@@ -0,0 +1,31 @@
+package com.Server.backend.repository;
+
+import com.Server.backend.model.EmailOutbox;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface EmailOutboxRepository extends CrudRepository<EmailOutbox, Long> {
+
+    // SKIP LOCKED (-2) lets several dispatcher instances claim disjoint batches
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    List<EmailOutbox> findByStatusInAndNextAttemptAtLessThanEqualOrderByIdAsc(
+            Collection<EmailOutbox.Status> statuses, LocalDateTime now, Pageable pageable);
+
+    long countByStatusIn(Collection<EmailOutbox.Status> statuses);
+
+    @Query("select min(o.createdAt) from EmailOutbox o where o.status in :statuses")
+    Optional<LocalDateTime> findOldestCreatedAt(Collection<EmailOutbox.Status> statuses);
+}
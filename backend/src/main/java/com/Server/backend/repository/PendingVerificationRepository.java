@@ -0,0 +1,17 @@
+package com.Server.backend.repository;
+
+import com.Server.backend.model.PendingVerification;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+
+@Repository
+public interface PendingVerificationRepository extends CrudRepository<PendingVerification, String> {
+
+    @Modifying
+    @Query("delete from PendingVerification p where p.userId in :userIds")
+    int deleteByUserIds(Collection<Long> userIds);
+}
@@ -0,0 +1,22 @@
+package com.Server.backend.repository;
+
+import com.Server.backend.model.SigningKey;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SigningKeyRepository extends CrudRepository<SigningKey, String> {
+
+    List<SigningKey> findByRetiresAtAfterOrderByActivatesAtAsc(LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("delete from SigningKey k where k.retiresAt < :now")
+    int deleteRetired(LocalDateTime now);
+}
@@ -0,0 +1,33 @@
+package com.Server.backend.repository;
+
+import com.Server.backend.model.TokenRevocation;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TokenRevocationRepository extends CrudRepository<TokenRevocation, Long> {
+
+    // Keyset pages over everything still live, used for the rebuild at startup
+    List<TokenRevocation> findByIdGreaterThanAndExpiresAtAfterOrderByIdAsc(long afterId, LocalDateTime now, Pageable pageable);
+
+    // Keyset pages of the log after the last entry the tail applied
+    @Query("select t from TokenRevocation t where t.createdAt > :createdAt or (t.createdAt = :createdAt and t.id > :id) "
+            + "order by t.createdAt, t.id")
+    List<TokenRevocation> findAfter(LocalDateTime createdAt, long id, Pageable pageable);
+
+    List<TokenRevocation> findByCreatedAtAfterOrderByIdAsc(LocalDateTime since);
+
+    boolean existsByKindAndValue(TokenRevocation.Kind kind, String value);
+
+    @Transactional
+    @Modifying
+    @Query("delete from TokenRevocation t where t.expiresAt < :now")
+    int deleteExpired(LocalDateTime now);
+}
@@ -1,13 +1,72 @@
 package com.Server.backend.repository;
 
 import com.Server.backend.model.User;
+import com.Server.backend.responses.UserSummary;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface UserRepository extends CrudRepository<User, Long> {
+    // Read-only so that, outside a writing transaction, it is served by the replica when one is configured
+    @Transactional(readOnly = true)
     Optional<User> findByEmail(String email);
-    Optional<User> findByVerificationCode(String verificationCode);
+
+    // Keyset pagination on the primary key, so every page is an index range scan
+    @Query("select new com.Server.backend.responses.UserSummary(u.id, u.username, u.email, u.enabled) "
+            + "from User u where u.id > :afterId order by u.id")
+    List<UserSummary> findSummariesAfter(long afterId, Pageable pageable);
+
+    // Must be consumed inside a transaction; rows are pulled from a server-side cursor in fetch-size chunks
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.Server.backend.responses.UserSummary(u.id, u.username, u.email, u.enabled) "
+            + "from User u order by u.id")
+    Stream<UserSummary> streamSummaries();
+
+    @Transactional
+    @Modifying
+    @Query("update User u set u.password = :password where u.email = :email")
+    int updatePassword(String email, String password);
+
+    @Modifying
+    @Query("update User u set u.enabled = true, u.verifiedAt = :now where u.id = :id and u.verifiedAt is null")
+    int markVerified(long id, LocalDateTime now);
+
+    // Reserves the next count vault versions; the row stays locked until the transaction ends
+    @Modifying
+    @Query("update User u set u.vaultVersion = u.vaultVersion + :count where u.id = :id")
+    int advanceVaultVersion(long id, long count);
+
+    @Query("select u.vaultVersion from User u where u.id = :id")
+    long vaultVersion(long id);
+
+    @Query("select u.vaultCompactedVersion from User u where u.id = :id")
+    long vaultCompactedVersion(long id);
+
+    @Modifying
+    @Query("update User u set u.vaultCompactedVersion = :version where u.id = :id and u.vaultCompactedVersion < :version")
+    int raiseVaultCompactedVersion(long id, long version);
+
+    // Never verified accounts with no verification code that is still inside the grace window
+    @Query("select u.id from User u where u.verifiedAt is null and not exists "
+            + "(select p from PendingVerification p where p.userId = u.id and p.expiresAt >= :cutoff) "
+            + "order by u.id")
+    List<Long> findAbandonedUserIds(LocalDateTime cutoff, Pageable pageable);
+
+    @Modifying
+    @Query("delete from User u where u.id in :ids and u.verifiedAt is null")
+    int deleteUnverifiedByIds(Collection<Long> ids);
 }
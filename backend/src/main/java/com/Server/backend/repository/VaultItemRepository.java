@@ -0,0 +1,49 @@
+package com.Server.backend.repository;
+
+import com.Server.backend.model.VaultItem;
+import com.Server.backend.responses.VaultItemSummary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface VaultItemRepository extends CrudRepository<VaultItem, Long> {
+
+    // Keyset pages over (user_id, id); the projection keeps payloads out of listings
+    @Query("select new com.Server.backend.responses.VaultItemSummary(v.id, v.type, v.title, v.tags, v.updatedAt) "
+            + "from VaultItem v where v.user.id = :userId and v.id > :afterId and v.deleted = false order by v.id")
+    List<VaultItemSummary> findSummariesAfter(long userId, long afterId, Pageable pageable);
+
+    // Everything the search index holds for one vault, without payloads:
+    // [id, type, title, tags, updatedAt, version]
+    @Query("select v.id, v.type, v.title, v.tags, v.updatedAt, v.version from VaultItem v where v.user.id = :userId and v.deleted = false")
+    List<Object[]> findSearchEntries(long userId);
+
+    Optional<VaultItem> findByIdAndUserIdAndDeletedFalse(long id, long userId);
+
+    // Range scan on (user_id, version)
+    @Query("select v from VaultItem v where v.user.id = :userId and v.version > :since order by v.version")
+    List<VaultItem> findChangesSince(long userId, long since, Pageable pageable);
+
+    // A first sync has nothing to delete locally, so tombstones are skipped
+    @Query("select v from VaultItem v where v.user.id = :userId and v.version > :since and v.deleted = false order by v.version")
+    List<VaultItem> findLiveSince(long userId, long since, Pageable pageable);
+
+    @Query("select v.id from VaultItem v where v.deleted = true and v.updatedAt < :cutoff order by v.id")
+    List<Long> findTombstoneIdsBefore(LocalDateTime cutoff, Pageable pageable);
+
+    // [userId, highest version] for each owner among the given items
+    @Query("select v.user.id, max(v.version) from VaultItem v where v.id in :ids group by v.user.id")
+    List<Object[]> findMaxVersionByUser(Collection<Long> ids);
+
+    @Modifying
+    @Query("delete from VaultItem v where v.id in :ids and v.deleted = true")
+    int deleteTombstones(Collection<Long> ids);
+}
@@ -0,0 +1,29 @@
+package com.Server.backend.responses;
+
+import com.Server.backend.model.Attachment;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+public class AttachmentResponse {
+    private long id;
+    private String name;
+    private String contentType;
+    private long size;
+    private int chunkSize;
+    private String sha256;
+    private LocalDateTime createdAt;
+
+    public AttachmentResponse(Attachment attachment) {
+        this.id = attachment.getId();
+        this.name = attachment.getName();
+        this.contentType = attachment.getContentType();
+        this.size = attachment.getSize();
+        this.chunkSize = attachment.getChunkSize();
+        this.sha256 = attachment.getSha256();
+        this.createdAt = attachment.getCreatedAt();
+    }
+}
@@ -0,0 +1,14 @@
+package com.Server.backend.responses;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class ImportResponse {
+    private int imported;
+
+    public ImportResponse(int imported) {
+        this.imported = imported;
+    }
+}
@@ -0,0 +1,25 @@
+package com.Server.backend.responses;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class SyncResponse {
+    private List<VaultItemChange> changes;
+    // Pass back as ?since= on the next call
+    private long cursor;
+    // More changes are waiting; call again right away with the new cursor
+    private boolean hasMore;
+    // The cursor predates compacted tombstones: drop local state and sync again from 0
+    private boolean resetRequired;
+
+    public SyncResponse(List<VaultItemChange> changes, long cursor, boolean hasMore, boolean resetRequired) {
+        this.changes = changes;
+        this.cursor = cursor;
+        this.hasMore = hasMore;
+        this.resetRequired = resetRequired;
+    }
+}
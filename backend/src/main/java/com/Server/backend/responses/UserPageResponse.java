@@ -0,0 +1,19 @@
+package com.Server.backend.responses;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class UserPageResponse {
+    private List<UserSummary> users;
+    // Pass back as ?after= to get the next page; null when there are no more users
+    private Long nextCursor;
+
+    public UserPageResponse(List<UserSummary> users, Long nextCursor) {
+        this.users = users;
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,20 @@
+package com.Server.backend.responses;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class UserSummary {
+    private long id;
+    private String username;
+    private String email;
+    private boolean enabled;
+
+    public UserSummary(long id, String username, String email, boolean enabled) {
+        this.id = id;
+        this.username = username;
+        this.email = email;
+        this.enabled = enabled;
+    }
+}
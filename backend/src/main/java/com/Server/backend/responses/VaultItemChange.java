@@ -0,0 +1,36 @@
+package com.Server.backend.responses;
+
+import com.Server.backend.model.VaultItem;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// One entry of a sync page; tombstones only carry id, version and deleted
+@Getter
+@Setter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class VaultItemChange {
+    private long id;
+    private long version;
+    private boolean deleted;
+    private VaultItem.Type type;
+    private String title;
+    private String tags;
+    private byte[] payload;
+    private LocalDateTime updatedAt;
+
+    public VaultItemChange(VaultItem item) {
+        this.id = item.getId();
+        this.version = item.getVersion();
+        this.deleted = item.isDeleted();
+        if (!item.isDeleted()) {
+            this.type = item.getType();
+            this.title = item.getTitle();
+            this.tags = item.getTags();
+            this.payload = item.getPayload();
+            this.updatedAt = item.getUpdatedAt();
+        }
+    }
+}
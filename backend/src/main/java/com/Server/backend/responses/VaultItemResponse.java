@@ -0,0 +1,27 @@
+package com.Server.backend.responses;
+
+import com.Server.backend.model.VaultItem;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+public class VaultItemResponse {
+    private long id;
+    private VaultItem.Type type;
+    private String title;
+    private String tags;
+    private byte[] payload;
+    private LocalDateTime updatedAt;
+
+    public VaultItemResponse(VaultItem item) {
+        this.id = item.getId();
+        this.type = item.getType();
+        this.title = item.getTitle();
+        this.tags = item.getTags();
+        this.payload = item.getPayload();
+        this.updatedAt = item.getUpdatedAt();
+    }
+}
@@ -0,0 +1,26 @@
+package com.Server.backend.responses;
+
+import com.Server.backend.model.VaultItem;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// Metadata only; the payload is fetched per item
+@Getter
+@Setter
+public class VaultItemSummary {
+    private long id;
+    private VaultItem.Type type;
+    private String title;
+    private String tags;
+    private LocalDateTime updatedAt;
+
+    public VaultItemSummary(long id, VaultItem.Type type, String title, String tags, LocalDateTime updatedAt) {
+        this.id = id;
+        this.type = type;
+        this.title = title;
+        this.tags = tags;
+        this.updatedAt = updatedAt;
+    }
+}
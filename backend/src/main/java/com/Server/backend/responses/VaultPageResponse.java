@@ -0,0 +1,19 @@
+package com.Server.backend.responses;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class VaultPageResponse {
+    private List<VaultItemSummary> items;
+    // Pass back as ?after= to get the next page; null when there are no more items
+    private Long nextCursor;
+
+    public VaultPageResponse(List<VaultItemSummary> items, Long nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,156 @@
+package com.Server.backend.service;
+
+import com.Server.backend.config.ReadYourWrites;
+import com.Server.backend.model.Attachment;
+import com.Server.backend.model.VaultItem;
+import com.Server.backend.repository.AttachmentRepository;
+import com.Server.backend.repository.ChunkRepository;
+import com.Server.backend.repository.VaultItemRepository;
+import com.Server.backend.responses.AttachmentResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Attachments are encrypted by the client in fixed-size AES-GCM chunks before upload, like item
+// payloads. The server stores and serves the sealed chunks as-is, which is what lets downloads go
+// straight from the chunk files to the socket. Identical sealed chunks are stored once; that only
+// happens across uploads when the client derives keys and nonces from the content.
+@Service
+public class AttachmentService {
+
+    public static final int GCM_TAG_BYTES = 16;
+    private static final int MIN_CHUNK_SIZE = 4 * 1024;
+    private static final int MAX_CHUNK_SIZE = 16 * 1024 * 1024;
+
+    public record Download(Attachment attachment, ChunkStore store) {
+
+        public long sealedChunkSize() {
+            return attachment.getChunkSize() + GCM_TAG_BYTES;
+        }
+
+        public Path chunk(int index) {
+            return store.path(ChunkStore.hashAt(attachment.getChunkHashes(), index));
+        }
+    }
+
+    private final AttachmentRepository attachmentRepository;
+    private final VaultItemRepository vaultItemRepository;
+    private final ChunkRepository chunkRepository;
+    private final ChunkStore store;
+    private final TransactionTemplate transactionTemplate;
+    private final ReadYourWrites readYourWrites;
+    private final long maxSize;
+
+    public AttachmentService(
+            AttachmentRepository attachmentRepository,
+            VaultItemRepository vaultItemRepository,
+            ChunkRepository chunkRepository,
+            ChunkStore store,
+            TransactionTemplate transactionTemplate,
+            ReadYourWrites readYourWrites,
+            @Value("${vault.attachments.max-size:2GB}") DataSize maxSize
+    ) {
+        this.attachmentRepository = attachmentRepository;
+        this.vaultItemRepository = vaultItemRepository;
+        this.chunkRepository = chunkRepository;
+        this.store = store;
+        this.transactionTemplate = transactionTemplate;
+        this.readYourWrites = readYourWrites;
+        this.maxSize = maxSize.toBytes();
+    }
+
+    // Deliberately not transactional: no connection is held while the body is still arriving
+    public AttachmentResponse upload(long userId, long itemId, String name, String contentType, int chunkSize,
+                                     InputStream body) throws IOException {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Name is required");
+        }
+        if (chunkSize < MIN_CHUNK_SIZE || chunkSize > MAX_CHUNK_SIZE) {
+            throw new IllegalArgumentException("Chunk size must be between " + MIN_CHUNK_SIZE + " and " + MAX_CHUNK_SIZE);
+        }
+        VaultItem item = vaultItemRepository.findByIdAndUserIdAndDeletedFalse(itemId, userId)
+                .orElseThrow(() -> new RuntimeException("Item not found"));
+        ChunkStore.StoredChunks stored = store.write(body, chunkSize + GCM_TAG_BYTES, maxSize);
+        // Chunks written for a rejected body stay unreferenced and are collected later
+        checkFraming(stored.size(), chunkSize);
+        Attachment attachment = new Attachment(item, userId, name, contentType == null ? "application/octet-stream" : contentType,
+                stored.size(), chunkSize, stored.sha256(), stored.hashes(), LocalDateTime.now());
+        return transactionTemplate.execute(status -> {
+            int referenced = 0;
+            for (List<String> batch : batches(stored.distinct())) {
+                referenced += chunkRepository.addReferences(batch);
+            }
+            // Only possible if the upload took longer than the grace period after claiming its first chunks
+            if (referenced != stored.distinct().size()) {
+                throw new IllegalStateException("Chunks were collected during the upload");
+            }
+            readYourWrites.wrote();
+            return new AttachmentResponse(attachmentRepository.save(attachment));
+        });
+    }
+
+    @Transactional(readOnly = true)
+    public List<AttachmentResponse> attachments(long userId, long itemId) {
+        return attachmentRepository.findByVaultItemIdAndUserIdOrderById(itemId, userId).stream()
+                .map(AttachmentResponse::new)
+                .toList();
+    }
+
+    @Transactional(readOnly = true)
+    public Download download(long userId, long itemId, long id) {
+        Attachment attachment = attachmentRepository.findByIdAndVaultItemIdAndUserId(id, itemId, userId)
+                .orElseThrow(() -> new RuntimeException("Attachment not found"));
+        return new Download(attachment, store);
+    }
+
+    @Transactional
+    public void delete(long userId, long itemId, long id) {
+        Attachment attachment = attachmentRepository.findByIdAndVaultItemIdAndUserId(id, itemId, userId)
+                .orElseThrow(() -> new RuntimeException("Attachment not found"));
+        remove(List.of(attachment));
+        readYourWrites.wrote();
+    }
+
+    // Called when the owning item becomes a tombstone
+    @Transactional
+    public void deleteAll(long itemId) {
+        remove(attachmentRepository.findByVaultItemId(itemId));
+    }
+
+    // A chunk whose last reference goes starts its grace period; the collector removes the file later
+    private void remove(List<Attachment> attachments) {
+        LocalDateTime now = LocalDateTime.now();
+        for (Attachment attachment : attachments) {
+            for (List<String> batch : batches(ChunkStore.distinct(attachment.getChunkHashes()))) {
+                chunkRepository.removeReferences(batch, now);
+            }
+        }
+        attachmentRepository.deleteAll(attachments);
+    }
+
+    private static List<List<String>> batches(List<String> hashes) {
+        List<List<String>> batches = new ArrayList<>();
+        for (int i = 0; i < hashes.size(); i += ChunkStore.QUERY_BATCH) {
+            batches.add(hashes.subList(i, Math.min(hashes.size(), i + ChunkStore.QUERY_BATCH)));
+        }
+        return batches;
+    }
+
+    // Whole sealed chunks only, and a final chunk holding at least its tag
+    private static void checkFraming(long size, int chunkSize) {
+        long sealedChunk = chunkSize + GCM_TAG_BYTES;
+        long last = size % sealedChunk;
+        if (size == 0 || (last != 0 && last < GCM_TAG_BYTES)) {
+            throw new IllegalArgumentException("Body is not a sequence of " + chunkSize + "-byte AES-GCM chunks");
+        }
+    }
+}
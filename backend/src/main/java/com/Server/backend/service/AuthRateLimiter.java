@@ -0,0 +1,73 @@
+package com.Server.backend.service;
+
+import com.Server.backend.util.RateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+// Throttles /auth/login, /auth/verify and /auth/resend per email and per client IP.
+// Checked in the controller before any database, BCrypt or SMTP work is done.
+@Component
+public class AuthRateLimiter {
+
+    private final RateLimiter loginByEmail;
+    private final RateLimiter loginByIp;
+    private final RateLimiter verifyByEmail;
+    private final RateLimiter verifyByIp;
+    private final RateLimiter resendByEmail;
+    private final RateLimiter resendByIp;
+    private final MeterRegistry meterRegistry;
+
+    public AuthRateLimiter(
+            MeterRegistry meterRegistry,
+            @Value("${security.rate-limit.maximum-keys:100000}") long maximumKeys,
+            @Value("${security.rate-limit.login.email.burst:5}") int loginEmailBurst,
+            @Value("${security.rate-limit.login.email.refill:PT12S}") Duration loginEmailRefill,
+            @Value("${security.rate-limit.login.ip.burst:30}") int loginIpBurst,
+            @Value("${security.rate-limit.login.ip.refill:PT1S}") Duration loginIpRefill,
+            @Value("${security.rate-limit.verify.email.burst:5}") int verifyEmailBurst,
+            @Value("${security.rate-limit.verify.email.refill:PT1M}") Duration verifyEmailRefill,
+            @Value("${security.rate-limit.verify.ip.burst:20}") int verifyIpBurst,
+            @Value("${security.rate-limit.verify.ip.refill:PT3S}") Duration verifyIpRefill,
+            @Value("${security.rate-limit.resend.email.burst:2}") int resendEmailBurst,
+            @Value("${security.rate-limit.resend.email.refill:PT2M}") Duration resendEmailRefill,
+            @Value("${security.rate-limit.resend.ip.burst:10}") int resendIpBurst,
+            @Value("${security.rate-limit.resend.ip.refill:PT10S}") Duration resendIpRefill
+    ) {
+        this.meterRegistry = meterRegistry;
+        this.loginByEmail = new RateLimiter(loginEmailBurst, loginEmailRefill, maximumKeys);
+        this.loginByIp = new RateLimiter(loginIpBurst, loginIpRefill, maximumKeys);
+        this.verifyByEmail = new RateLimiter(verifyEmailBurst, verifyEmailRefill, maximumKeys);
+        this.verifyByIp = new RateLimiter(verifyIpBurst, verifyIpRefill, maximumKeys);
+        this.resendByEmail = new RateLimiter(resendEmailBurst, resendEmailRefill, maximumKeys);
+        this.resendByIp = new RateLimiter(resendIpBurst, resendIpRefill, maximumKeys);
+    }
+
+    public void checkLogin(String email, String clientIp) {
+        check("login", loginByIp, clientIp, loginByEmail, email);
+    }
+
+    public void checkVerify(String email, String clientIp) {
+        check("verify", verifyByIp, clientIp, verifyByEmail, email);
+    }
+
+    public void checkResend(String email, String clientIp) {
+        check("resend", resendByIp, clientIp, resendByEmail, email);
+    }
+
+    // IP first: a flood from one address should not drain the per-email budget of its victims
+    private void check(String action, RateLimiter byIp, String clientIp, RateLimiter byEmail, String email) {
+        long wait = byIp.tryAcquire(clientIp == null ? "unknown" : clientIp);
+        if (wait == 0) {
+            wait = byEmail.tryAcquire(email == null ? "" : email.toLowerCase(Locale.ROOT));
+        }
+        if (wait > 0) {
+            meterRegistry.counter("auth.rate_limited", "action", action).increment();
+            throw new RateLimitExceededException(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait)));
+        }
+    }
+}
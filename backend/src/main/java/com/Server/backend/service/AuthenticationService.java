@@ -1,19 +1,26 @@
 package com.Server.backend.service;
 
+import com.Server.backend.config.ReadYourWrites;
 import com.Server.backend.dto.LoginUserDto;
 import com.Server.backend.dto.RegisterUserDto;
 import com.Server.backend.dto.VerifyUserDto;
+import com.Server.backend.model.PendingVerification;
 import com.Server.backend.model.User;
 import com.Server.backend.repository.UserRepository;
-import jakarta.mail.MessagingException;
+import com.Server.backend.responses.LoginResponse;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Optional;
-import java.util.Random;
 
 @Service
 public class AuthenticationService {
@@ -21,27 +28,58 @@ private final UserRepository userRepository;
 private final PasswordEncoder passwordEncoder;
 private final AuthenticationManager authenticationManager;
 private final EmailService emailService;
+private final UserDetailsCache userDetailsCache;
+private final VerificationCodeStore verificationCodeStore;
+private final JwtService jwtService;
+private final RefreshTokenService refreshTokenService;
+private final TokenRevocationService tokenRevocationService;
+private final UserDetailsService userDetailsService;
+private final ReadYourWrites readYourWrites;
+private final TransactionTemplate transactionTemplate;
 public AuthenticationService(
         UserRepository userRepository,
         PasswordEncoder passwordEncoder,
         AuthenticationManager authenticationManager,
-        EmailService emailService
+        EmailService emailService,
+        UserDetailsCache userDetailsCache,
+        VerificationCodeStore verificationCodeStore,
+        JwtService jwtService,
+        RefreshTokenService refreshTokenService,
+        TokenRevocationService tokenRevocationService,
+        UserDetailsService userDetailsService,
+        ReadYourWrites readYourWrites,
+        TransactionTemplate transactionTemplate
 ){
     this.userRepository = userRepository;
     this.passwordEncoder = passwordEncoder;
     this.authenticationManager = authenticationManager;
     this.emailService = emailService;
+    this.userDetailsCache = userDetailsCache;
+    this.verificationCodeStore = verificationCodeStore;
+    this.jwtService = jwtService;
+    this.refreshTokenService = refreshTokenService;
+    this.tokenRevocationService = tokenRevocationService;
+    this.userDetailsService = userDetailsService;
+    this.readYourWrites = readYourWrites;
+    this.transactionTemplate = transactionTemplate;
 }
+// The password is hashed before the transaction starts, so no connection is held while BCrypt runs
+@Timed(value = "auth.signup", percentiles = {0.5, 0.99})
 public User signup(RegisterUserDto input){
-User user = new User(input.getUsername(),input.getEmail(),passwordEncoder.encode(input.getPassword()));
-user.setVerificationCode(generateVerificationCode());
-user.setVerificationCodeExpiresAt(LocalDateTime.now().plusMinutes(15));
+User user = new User(input.getUsername(),passwordEncoder.encode(input.getPassword()),input.getEmail());
 user.setEnabled(false);
-sendVerificationEmail(user);
-return userRepository.save(user);
+return transactionTemplate.execute(status -> {
+    User savedUser = userRepository.save(user);
+    String verificationCode = verificationCodeStore.issue(savedUser, Duration.ofMinutes(15));
+    sendVerificationEmail(savedUser, verificationCode);
+    userDetailsCache.invalidate(savedUser.getEmail());
+    readYourWrites.wrote(savedUser.getEmail());
+    return savedUser;
+});
 }
+@Timed(value = "auth.authenticate", percentiles = {0.5, 0.99})
 public User authenticate(LoginUserDto input){
-User user = userRepository.findByEmail(input.getEmail())
+User user = readYourWrites.readingFor(input.getEmail(), () -> userRepository.findByEmail(input.getEmail()))
         .orElseThrow(()-> new RuntimeException("User Not Found"));
 if(!user.isEnabled()){
 throw new RuntimeException("Account Not Verified. Please verify your account");
@@ -53,26 +91,27 @@ throw new RuntimeException("Account Not Verified. Please verify your account");
     );
 return user;
 }
+// One keyed lookup of the pending code (usually served from memory) and a single update of the user
+@Timed(value = "auth.verify", percentiles = {0.5, 0.99})
+@Transactional
 public void verifyUser(VerifyUserDto input){
-    Optional<User> optionalUser = userRepository.findByEmail(input.getEmail());
-    if(optionalUser.isPresent()){
-        User user = optionalUser.get();
-        if (user.getVerificationCodeExpiresAt().isBefore(LocalDateTime.now())){
-            throw new RuntimeException("Verification Code Expired");
-        }
-        if (user.getVerificationCode().equals(input.getVerificationCode())){
-            user.setEnabled(true);
-            user.setVerificationCode(null);
-            user.setVerificationCodeExpiresAt(null);
-            userRepository.save(user);
-        }
-        else {
-            throw new RuntimeException("Invalid Verification Code");
-        }
-    }else {
-        throw new RuntimeException("User Not Found");
+    PendingVerification pending = verificationCodeStore.find(input.getEmail(), input.getVerificationCode())
+            .orElseThrow(()-> new RuntimeException("User Not Found"));
+    if (pending.isExpired(LocalDateTime.now())){
+        throw new RuntimeException("Verification Code Expired");
     }
+    if (!pending.getCode().equals(input.getVerificationCode())){
+        throw new RuntimeException("Invalid Verification Code");
+    }
+    if (userRepository.markVerified(pending.getUserId(), LocalDateTime.now()) == 0){
+        throw new RuntimeException("Account is already verified");
+    }
+    verificationCodeStore.consume(pending);
+    userDetailsCache.invalidate(pending.getEmail());
+    readYourWrites.wrote(pending.getEmail());
 }
+@Timed(value = "auth.resend", percentiles = {0.5, 0.99})
+@Transactional
 public void resendVerificationCode(String email){
     Optional<User> optionalUser = userRepository.findByEmail(email);
     if(optionalUser.isPresent()){
@@ -80,38 +119,45 @@ public void resendVerificationCode(String email){
         if (user.isEnabled()){
             throw new RuntimeException("Account is already verified");
         }
-        user.setVerificationCode(generateVerificationCode());
-        user.setVerificationCodeExpiresAt(LocalDateTime.now().plusHours(1));
-        sendVerificationEmail(user);
-        userRepository.save(user);
+        String verificationCode = verificationCodeStore.issue(user, Duration.ofHours(1));
+        sendVerificationEmail(user, verificationCode);
     }else {
         throw new RuntimeException("User Not Found");
     }
 }
-public void sendVerificationEmail(User user){
-    String subject = "Account Verification";
-    String verificationCode = user.getVerificationCode();
-    String htmlMessage = "<html>"
-            + "<body style=\"font-family: Arial, sans-serif;\">"
-            + "<div style=\"background-color: #f5f5f5; padding: 20px;\">"
-            + "<h2 style=\"color: #333;\">Welcome to our app!</h2>"
-            + "<p style=\"font-size: 16px;\">Please enter the verification code below to continue:</p>"
-            + "<div style=\"background-color: #fff; padding: 20px; border-radius: 5px; box-shadow: 0 0 10px rgba(0,0,0,0.1);\">"
-            + "<h3 style=\"color: #333;\">Verification Code:</h3>"
-            + "<p style=\"font-size: 18px; font-weight: bold; color: #007bff;\">" + verificationCode + "</p>"
-            + "</div>"
-            + "</div>"
-            + "</body>"
-            + "</html>";
-    try {
-        emailService.sendVerificationEmail(user.getEmail(), subject, htmlMessage);
-    } catch (MessagingException e){
-        e.printStackTrace();
+public String issueRefreshToken(User user){
+    return refreshTokenService.issue(user);
+}
+// Rotates the refresh token and mints a new short-lived access token for its owner
+@Timed(value = "auth.refresh", percentiles = {0.5, 0.99})
+public LoginResponse refresh(String refreshToken){
+    RefreshTokenService.Rotation rotation = refreshTokenService.rotate(refreshToken);
+    UserDetails user = userDetailsService.loadUserByUsername(rotation.email());
+    if (!user.isEnabled()){
+        throw new RuntimeException("Account Not Verified. Please verify your account");
+    }
+    return new LoginResponse(jwtService.generateToken(user), jwtService.getExpirationTime(),
+            rotation.refreshToken(), refreshTokenService.getLifetimeMillis());
+}
+// Revokes the presented access token (and its refresh token family), or every session of the user
+@Transactional
+public void logout(VerifiedToken accessToken, String refreshToken, boolean everywhere){
+    if (refreshToken != null){
+        refreshTokenService.revoke(refreshToken);
+    }
+    if (accessToken == null){
+        return;
+    }
+    if (everywhere){
+        userRepository.findByEmail(accessToken.subject())
+                .ifPresent(user -> refreshTokenService.revokeAllForUser(user.getId()));
+        tokenRevocationService.revokeAllForUser(accessToken.subject());
+    } else {
+        tokenRevocationService.revoke(accessToken);
     }
 }
-private String generateVerificationCode(){
-    Random random = new Random();
-    int code = random.nextInt(900000)+100000;
-    return String.valueOf(code);
+// Queued in the outbox within the caller's transaction; EmailOutboxDispatcher does the SMTP work
+public void sendVerificationEmail(User user, String verificationCode){
+    emailService.enqueueVerificationEmail(user.getEmail(), verificationCode);
 }
 }
@@ -0,0 +1,48 @@
+package com.Server.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+// Removes attachment chunks nothing references any more. Each run takes one small batch, so the
+// row locks of the batch are only ever held briefly and a large backlog drains over several runs.
+// Every node may run it; a chunk another node is collecting at the same time is skipped. The grace
+// period has to be longer than the slowest upload.
+@Component
+public class ChunkGarbageCollector {
+
+    private static final Logger log = LoggerFactory.getLogger(ChunkGarbageCollector.class);
+
+    private final ChunkStore chunkStore;
+    private final boolean enabled;
+    private final Duration grace;
+    private final int batchSize;
+
+    public ChunkGarbageCollector(
+            ChunkStore chunkStore,
+            @Value("${vault.attachments.gc.enabled:true}") boolean enabled,
+            @Value("${vault.attachments.gc.grace:PT6H}") Duration grace,
+            @Value("${vault.attachments.gc.batch-size:500}") int batchSize
+    ) {
+        this.chunkStore = chunkStore;
+        this.enabled = enabled;
+        this.grace = grace;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${vault.attachments.gc.interval-ms:60000}", initialDelayString = "${vault.attachments.gc.initial-delay-ms:120000}")
+    public void run() {
+        if (!enabled) {
+            return;
+        }
+        int collected = chunkStore.collect(LocalDateTime.now().minus(grace), batchSize);
+        if (collected > 0) {
+            log.info("Collected {} unreferenced attachment chunks", collected);
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.Server.backend.service;
+
+import com.Server.backend.model.Attachment;
+import com.Server.backend.repository.ChunkRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+// Content-addressed store for attachment chunks. Every sealed chunk is kept once, in a file named
+// after its SHA-256, and indexed by a row in chunks counting the attachments that use it. An
+// upload reads a window of chunks into one reused buffer, looks the window's hashes up in a
+// single query and writes only the chunks the store does not have yet.
+//
+// New chunk rows start unreferenced; the attachment's transaction adds the references. Chunks
+// that stay unreferenced past the grace period, including those of failed uploads, are collected
+// in small batches. All coordination goes through the chunk rows: an upload claims the rows it
+// reuses, which restarts their grace period, and the collector removes a file while it still holds
+// the lock of the deleted row, so an upload never decides a chunk exists and then loses its file.
+// Nodes sharing the database therefore have to share the directory as well.
+@Component
+public class ChunkStore {
+
+    public static final int HASH_BYTES = 32;
+    // Keeps IN lists well below the bind parameter limit of the driver
+    public static final int QUERY_BATCH = 1000;
+
+    // Two uploads may both have written a new chunk; the second insert is a no-op
+    private static final String INSERT_CHUNK = "insert into chunks (hash, size, ref_count, unreferenced_since, created_at) "
+            + "values (?, ?, 0, ?, ?) on conflict do nothing";
+
+    // hashes holds the raw SHA-256 of every chunk in order, distinct the hex keys of the set
+    public record StoredChunks(byte[] hashes, List<String> distinct, long size, String sha256) {
+    }
+
+    private final ChunkRepository chunkRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Path root;
+    private final Path incoming;
+    private final Path collected;
+    private final int windowSize;
+
+    public ChunkStore(
+            ChunkRepository chunkRepository,
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            @Value("${vault.attachments.dir:data/attachments}") Path root,
+            @Value("${vault.attachments.window-size:4MB}") DataSize windowSize
+    ) {
+        this.chunkRepository = chunkRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.root = root.toAbsolutePath();
+        this.incoming = this.root.resolve("incoming");
+        this.collected = this.root.resolve("collected");
+        this.windowSize = (int) windowSize.toBytes();
+        try {
+            Files.createDirectories(incoming);
+            Files.createDirectories(collected);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create chunk store at " + this.root, e);
+        }
+    }
+
+    // Splits the stream at every sealedChunkSize bytes until end of stream; fails once more than
+    // maxBytes arrive. The last chunk may be shorter.
+    public StoredChunks write(InputStream in, int sealedChunkSize, long maxBytes) throws IOException {
+        int perWindow = Math.max(1, Math.min(windowSize / sealedChunkSize, QUERY_BATCH));
+        byte[] buffer = new byte[perWindow * sealedChunkSize];
+        MessageDigest content = sha256();
+        MessageDigest chunk = sha256();
+        ByteArrayOutputStream hashes = new ByteArrayOutputStream();
+        Set<String> distinct = new LinkedHashSet<>();
+        long size = 0;
+        while (true) {
+            int read = in.readNBytes(buffer, 0, buffer.length);
+            size += read;
+            if (size > maxBytes) {
+                throw new IllegalArgumentException("Attachment exceeds " + maxBytes + " bytes");
+            }
+            if (read == 0) {
+                break;
+            }
+            content.update(buffer, 0, read);
+            int chunks = (read + sealedChunkSize - 1) / sealedChunkSize;
+            if (hashes.size() + chunks * HASH_BYTES > Attachment.MAX_CHUNK_HASH_BYTES) {
+                throw new IllegalArgumentException("Attachment has too many chunks, use a larger chunk size");
+            }
+            List<String> window = new ArrayList<>(chunks);
+            for (int i = 0; i < chunks; i++) {
+                int offset = i * sealedChunkSize;
+                chunk.update(buffer, offset, Math.min(sealedChunkSize, read - offset));
+                byte[] hash = chunk.digest();
+                hashes.writeBytes(hash);
+                window.add(HexFormat.of().formatHex(hash));
+            }
+            storeMissing(buffer, read, sealedChunkSize, window);
+            distinct.addAll(window);
+            if (read < buffer.length) {
+                break;
+            }
+        }
+        return new StoredChunks(hashes.toByteArray(), List.copyOf(distinct), size, HexFormat.of().formatHex(content.digest()));
+    }
+
+    private void storeMissing(byte[] buffer, int length, int sealedChunkSize, List<String> window) throws IOException {
+        LocalDateTime now = LocalDateTime.now();
+        Set<String> missing = new LinkedHashSet<>(window);
+        missing.removeAll(transactionTemplate.execute(status -> {
+            chunkRepository.claim(missing, now);
+            return chunkRepository.findExisting(missing);
+        }));
+        if (missing.isEmpty()) {
+            return;
+        }
+        Timestamp createdAt = Timestamp.valueOf(now);
+        List<Object[]> rows = new ArrayList<>(missing.size());
+        for (int i = 0; i < window.size(); i++) {
+            String hash = window.get(i);
+            if (missing.remove(hash)) {
+                int offset = i * sealedChunkSize;
+                int size = Math.min(sealedChunkSize, length - offset);
+                writeFile(hash, buffer, offset, size);
+                rows.add(new Object[]{hash, size, createdAt, createdAt});
+            }
+        }
+        // Files are durable before any row points at them
+        jdbcTemplate.batchUpdate(INSERT_CHUNK, rows);
+    }
+
+    private void writeFile(String hash, byte[] buffer, int offset, int length) throws IOException {
+        Path temp = incoming.resolve(UUID.randomUUID().toString());
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            ByteBuffer bytes = ByteBuffer.wrap(buffer, offset, length);
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Path target = path(hash);
+        Files.createDirectories(target.getParent());
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // Two levels of fan-out keep directories small
+    public Path path(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    // Deletes up to batchSize chunks that have been unreferenced since before the cutoff. The files
+    // are moved aside inside the transaction and only deleted once the rows are gone for good.
+    public int collect(LocalDateTime cutoff, int batchSize) {
+        List<String> moved = new ArrayList<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (String hash : chunkRepository.findCollectable(cutoff, PageRequest.of(0, batchSize))) {
+                    if (chunkRepository.deleteIfCollectable(hash, cutoff) == 1) {
+                        move(path(hash), collected.resolve(hash));
+                        moved.add(hash);
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            for (String hash : moved) {
+                move(collected.resolve(hash), path(hash));
+            }
+            throw e;
+        }
+        try {
+            for (String hash : moved) {
+                Files.deleteIfExists(collected.resolve(hash));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return moved.size();
+    }
+
+    private static void move(Path from, Path to) {
+        try {
+            Files.move(from, to, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (NoSuchFileException e) {
+            // already gone
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static int chunkCount(byte[] hashes) {
+        return hashes.length / HASH_BYTES;
+    }
+
+    public static String hashAt(byte[] hashes, int index) {
+        return HexFormat.of().formatHex(hashes, index * HASH_BYTES, (index + 1) * HASH_BYTES);
+    }
+
+    public static List<String> distinct(byte[] hashes) {
+        Set<String> distinct = new LinkedHashSet<>();
+        for (int i = 0; i < chunkCount(hashes); i++) {
+            distinct.add(hashAt(hashes, i));
+        }
+        return List.copyOf(distinct);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
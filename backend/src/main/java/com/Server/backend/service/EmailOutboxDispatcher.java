@@ -0,0 +1,229 @@
+package com.Server.backend.service;
+
+import com.Server.backend.model.EmailOutbox;
+import com.Server.backend.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Drains the email outbox off the request path. Each batch goes out over a single SMTP
+// connection (JavaMailSender.send(MimeMessage...) connects the transport once per call).
+// A batch is claimed under a lease in one transaction, sent with no transaction open, and its
+// results recorded in a second one; a dispatcher that dies mid-send leaves its rows to be claimed
+// again once the lease runs out.
+@Component
+public class EmailOutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailOutboxDispatcher.class);
+    private static final List<EmailOutbox.Status> CLAIMABLE = List.of(EmailOutbox.Status.PENDING, EmailOutbox.Status.SENDING);
+
+    private final EmailOutboxRepository outboxRepository;
+    private final EmailService emailService;
+    private final JavaMailSender mailSender;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration lease;
+    private final Timer sendTimer;
+    private final Counter sentCounter;
+    private final Counter retryCounter;
+    private final Counter failedCounter;
+
+    public EmailOutboxDispatcher(
+            EmailOutboxRepository outboxRepository,
+            EmailService emailService,
+            @Lazy JavaMailSender mailSender,
+            TransactionTemplate transactionTemplate,
+            @Value("${mail.outbox.dispatcher.enabled:true}") boolean enabled,
+            @Value("${mail.outbox.batch-size:50}") int batchSize,
+            @Value("${mail.outbox.max-attempts:8}") int maxAttempts,
+            @Value("${mail.outbox.initial-backoff:PT5S}") Duration initialBackoff,
+            @Value("${mail.outbox.max-backoff:PT30M}") Duration maxBackoff,
+            @Value("${mail.outbox.lease:PT5M}") Duration lease,
+            MeterRegistry meterRegistry
+    ) {
+        this.outboxRepository = outboxRepository;
+        this.emailService = emailService;
+        this.mailSender = mailSender;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.lease = lease;
+        this.sendTimer = Timer.builder("mail.outbox.send")
+                .description("SMTP time for one batch, connection setup included")
+                .register(meterRegistry);
+        this.sentCounter = Counter.builder("mail.outbox.sent").register(meterRegistry);
+        this.retryCounter = Counter.builder("mail.outbox.failures").tag("outcome", "retry").register(meterRegistry);
+        this.failedCounter = Counter.builder("mail.outbox.failures").tag("outcome", "gave_up").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${mail.outbox.poll-interval-ms:2000}")
+    public void dispatch() {
+        if (!enabled) {
+            return;
+        }
+        int sent;
+        do {
+            sent = dispatchBatch();
+        } while (sent == batchSize);
+    }
+
+    // Returns the number of messages taken off the queue in this batch
+    public int dispatchBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        // compared with the stored value later, so kept at the column's precision
+        LocalDateTime leasedUntil = now.plus(lease).truncatedTo(ChronoUnit.MICROS);
+        List<EmailOutbox> batch = claim(now, leasedUntil);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        Map<Long, Exception> failures = new HashMap<>();
+        // MimeMessage keeps identity equality; linked so the batch goes out in queue order
+        Map<MimeMessage, EmailOutbox> messages = new LinkedHashMap<>();
+        for (EmailOutbox entry : batch) {
+            try {
+                messages.put(emailService.createMessage(entry.getRecipient(), entry.getSubject(), entry.getBody()), entry);
+            } catch (MessagingException e) {
+                failures.put(entry.getId(), e);
+            }
+        }
+        send(messages, failures);
+        record(batch, failures, leasedUntil);
+        return batch.size();
+    }
+
+    // A short transaction of its own, so no row lock or connection is held while SMTP is talking
+    private List<EmailOutbox> claim(LocalDateTime now, LocalDateTime leasedUntil) {
+        List<EmailOutbox> batch = transactionTemplate.execute(status -> {
+            List<EmailOutbox> due = outboxRepository.findByStatusInAndNextAttemptAtLessThanEqualOrderByIdAsc(
+                    CLAIMABLE, now, PageRequest.of(0, batchSize));
+            for (EmailOutbox entry : due) {
+                entry.setStatus(EmailOutbox.Status.SENDING);
+                entry.setNextAttemptAt(leasedUntil);
+            }
+            outboxRepository.saveAll(due);
+            return due;
+        });
+        return batch == null ? List.of() : batch;
+    }
+
+    private void send(Map<MimeMessage, EmailOutbox> messages, Map<Long, Exception> failures) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        Timer.Sample sample = Timer.start();
+        try {
+            mailSender.send(messages.keySet().toArray(MimeMessage[]::new));
+        } catch (MailSendException e) {
+            if (e.getFailedMessages().isEmpty()) {
+                failAll(messages.values(), e, failures);
+            } else {
+                e.getFailedMessages().forEach((message, failure) -> failures.put(messages.get(message).getId(), failure));
+            }
+        } catch (MailException e) {
+            failAll(messages.values(), e, failures);
+        } finally {
+            sample.stop(sendTimer);
+        }
+    }
+
+    // Rows whose lease ran out meanwhile may already be with another dispatcher, which records them instead
+    private void record(List<EmailOutbox> batch, Map<Long, Exception> failures, LocalDateTime leasedUntil) {
+        List<Long> ids = batch.stream().map(EmailOutbox::getId).toList();
+        transactionTemplate.executeWithoutResult(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<EmailOutbox> claimed = new ArrayList<>();
+            for (EmailOutbox entry : outboxRepository.findAllById(ids)) {
+                if (entry.getStatus() != EmailOutbox.Status.SENDING || !leasedUntil.equals(entry.getNextAttemptAt())) {
+                    log.warn("Lease on email {} expired before its result was recorded", entry.getId());
+                    continue;
+                }
+                Exception failure = failures.get(entry.getId());
+                if (failure == null) {
+                    entry.setStatus(EmailOutbox.Status.SENT);
+                    entry.setSentAt(now);
+                    entry.setLastError(null);
+                    sentCounter.increment();
+                } else {
+                    markFailed(entry, failure, now);
+                }
+                claimed.add(entry);
+            }
+            outboxRepository.saveAll(claimed);
+        });
+    }
+
+    private void failAll(Iterable<EmailOutbox> entries, Exception e, Map<Long, Exception> failures) {
+        log.warn("Email batch could not be sent: {}", e.getMessage());
+        for (EmailOutbox entry : entries) {
+            failures.put(entry.getId(), e);
+        }
+    }
+
+    private void markFailed(EmailOutbox entry, Exception e, LocalDateTime now) {
+        int attempts = entry.getAttempts() + 1;
+        entry.setAttempts(attempts);
+        entry.setLastError(truncate(e.getMessage()));
+        if (attempts >= maxAttempts) {
+            failedCounter.increment();
+            entry.setStatus(EmailOutbox.Status.FAILED);
+            log.error("Giving up on email {} to {} after {} attempts", entry.getId(), entry.getRecipient(), attempts);
+            return;
+        }
+        retryCounter.increment();
+        entry.setStatus(EmailOutbox.Status.PENDING);
+        entry.setNextAttemptAt(now.plus(backoff(attempts)));
+    }
+
+    Duration backoff(int attempts) {
+        Duration delay = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    // Claimed messages count until they are sent
+    public long queueDepth() {
+        return outboxRepository.countByStatusIn(CLAIMABLE);
+    }
+
+    // Age of the oldest message still waiting to go out
+    public Duration lag() {
+        return outboxRepository.findOldestCreatedAt(CLAIMABLE)
+                .map(oldest -> Duration.between(oldest, LocalDateTime.now()))
+                .orElse(Duration.ZERO);
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+}
@@ -1,22 +1,43 @@
 package com.Server.backend.service;
 
+import com.Server.backend.model.EmailOutbox;
+import com.Server.backend.repository.EmailOutboxRepository;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
 
 @Service
 public class EmailService {
-    @Autowired
-private JavaMailSender emailSender;
-    public void sendVerificationEmail(String to, String subject, String text)throws MessagingException {
+private final JavaMailSender emailSender;
+private final EmailOutboxRepository outboxRepository;
+private final EmailTemplate verificationTemplate;
+    public EmailService(@Lazy JavaMailSender emailSender, EmailOutboxRepository outboxRepository) {
+        this.emailSender = emailSender;
+        this.outboxRepository = outboxRepository;
+        this.verificationTemplate = EmailTemplate.load("Account Verification", "templates/verification-email.html");
+    }
+    // Joins the caller's transaction so the mail is only queued if the surrounding write commits
+    @Transactional(propagation = Propagation.MANDATORY)
+    public EmailOutbox enqueueVerificationEmail(String to, String verificationCode) {
+        String htmlMessage = verificationTemplate.render(Map.of("verificationCode", verificationCode));
+        return outboxRepository.save(new EmailOutbox(to, verificationTemplate.getSubject(), htmlMessage));
+    }
+    public MimeMessage createMessage(String to, String subject, String text) throws MessagingException {
         MimeMessage message = emailSender.createMimeMessage();
-        MimeMessageHelper helper = new MimeMessageHelper(message,true);
+        MimeMessageHelper helper = new MimeMessageHelper(message, true);
         helper.setTo(to);
         helper.setSubject(subject);
-        helper.setText(text,true);
-        emailSender.send(message);
+        helper.setText(text, true);
+        return message;
+    }
+    public void sendVerificationEmail(String to, String subject, String text)throws MessagingException {
+        emailSender.send(createMessage(to, subject, text));
     }
 }
@@ -0,0 +1,74 @@
+package com.Server.backend.service;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.web.util.HtmlUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Template split once into literal and {{placeholder}} segments, so rendering is a single append pass.
+public class EmailTemplate {
+
+    private final String subject;
+    private final String[] literals;
+    private final String[] placeholders;
+    private final int literalLength;
+
+    private EmailTemplate(String subject, String[] literals, String[] placeholders) {
+        this.subject = subject;
+        this.literals = literals;
+        this.placeholders = placeholders;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    public static EmailTemplate compile(String subject, String source) {
+        List<String> literals = new ArrayList<>();
+        List<String> placeholders = new ArrayList<>();
+        int position = 0;
+        while (true) {
+            int open = source.indexOf("{{", position);
+            int close = open < 0 ? -1 : source.indexOf("}}", open + 2);
+            if (open < 0 || close < 0) {
+                literals.add(source.substring(position));
+                break;
+            }
+            literals.add(source.substring(position, open));
+            placeholders.add(source.substring(open + 2, close).trim());
+            position = close + 2;
+        }
+        return new EmailTemplate(subject, literals.toArray(String[]::new), placeholders.toArray(String[]::new));
+    }
+
+    public static EmailTemplate load(String subject, String classpathLocation) {
+        try (InputStream in = new ClassPathResource(classpathLocation).getInputStream()) {
+            return compile(subject, new String(in.readAllBytes(), StandardCharsets.UTF_8).strip());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load email template " + classpathLocation, e);
+        }
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public String render(Map<String, String> values) {
+        StringBuilder html = new StringBuilder(literalLength + 16 * placeholders.length);
+        for (int i = 0; i < placeholders.length; i++) {
+            html.append(literals[i]);
+            String value = values.get(placeholders[i]);
+            if (value != null) {
+                html.append(HtmlUtils.htmlEscape(value));
+            }
+        }
+        return html.append(literals[literals.length - 1]).toString();
+    }
+}
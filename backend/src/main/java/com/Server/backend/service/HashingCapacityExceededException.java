@@ -0,0 +1,11 @@
+package com.Server.backend.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class HashingCapacityExceededException extends RuntimeException {
+    public HashingCapacityExceededException() {
+        super("Too many concurrent password operations, please retry shortly");
+    }
+}
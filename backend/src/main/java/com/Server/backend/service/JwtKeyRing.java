@@ -0,0 +1,245 @@
+package com.Server.backend.service;
+
+import com.Server.backend.model.SigningKey;
+import com.Server.backend.repository.SigningKeyRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+// ES256 key ring for access tokens, indexed by kid. A successor key is published in the JWKS one
+// activation delay before it starts signing, so verifiers that cache the JWKS for less than that
+// never see an unknown kid. Old keys stay published until every token they signed has expired.
+// Private keys are stored sealed with AES-GCM under a key-encryption key from the environment,
+// bound to their kid, so a database dump alone cannot sign tokens.
+@Service
+public class JwtKeyRing {
+
+    public static final SignatureAlgorithm ALGORITHM = SignatureAlgorithm.ES256;
+    private static final long RELOAD_BACKOFF_MILLIS = 5_000;
+    private static final int NONCE_BYTES = 12;
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    public record ActiveKey(String kid, PrivateKey privateKey) {
+    }
+
+    private record Ring(ActiveKey active, Map<String, PublicKey> publicKeys, byte[] jwks, String etag) {
+    }
+
+    private final SigningKeyRepository repository;
+    private final Duration rotationPeriod;
+    private final Duration activationDelay;
+    private final Duration accessTokenLifetime;
+    private final SecretKey keyEncryptionKey;
+    private final SecureRandom random = new SecureRandom();
+    // Not synchronized: the holder does database I/O, which would pin a virtual thread
+    private final Lock lock = new ReentrantLock();
+
+    private volatile Ring ring;
+    private volatile long lastReload;
+
+    public JwtKeyRing(
+            SigningKeyRepository repository,
+            @Value("${security.jwt.keys.rotation-period:P1D}") Duration rotationPeriod,
+            @Value("${security.jwt.keys.activation-delay:PT10M}") Duration activationDelay,
+            @Value("${security.jwt.expiration-time}") long accessTokenLifetimeMillis,
+            @Value("${security.jwt.keys.encryption-key}") String keyEncryptionKey
+    ) {
+        this.repository = repository;
+        this.rotationPeriod = rotationPeriod;
+        this.activationDelay = activationDelay;
+        this.accessTokenLifetime = Duration.ofMillis(accessTokenLifetimeMillis);
+        byte[] kek = Base64.getDecoder().decode(keyEncryptionKey);
+        if (kek.length != 32) {
+            throw new IllegalArgumentException("security.jwt.keys.encryption-key must be 32 bytes, base64 encoded");
+        }
+        this.keyEncryptionKey = new SecretKeySpec(kek, "AES");
+    }
+
+    // Also picks up keys created by other nodes; the poll interval must stay below the activation delay
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${security.jwt.keys.poll-interval-ms:60000}",
+            initialDelayString = "${security.jwt.keys.poll-interval-ms:60000}")
+    public void refresh() {
+        lock.lock();
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            List<SigningKey> keys = new ArrayList<>(repository.findByRetiresAtAfterOrderByActivatesAtAsc(now));
+            if (keys.isEmpty()) {
+                keys.add(repository.save(newKey(now, now)));
+            } else if (!keys.get(keys.size() - 1).getActivatesAt().plus(rotationPeriod).minus(activationDelay).isAfter(now)) {
+                keys.add(repository.save(newKey(now, now.plus(activationDelay))));
+            }
+            install(keys);
+            repository.deleteRetired(now);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Immediate rotation, e.g. after a key leak. Earlier keys keep verifying until they retire.
+    public void rotate() {
+        lock.lock();
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            repository.save(newKey(now, now));
+            refresh();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public ActiveKey activeKey() {
+        return ring.active();
+    }
+
+    // Null for unknown kids. A miss reloads the ring, in case another node just rotated. The kid
+    // comes from an unverified token, so the reload only reads and runs at most once per backoff
+    // however many requests miss at the same time.
+    public PublicKey publicKey(String kid) {
+        PublicKey key = ring.publicKeys().get(kid);
+        if (key != null || kid == null || !reloadDue()) {
+            return key;
+        }
+        lock.lock();
+        try {
+            if (reloadDue()) {
+                List<SigningKey> keys = repository.findByRetiresAtAfterOrderByActivatesAtAsc(LocalDateTime.now());
+                lastReload = System.currentTimeMillis();
+                if (!keys.isEmpty()) {
+                    install(keys);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return ring.publicKeys().get(kid);
+    }
+
+    private boolean reloadDue() {
+        return System.currentTimeMillis() - lastReload > RELOAD_BACKOFF_MILLIS;
+    }
+
+    // Serialized once per key set change
+    public byte[] jwks() {
+        return ring.jwks();
+    }
+
+    public String jwksEtag() {
+        return ring.etag();
+    }
+
+    public SigningKey newKey(LocalDateTime now, LocalDateTime activatesAt) {
+        KeyPair pair = Keys.keyPairFor(ALGORITHM);
+        String kid = UUID.randomUUID().toString();
+        LocalDateTime retiresAt = activatesAt.plus(rotationPeriod).plus(activationDelay).plus(accessTokenLifetime);
+        return new SigningKey(kid, ALGORITHM.getValue(),
+                pair.getPublic().getEncoded(), seal(kid, pair.getPrivate().getEncoded()), now, activatesAt, retiresAt);
+    }
+
+    // Keys in activation order; the newest one already active signs
+    public void install(List<SigningKey> keys) {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            KeyFactory keyFactory = KeyFactory.getInstance("EC");
+            Map<String, PublicKey> publicKeys = new LinkedHashMap<>();
+            List<Map<String, String>> jwks = new ArrayList<>();
+            SigningKey signing = keys.get(0);
+            for (SigningKey key : keys) {
+                PublicKey publicKey = keyFactory.generatePublic(new X509EncodedKeySpec(key.getPublicKey()));
+                publicKeys.put(key.getKid(), publicKey);
+                jwks.add(jwk(key.getKid(), (ECPublicKey) publicKey));
+                if (!key.getActivatesAt().isAfter(now)) {
+                    signing = key;
+                }
+            }
+            PrivateKey privateKey = keyFactory.generatePrivate(new PKCS8EncodedKeySpec(open(signing.getKid(), signing.getPrivateKey())));
+            byte[] json = JSON.writeValueAsBytes(Map.of("keys", jwks));
+            String etag = "\"" + HexFormat.of().formatHex(Arrays.copyOf(
+                    MessageDigest.getInstance("SHA-256").digest(json), 8)) + "\"";
+            ring = new Ring(new ActiveKey(signing.getKid(), privateKey), Map.copyOf(publicKeys), json, etag);
+            lastReload = System.currentTimeMillis();
+        } catch (GeneralSecurityException | JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable signing key", e);
+        }
+    }
+
+    // Nonce followed by the ciphertext of the PKCS#8 encoding, with the kid as associated data
+    private byte[] seal(String kid, byte[] privateKey) {
+        try {
+            byte[] nonce = new byte[NONCE_BYTES];
+            random.nextBytes(nonce);
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, keyEncryptionKey, new GCMParameterSpec(128, nonce));
+            cipher.updateAAD(kid.getBytes(StandardCharsets.UTF_8));
+            ByteBuffer sealed = ByteBuffer.allocate(NONCE_BYTES + cipher.getOutputSize(privateKey.length));
+            sealed.put(nonce);
+            cipher.doFinal(ByteBuffer.wrap(privateKey), sealed);
+            return sealed.array();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot seal signing key", e);
+        }
+    }
+
+    private byte[] open(String kid, byte[] sealed) throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, keyEncryptionKey, new GCMParameterSpec(128, sealed, 0, NONCE_BYTES));
+        cipher.updateAAD(kid.getBytes(StandardCharsets.UTF_8));
+        return cipher.doFinal(sealed, NONCE_BYTES, sealed.length - NONCE_BYTES);
+    }
+
+    private static Map<String, String> jwk(String kid, ECPublicKey key) {
+        Map<String, String> jwk = new LinkedHashMap<>();
+        jwk.put("kty", "EC");
+        jwk.put("crv", "P-256");
+        jwk.put("kid", kid);
+        jwk.put("use", "sig");
+        jwk.put("alg", ALGORITHM.getValue());
+        jwk.put("x", coordinate(key.getW().getAffineX()));
+        jwk.put("y", coordinate(key.getW().getAffineY()));
+        return jwk;
+    }
+
+    // Unsigned big-endian, left padded to the 32-byte field size
+    private static String coordinate(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        byte[] padded = new byte[32];
+        int length = Math.min(bytes.length, 32);
+        System.arraycopy(bytes, bytes.length - length, padded, 32 - length, length);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(padded);
+    }
+}
@@ -0,0 +1,99 @@
+package com.Server.backend.service;
+
+import com.Server.backend.model.RefreshToken;
+import com.Server.backend.model.User;
+import com.Server.backend.repository.RefreshTokenRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+// Opaque, single-use refresh tokens. Each exchange rotates the token within its family; presenting
+// an already used token revokes the whole family, since only a copied token can be replayed.
+@Service
+public class RefreshTokenService {
+
+    public record Rotation(String refreshToken, String email) {
+    }
+
+    private final RefreshTokenRepository repository;
+    private final Duration lifetime;
+    private final SecureRandom random = new SecureRandom();
+
+    public RefreshTokenService(
+            RefreshTokenRepository repository,
+            @Value("${security.jwt.refresh-expiration:P14D}") Duration lifetime
+    ) {
+        this.repository = repository;
+        this.lifetime = lifetime;
+    }
+
+    @Transactional
+    public String issue(User user) {
+        return issue(UUID.randomUUID().toString(), user.getId(), user.getEmail());
+    }
+
+    @Transactional(noRollbackFor = RuntimeException.class)
+    public Rotation rotate(String presented) {
+        RefreshToken current = repository.findByTokenHash(hash(presented))
+                .orElseThrow(() -> new RuntimeException("Invalid Refresh Token"));
+        if (current.isUsed() || current.isRevoked()) {
+            repository.revokeFamily(current.getFamilyId());
+            throw new RuntimeException("Refresh Token Revoked");
+        }
+        if (current.getExpiresAt().isBefore(LocalDateTime.now())) {
+            throw new RuntimeException("Refresh Token Expired");
+        }
+        current.setUsed(true);
+        repository.save(current);
+        return new Rotation(issue(current.getFamilyId(), current.getUserId(), current.getEmail()), current.getEmail());
+    }
+
+    @Transactional
+    public void revoke(String presented) {
+        repository.findByTokenHash(hash(presented))
+                .ifPresent(token -> repository.revokeFamily(token.getFamilyId()));
+    }
+
+    @Transactional
+    public void revokeAllForUser(long userId) {
+        repository.revokeAllForUser(userId);
+    }
+
+    public long getLifetimeMillis() {
+        return lifetime.toMillis();
+    }
+
+    @Transactional
+    @Scheduled(fixedDelayString = "${security.jwt.refresh-purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        repository.deleteExpired(LocalDateTime.now());
+    }
+
+    private String issue(String familyId, long userId, String email) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        repository.save(new RefreshToken(hash(token), familyId, userId, email, LocalDateTime.now().plus(lifetime)));
+        return token;
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
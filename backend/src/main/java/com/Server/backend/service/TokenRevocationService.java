@@ -0,0 +1,178 @@
+package com.Server.backend.service;
+
+import com.Server.backend.model.TokenRevocation;
+import com.Server.backend.repository.TokenRevocationRepository;
+import com.Server.backend.util.BloomFilter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Answers "is this access token revoked?" from memory. Revoked token ids go into Bloom filters
+// partitioned by the token's expiry window, so a lookup touches one small filter and whole
+// partitions are dropped once every token in them has expired. Bloom positives are confirmed
+// against the log (and the answer cached), so a false positive never rejects a good token.
+@Service
+public class TokenRevocationService {
+
+    private static final int PAGE_SIZE = 1000;
+
+    private final TokenRevocationRepository repository;
+    private final long partitionMillis;
+    private final long expectedPerPartition;
+    private final double falsePositiveRate;
+    private final Duration accessTokenLifetime;
+
+    private final Map<Long, BloomFilter> partitions = new ConcurrentHashMap<>();
+    private final Map<String, Instant> userCutoffs = new ConcurrentHashMap<>();
+    private final Cache<String, Boolean> confirmed;
+    private final Duration sweepWindow;
+    // The last entry the tail applied, in (createdAt, id) order
+    private volatile LocalDateTime cursorCreatedAt;
+    private volatile long cursorId;
+
+    public TokenRevocationService(
+            TokenRevocationRepository repository,
+            @Value("${security.jwt.expiration-time}") long accessTokenLifetimeMillis,
+            @Value("${security.revocation.partition-width:PT15M}") Duration partitionWidth,
+            @Value("${security.revocation.expected-per-partition:100000}") long expectedPerPartition,
+            @Value("${security.revocation.false-positive-rate:0.01}") double falsePositiveRate,
+            @Value("${security.revocation.sweep-window:PT2M}") Duration sweepWindow
+    ) {
+        this.repository = repository;
+        this.partitionMillis = partitionWidth.toMillis();
+        this.expectedPerPartition = expectedPerPartition;
+        this.falsePositiveRate = falsePositiveRate;
+        this.accessTokenLifetime = Duration.ofMillis(accessTokenLifetimeMillis);
+        this.sweepWindow = sweepWindow;
+        this.confirmed = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(Duration.ofMinutes(1))
+                .build();
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        LocalDateTime now = LocalDateTime.now();
+        long afterId = 0;
+        while (true) {
+            List<TokenRevocation> page = repository.findByIdGreaterThanAndExpiresAtAfterOrderByIdAsc(
+                    afterId, now, PageRequest.of(0, PAGE_SIZE));
+            page.forEach(this::apply);
+            if (page.size() < PAGE_SIZE) {
+                break;
+            }
+            afterId = page.get(page.size() - 1).getId();
+        }
+        cursorCreatedAt = now;
+        cursorId = 0;
+    }
+
+    // Reads only what was logged after the cursor, so every entry is normally read once. Returns the
+    // number of entries applied.
+    @Scheduled(fixedDelayString = "${security.revocation.poll-interval-ms:5000}")
+    public int tail() {
+        int applied = 0;
+        while (true) {
+            List<TokenRevocation> page = repository.findAfter(cursorCreatedAt, cursorId, PageRequest.of(0, PAGE_SIZE));
+            for (TokenRevocation entry : page) {
+                apply(entry);
+                cursorCreatedAt = entry.getCreatedAt();
+                cursorId = entry.getId();
+            }
+            applied += page.size();
+            if (page.size() < PAGE_SIZE) {
+                return applied;
+            }
+        }
+    }
+
+    // An entry can commit after the cursor has passed its createdAt: a concurrent transaction, or a
+    // node whose clock runs behind. Those are picked up here, a little later. Applying an entry twice
+    // is harmless.
+    @Scheduled(fixedDelayString = "${security.revocation.sweep-interval-ms:60000}")
+    public void sweep() {
+        repository.findByCreatedAtAfterOrderByIdAsc(LocalDateTime.now().minus(sweepWindow)).forEach(this::apply);
+    }
+
+    @Scheduled(fixedDelayString = "${security.revocation.prune-interval-ms:60000}")
+    public void prune() {
+        long current = Math.floorDiv(System.currentTimeMillis(), partitionMillis);
+        partitions.keySet().removeIf(partition -> partition < current);
+        Instant horizon = Instant.now().minus(accessTokenLifetime);
+        userCutoffs.values().removeIf(cutoff -> cutoff.isBefore(horizon));
+        repository.deleteExpired(LocalDateTime.now());
+    }
+
+    public void revoke(VerifiedToken token) {
+        String id = token.id();
+        if (id == null || token.expiresAt() == null) {
+            return;
+        }
+        TokenRevocation entry = new TokenRevocation(TokenRevocation.Kind.TOKEN, id,
+                LocalDateTime.now(), LocalDateTime.ofInstant(token.expiresAt(), ZoneId.systemDefault()));
+        apply(repository.save(entry));
+    }
+
+    // For logout everywhere, password changes and disabled accounts
+    public void revokeAllForUser(String email) {
+        LocalDateTime now = LocalDateTime.now();
+        TokenRevocation entry = new TokenRevocation(TokenRevocation.Kind.USER, email, now, now.plus(accessTokenLifetime));
+        apply(repository.save(entry));
+    }
+
+    public boolean isRevoked(VerifiedToken token) {
+        Instant cutoff = userCutoffs.get(token.subject());
+        // iat only has second precision, so a token from the same second as the cutoff counts as revoked
+        if (cutoff != null && token.issuedAt() != null
+                && !token.issuedAt().isAfter(cutoff.truncatedTo(ChronoUnit.SECONDS))) {
+            return true;
+        }
+        String id = token.id();
+        if (id == null || token.expiresAt() == null) {
+            return false;
+        }
+        BloomFilter filter = partitions.get(partitionOf(token.expiresAt().toEpochMilli()));
+        if (filter == null || !filter.mightContain(id)) {
+            return false;
+        }
+        Boolean known = confirmed.getIfPresent(id);
+        if (known == null) {
+            known = repository.existsByKindAndValue(TokenRevocation.Kind.TOKEN, id);
+            confirmed.put(id, known);
+        }
+        return known;
+    }
+
+    public int partitionCount() {
+        return partitions.size();
+    }
+
+    private void apply(TokenRevocation entry) {
+        if (entry.getKind() == TokenRevocation.Kind.USER) {
+            Instant cutoff = entry.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant();
+            userCutoffs.merge(entry.getValue(), cutoff, (a, b) -> a.isAfter(b) ? a : b);
+            return;
+        }
+        long expiresAt = entry.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        partitions.computeIfAbsent(partitionOf(expiresAt), p -> new BloomFilter(expectedPerPartition, falsePositiveRate))
+                .put(entry.getValue());
+        confirmed.invalidate(entry.getValue());
+    }
+
+    private long partitionOf(long expiresAtMillis) {
+        return Math.floorDiv(expiresAtMillis, partitionMillis);
+    }
+}
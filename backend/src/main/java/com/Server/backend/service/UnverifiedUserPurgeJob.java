@@ -0,0 +1,77 @@
+package com.Server.backend.service;
+
+import com.Server.backend.repository.PendingVerificationRepository;
+import com.Server.backend.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Deletes accounts that never verified, one chunk per transaction so locks stay short
+@Component
+public class UnverifiedUserPurgeJob {
+
+    private static final Logger log = LoggerFactory.getLogger(UnverifiedUserPurgeJob.class);
+
+    private final UserRepository userRepository;
+    private final PendingVerificationRepository pendingVerificationRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Duration grace;
+    private final int batchSize;
+
+    public UnverifiedUserPurgeJob(
+            UserRepository userRepository,
+            PendingVerificationRepository pendingVerificationRepository,
+            TransactionTemplate transactionTemplate,
+            @Value("${verification.purge.enabled:true}") boolean enabled,
+            @Value("${verification.purge.grace:P1D}") Duration grace,
+            @Value("${verification.purge.batch-size:500}") int batchSize
+    ) {
+        this.userRepository = userRepository;
+        this.pendingVerificationRepository = pendingVerificationRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.grace = grace;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${verification.purge.interval-ms:3600000}", initialDelayString = "${verification.purge.initial-delay-ms:60000}")
+    public void run() {
+        if (!enabled) {
+            return;
+        }
+        int total = purge(LocalDateTime.now().minus(grace));
+        if (total > 0) {
+            log.info("Purged {} unverified accounts", total);
+        }
+    }
+
+    public int purge(LocalDateTime cutoff) {
+        int total = 0;
+        while (true) {
+            Integer deleted = transactionTemplate.execute(status -> {
+                List<Long> ids = userRepository.findAbandonedUserIds(cutoff, PageRequest.of(0, batchSize));
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+                pendingVerificationRepository.deleteByUserIds(ids);
+                return userRepository.deleteUnverifiedByIds(ids);
+            });
+            if (deleted == null || deleted == 0) {
+                return total;
+            }
+            total += deleted;
+            if (deleted < batchSize) {
+                return total;
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.Server.backend.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+// Principal cache in front of the per-request user lookup. It holds immutable snapshots, never
+// the JPA entity. Anything that mutates a User must call invalidate(email) so the next request
+// reloads it.
+@Component
+public class UserDetailsCache {
+
+    private final AsyncCache<String, UserDetails> cache;
+
+    public UserDetailsCache(
+            @Value("${security.user-cache.maximum-size:10000}") long maximumSize,
+            @Value("${security.user-cache.ttl:PT5M}") Duration ttl
+    ) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+    }
+
+    // The cache only maps the key to a future and the caller completes it afterwards: Caffeine's
+    // computing get holds a map bin monitor while the mapping function runs, which would pin a
+    // virtual thread for the whole database call. Concurrent misses wait for the same load, and
+    // invalidate() drops a load still in flight, so a row read before a write is never cached.
+    public UserDetails get(String email, Function<String, UserDetails> loader) {
+        CompletableFuture<UserDetails> loading = new CompletableFuture<>();
+        CompletableFuture<UserDetails> entry = cache.get(email, (key, executor) -> loading);
+        if (entry == loading) {
+            try {
+                loading.complete(loader.apply(email));
+            } catch (RuntimeException e) {
+                // Failed loads are removed from the cache
+                loading.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return entry.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    // Inside a transaction the entry is dropped again after commit, so a concurrent
+    // request cannot re-cache the pre-commit row for a whole TTL.
+    public void invalidate(String email) {
+        if (email == null) {
+            return;
+        }
+        cache.synchronous().invalidate(email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.synchronous().invalidate(email);
+                }
+            });
+        }
+    }
+
+    public void invalidateAll() {
+        cache.synchronous().invalidateAll();
+    }
+
+    public long size() {
+        return cache.synchronous().estimatedSize();
+    }
+
+    // hitCount / missCount / evictionCount
+    public CacheStats stats() {
+        return cache.synchronous().stats();
+    }
+}
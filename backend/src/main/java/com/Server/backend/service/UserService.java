@@ -1,21 +1,35 @@
 package com.Server.backend.service;
 
-import com.Server.backend.model.User;
+import com.Server.backend.responses.UserPageResponse;
+import com.Server.backend.responses.UserSummary;
 import com.Server.backend.repository.UserRepository;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class UserService {
+private static final int MAX_PAGE_SIZE = 500;
 private final UserRepository userRepository;
-public UserService(UserRepository userRepository, EmailService emailService){
+public UserService(UserRepository userRepository){
     this.userRepository = userRepository;
 }
-public List<User> allUsers(){
-    List<User> users = new ArrayList<>();
-    userRepository.findAll().forEach(users::add);
-    return users;
+@Transactional(readOnly = true)
+public UserPageResponse users(long afterId, int limit){
+    int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    List<UserSummary> users = userRepository.findSummariesAfter(afterId, PageRequest.of(0, pageSize));
+    Long nextCursor = users.size() == pageSize ? users.get(users.size() - 1).getId() : null;
+    return new UserPageResponse(users, nextCursor);
+}
+// Hands every user to the sink without ever holding more than one fetch batch in memory
+@Transactional(readOnly = true)
+public void streamUsers(Consumer<UserSummary> sink){
+    try (Stream<UserSummary> users = userRepository.streamSummaries()) {
+        users.forEach(sink);
+    }
 }
 }
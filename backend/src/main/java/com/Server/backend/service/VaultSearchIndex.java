@@ -0,0 +1,305 @@
+package com.Server.backend.service;
+
+import com.Server.backend.model.VaultItem;
+import com.Server.backend.repository.UserRepository;
+import com.Server.backend.repository.VaultItemRepository;
+import com.Server.backend.responses.VaultItemSummary;
+import com.Server.backend.util.InvertedIndex;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+// Search over the plaintext metadata of vault items (title and tags; everything else is inside the
+// encrypted payload). Each vault gets an InvertedIndex on first search, which is then kept current
+// from the writes in VaultService after they commit. Writes taken by other nodes never reach it that
+// way, so every search first compares the vault's version with what the index has read and replays
+// the difference from the primary. On Postgres a vault whose index is not built
+// yet is answered from a full-text index while it is built in the background; elsewhere the first
+// search builds it inline.
+@Service
+public class VaultSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(VaultSearchIndex.class);
+    private static final int MAX_LIMIT = 200;
+    private static final int CATCH_UP_PAGE = 1000;
+
+    public record Query(Set<String> prefixes, Set<String> tags, VaultItem.Type type) {
+    }
+
+    private record Change(long id, long version, boolean deleted, VaultItemSummary summary) {
+    }
+
+    // Every change up to readUpTo has been read from the database. The index itself may be further
+    // along, from local writes, and still miss earlier ones committed through another node.
+    private record Entry(InvertedIndex<VaultItemSummary> index, AtomicLong readUpTo) {
+    }
+
+    private final VaultItemRepository vaultItemRepository;
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Cache<Long, Entry> indexes;
+    private final boolean fullText;
+    private final ThreadPoolExecutor builder;
+    private final Set<Long> building = ConcurrentHashMap.newKeySet();
+
+    public VaultSearchIndex(
+            VaultItemRepository vaultItemRepository,
+            UserRepository userRepository,
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            @Value("${vault.search.max-indexed-items:2000000}") long maxIndexedItems,
+            @Value("${vault.search.idle-ttl:PT30M}") Duration idleTtl,
+            @Value("${vault.search.full-text-fallback:true}") boolean fullTextFallback
+    ) {
+        this.vaultItemRepository = vaultItemRepository;
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransaction.setReadOnly(true);
+        // Weighed when built; a vault that grows afterwards is re-weighed the next time it is loaded
+        this.indexes = Caffeine.newBuilder()
+                .maximumWeight(maxIndexedItems)
+                .<Long, Entry>weigher((userId, entry) -> entry.index().size() + 1)
+                .expireAfterAccess(idleTtl)
+                .build();
+        // Served by idx_vault_items_search, created by the PostgreSQL migrations
+        this.fullText = fullTextFallback && isPostgres(jdbcTemplate);
+        this.builder = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(256),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "vault-search-index");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // Words of the text are prefixes; tags must match exactly
+    public static Query query(String text, List<String> tags, VaultItem.Type type) {
+        return new Query(new LinkedHashSet<>(words(text)),
+                tags == null ? Set.of() : tags.stream().map(VaultSearchIndex::normalizeTag)
+                        .filter(tag -> !tag.isEmpty()).collect(Collectors.toCollection(LinkedHashSet::new)),
+                type);
+    }
+
+    public List<VaultItemSummary> search(long userId, Query query, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_LIMIT));
+        Entry entry = indexes.getIfPresent(userId);
+        if (entry == null) {
+            if (fullText) {
+                buildInBackground(userId);
+                return searchDatabase(userId, query, pageSize);
+            }
+            entry = build(userId);
+        } else {
+            catchUp(userId, entry);
+        }
+        return entry.index().search(query.prefixes(), query.tags(),
+                summary -> query.type() == null || summary.getType() == query.type(), pageSize);
+    }
+
+    public boolean isIndexed(long userId) {
+        return indexes.getIfPresent(userId) != null;
+    }
+
+    // Called inside the writing transaction; the index only sees the items once they have committed
+    public void changed(long userId, List<VaultItem> items) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        List<Change> changes = items.stream()
+                .map(item -> new Change(item.getId(), item.getVersion(), item.isDeleted(),
+                        item.isDeleted() ? null : new VaultItemSummary(item.getId(), item.getType(), item.getTitle(),
+                                item.getTags(), item.getUpdatedAt())))
+                .toList();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                Entry entry = indexes.getIfPresent(userId);
+                if (entry != null) {
+                    changes.forEach(change -> apply(entry.index(), change));
+                }
+            }
+        });
+    }
+
+    // Loads the vault without payloads, publishes the index, then replays whatever committed while it
+    // was loading. A write that commits after publication updates the published index itself. The
+    // load may come from a replica that lags behind; the replay reads the primary, so it also brings
+    // in whatever the replica had not seen yet.
+    private Entry build(long userId) {
+        InvertedIndex<VaultItemSummary> index = new InvertedIndex<>();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            for (Object[] row : vaultItemRepository.findSearchEntries(userId)) {
+                VaultItemSummary summary = new VaultItemSummary((Long) row[0], (VaultItem.Type) row[1],
+                        (String) row[2], (String) row[3], (LocalDateTime) row[4]);
+                apply(index, new Change(summary.getId(), (Long) row[5], false, summary));
+            }
+        });
+        // Taken before publishing: writes applied afterwards may carry higher versions than ones still missing
+        Entry entry = new Entry(index, new AtomicLong(index.version()));
+        Entry existing = indexes.asMap().putIfAbsent(userId, entry);
+        if (existing != null) {
+            return existing;
+        }
+        // Read-write, so it is routed to the primary
+        transactionTemplate.executeWithoutResult(status -> replay(userId, entry));
+        return entry;
+    }
+
+    // One primary-key read when nothing changed elsewhere; read-write, so it is routed to the primary
+    private void catchUp(long userId, Entry entry) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (userRepository.vaultVersion(userId) > entry.readUpTo().get()) {
+                replay(userId, entry);
+            }
+        });
+    }
+
+    // Applying a change twice is harmless, so concurrent replays of the same vault need no lock
+    private void replay(long userId, Entry entry) {
+        long cursor = entry.readUpTo().get();
+        List<VaultItem> changes;
+        do {
+            changes = vaultItemRepository.findChangesSince(userId, cursor, PageRequest.of(0, CATCH_UP_PAGE));
+            for (VaultItem item : changes) {
+                cursor = item.getVersion();
+                apply(entry.index(), new Change(item.getId(), item.getVersion(), item.isDeleted(),
+                        new VaultItemSummary(item.getId(), item.getType(), item.getTitle(), item.getTags(), item.getUpdatedAt())));
+            }
+        } while (changes.size() == CATCH_UP_PAGE);
+        entry.readUpTo().accumulateAndGet(cursor, Math::max);
+    }
+
+    private void buildInBackground(long userId) {
+        if (!building.add(userId)) {
+            return;
+        }
+        try {
+            builder.execute(() -> {
+                try {
+                    build(userId);
+                } catch (RuntimeException e) {
+                    log.warn("Building the search index for user {} failed", userId, e);
+                } finally {
+                    building.remove(userId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Backlogged; a later search asks again
+            building.remove(userId);
+        }
+    }
+
+    // Same semantics as the in-memory index, approximated with the 'simple' text search configuration.
+    // Exact tags and the type are part of the query, so the limit counts only rows that match.
+    private List<VaultItemSummary> searchDatabase(long userId, Query query, int limit) {
+        List<String> terms = new ArrayList<>();
+        query.prefixes().forEach(prefix -> terms.add(prefix + ":*"));
+        query.tags().forEach(tag -> terms.addAll(words(tag)));
+        StringBuilder sql = new StringBuilder("select id, type, title, tags, updated_at from vault_items "
+                + "where user_id = ? and deleted = false");
+        List<Object> args = new ArrayList<>(List.of(userId));
+        if (!terms.isEmpty()) {
+            sql.append(" and to_tsvector('simple', title || ' ' || coalesce(tags, '')) @@ to_tsquery('simple', ?)");
+            args.add(String.join(" & ", terms));
+        }
+        // The full-text match narrows the rows down; this keeps only those carrying each whole tag
+        for (String tag : query.tags()) {
+            sql.append(" and exists (select 1 from unnest(string_to_array(lower(tags), ',')) t where btrim(t) = ?)");
+            args.add(tag);
+        }
+        if (query.type() != null) {
+            sql.append(" and type = ?");
+            args.add(query.type().name());
+        }
+        sql.append(" order by updated_at desc limit ?");
+        args.add(limit);
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> new VaultItemSummary(rs.getLong(1),
+                VaultItem.Type.valueOf(rs.getString(2)), rs.getString(3), rs.getString(4),
+                rs.getObject(5, Timestamp.class).toLocalDateTime()), args.toArray());
+    }
+
+    private static void apply(InvertedIndex<VaultItemSummary> index, Change change) {
+        if (change.deleted()) {
+            index.remove(change.id(), change.version());
+            return;
+        }
+        VaultItemSummary summary = change.summary();
+        Set<String> tags = tags(summary.getTags());
+        Set<String> words = new LinkedHashSet<>(words(summary.getTitle()));
+        tags.forEach(tag -> words.addAll(words(tag)));
+        index.put(change.id(), change.version(), summary, words, tags);
+    }
+
+    // Lower-cased runs of letters and digits
+    static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    // Tags are stored comma separated
+    static Set<String> tags(String tags) {
+        Set<String> parsed = new LinkedHashSet<>();
+        if (tags != null) {
+            for (String tag : tags.split(",")) {
+                String normalized = normalizeTag(tag);
+                if (!normalized.isEmpty()) {
+                    parsed.add(normalized);
+                }
+            }
+        }
+        return parsed;
+    }
+
+    private static String normalizeTag(String tag) {
+        return tag.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean isPostgres(JdbcTemplate jdbcTemplate) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())));
+    }
+}
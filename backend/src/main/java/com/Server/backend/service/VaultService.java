@@ -0,0 +1,209 @@
+package com.Server.backend.service;
+
+import com.Server.backend.config.ReadYourWrites;
+import com.Server.backend.dto.VaultItemDto;
+import com.Server.backend.model.User;
+import com.Server.backend.model.VaultItem;
+import com.Server.backend.repository.UserRepository;
+import com.Server.backend.repository.VaultItemRepository;
+import com.Server.backend.responses.SyncResponse;
+import com.Server.backend.responses.VaultItemChange;
+import com.Server.backend.responses.VaultItemResponse;
+import com.Server.backend.responses.VaultItemSummary;
+import com.Server.backend.responses.VaultPageResponse;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+public class VaultService {
+private static final int MAX_PAGE_SIZE = 500;
+private static final int MAX_SYNC_PAGE_SIZE = 1000;
+private final VaultItemRepository vaultItemRepository;
+private final UserRepository userRepository;
+private final AttachmentService attachmentService;
+private final VaultSearchIndex searchIndex;
+private final ReadYourWrites readYourWrites;
+private final EntityManager entityManager;
+private final TransactionTemplate transactionTemplate;
+private final ObjectReader itemReader;
+private final int maxPayloadBytes;
+private final int importChunkSize;
+public VaultService(
+        VaultItemRepository vaultItemRepository,
+        UserRepository userRepository,
+        AttachmentService attachmentService,
+        VaultSearchIndex searchIndex,
+        ReadYourWrites readYourWrites,
+        EntityManager entityManager,
+        TransactionTemplate transactionTemplate,
+        ObjectMapper objectMapper,
+        @Value("${vault.item.max-payload-bytes:65536}") int maxPayloadBytes,
+        @Value("${vault.import.chunk-size:1000}") int importChunkSize
+){
+    this.vaultItemRepository = vaultItemRepository;
+    this.userRepository = userRepository;
+    this.attachmentService = attachmentService;
+    this.searchIndex = searchIndex;
+    this.readYourWrites = readYourWrites;
+    this.entityManager = entityManager;
+    this.transactionTemplate = transactionTemplate;
+    this.itemReader = objectMapper.readerFor(VaultItemDto.class);
+    this.maxPayloadBytes = maxPayloadBytes;
+    this.importChunkSize = importChunkSize;
+}
+@Transactional(readOnly = true)
+public VaultPageResponse items(long userId, long afterId, int limit){
+    int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    List<VaultItemSummary> items = vaultItemRepository.findSummariesAfter(userId, afterId, PageRequest.of(0, pageSize));
+    Long nextCursor = items.size() == pageSize ? items.get(items.size() - 1).getId() : null;
+    return new VaultPageResponse(items, nextCursor);
+}
+// Prefix search over titles and tags, newest first; see VaultSearchIndex
+public List<VaultItemSummary> search(long userId, String text, List<String> tags, VaultItem.Type type, int limit){
+    return searchIndex.search(userId, VaultSearchIndex.query(text, tags, type), limit);
+}
+@Transactional(readOnly = true)
+public VaultItemResponse item(long userId, long id){
+    return vaultItemRepository.findByIdAndUserIdAndDeletedFalse(id, userId)
+            .map(VaultItemResponse::new)
+            .orElseThrow(() -> new RuntimeException("Item not found"));
+}
+@Transactional
+public VaultItemResponse create(long userId, VaultItemDto input){
+    validate(input);
+    VaultItem item = new VaultItem(entityManager.getReference(User.class, userId), input.getType(), input.getTitle(),
+            input.getTags(), input.getPayload(), reserveVersions(userId, 1), LocalDateTime.now());
+    VaultItem saved = vaultItemRepository.save(item);
+    searchIndex.changed(userId, List.of(saved));
+    readYourWrites.wrote();
+    return new VaultItemResponse(saved);
+}
+@Transactional
+public VaultItemResponse update(long userId, long id, VaultItemDto input){
+    validate(input);
+    VaultItem item = vaultItemRepository.findByIdAndUserIdAndDeletedFalse(id, userId)
+            .orElseThrow(() -> new RuntimeException("Item not found"));
+    item.setType(input.getType());
+    item.setTitle(input.getTitle());
+    item.setTags(input.getTags());
+    item.setPayload(input.getPayload());
+    item.setVersion(reserveVersions(userId, 1));
+    item.setUpdatedAt(LocalDateTime.now());
+    searchIndex.changed(userId, List.of(item));
+    readYourWrites.wrote();
+    return new VaultItemResponse(item);
+}
+// Leaves a tombstone for /sync; VaultTombstoneCompactor removes it later
+@Transactional
+public void delete(long userId, long id){
+    VaultItem item = vaultItemRepository.findByIdAndUserIdAndDeletedFalse(id, userId)
+            .orElseThrow(() -> new RuntimeException("Item not found"));
+    item.setDeleted(true);
+    item.setPayload(null);
+    attachmentService.deleteAll(id);
+    item.setVersion(reserveVersions(userId, 1));
+    item.setUpdatedAt(LocalDateTime.now());
+    searchIndex.changed(userId, List.of(item));
+    readYourWrites.wrote();
+}
+// Everything that changed after the cursor, oldest first. Versions of one user commit in order
+// (they are handed out under the user row lock), so a page never skips a change that commits later.
+@Transactional(readOnly = true)
+public SyncResponse changesSince(long userId, long since, int limit){
+    int pageSize = Math.max(1, Math.min(limit, MAX_SYNC_PAGE_SIZE));
+    if (since > 0 && since < userRepository.vaultCompactedVersion(userId)){
+        return new SyncResponse(List.of(), 0, true, true);
+    }
+    PageRequest page = PageRequest.of(0, pageSize + 1);
+    List<VaultItem> items = since == 0
+            ? vaultItemRepository.findLiveSince(userId, since, page)
+            : vaultItemRepository.findChangesSince(userId, since, page);
+    boolean hasMore = items.size() > pageSize;
+    if (hasMore){
+        items = items.subList(0, pageSize);
+    }
+    long cursor = items.isEmpty() ? since : items.get(items.size() - 1).getVersion();
+    return new SyncResponse(items.stream().map(VaultItemChange::new).toList(), cursor, hasMore, false);
+}
+// Must run inside the writing transaction: returns the first of count fresh versions
+private long reserveVersions(long userId, int count){
+    userRepository.advanceVaultVersion(userId, count);
+    return userRepository.vaultVersion(userId) - count + 1;
+}
+// Reads a JSON array of items straight off the request body and writes it in chunks. Each chunk is
+// one transaction sent as JDBC batches, and the connection is only held while a chunk is written,
+// not while the client is still uploading. A bad item stops the import; earlier chunks stay.
+public int importItems(long userId, InputStream body){
+    int imported = 0;
+    List<VaultItemDto> chunk = new ArrayList<>(importChunkSize);
+    try (JsonParser parser = itemReader.createParser(body)) {
+        if (parser.nextToken() != JsonToken.START_ARRAY){
+            throw new RuntimeException("Expected a JSON array of items");
+        }
+        while (parser.nextToken() == JsonToken.START_OBJECT){
+            VaultItemDto input = itemReader.readValue(parser);
+            try {
+                validate(input);
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Item " + (imported + chunk.size()) + ": " + e.getMessage()
+                        + "; " + imported + " items imported before it");
+            }
+            chunk.add(input);
+            if (chunk.size() == importChunkSize){
+                imported += writeChunk(userId, chunk);
+                chunk.clear();
+            }
+        }
+    } catch (IOException e) {
+        throw new RuntimeException("Malformed import at item " + (imported + chunk.size())
+                + "; " + imported + " items imported before it");
+    }
+    return imported + writeChunk(userId, chunk);
+}
+private int writeChunk(long userId, List<VaultItemDto> chunk){
+    if (chunk.isEmpty()){
+        return 0;
+    }
+    transactionTemplate.executeWithoutResult(status -> {
+        User user = entityManager.getReference(User.class, userId);
+        LocalDateTime now = LocalDateTime.now();
+        long version = reserveVersions(userId, chunk.size());
+        List<VaultItem> items = new ArrayList<>(chunk.size());
+        for (VaultItemDto input : chunk){
+            VaultItem item = new VaultItem(user, input.getType(), input.getTitle(), input.getTags(), input.getPayload(), version++, now);
+            entityManager.persist(item);
+            items.add(item);
+        }
+        searchIndex.changed(userId, items);
+        readYourWrites.wrote();
+        entityManager.flush();
+        entityManager.clear();
+    });
+    return chunk.size();
+}
+private void validate(VaultItemDto input){
+    if (input.getType() == null || input.getTitle() == null || input.getTitle().isBlank()){
+        throw new RuntimeException("Type and title are required");
+    }
+    if (input.getPayload() == null || input.getPayload().length == 0){
+        throw new RuntimeException("Payload is required");
+    }
+    if (input.getPayload().length > maxPayloadBytes){
+        throw new RuntimeException("Payload exceeds " + maxPayloadBytes + " bytes");
+    }
+}
+}
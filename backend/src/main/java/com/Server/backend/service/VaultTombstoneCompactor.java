@@ -0,0 +1,81 @@
+package com.Server.backend.service;
+
+import com.Server.backend.repository.UserRepository;
+import com.Server.backend.repository.VaultItemRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Drops tombstones older than the retention window, one chunk per transaction. Each owner's
+// compacted version is raised first, so a client whose cursor is older is told to resync instead
+// of silently missing the deletes.
+@Component
+public class VaultTombstoneCompactor {
+
+    private static final Logger log = LoggerFactory.getLogger(VaultTombstoneCompactor.class);
+
+    private final VaultItemRepository vaultItemRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Duration retention;
+    private final int batchSize;
+
+    public VaultTombstoneCompactor(
+            VaultItemRepository vaultItemRepository,
+            UserRepository userRepository,
+            TransactionTemplate transactionTemplate,
+            @Value("${vault.tombstones.compaction.enabled:true}") boolean enabled,
+            @Value("${vault.tombstones.retention:P30D}") Duration retention,
+            @Value("${vault.tombstones.batch-size:500}") int batchSize
+    ) {
+        this.vaultItemRepository = vaultItemRepository;
+        this.userRepository = userRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.retention = retention;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${vault.tombstones.interval-ms:3600000}", initialDelayString = "${vault.tombstones.initial-delay-ms:120000}")
+    public void run() {
+        if (!enabled) {
+            return;
+        }
+        int total = compact(LocalDateTime.now().minus(retention));
+        if (total > 0) {
+            log.info("Compacted {} vault tombstones", total);
+        }
+    }
+
+    public int compact(LocalDateTime cutoff) {
+        int total = 0;
+        while (true) {
+            Integer deleted = transactionTemplate.execute(status -> {
+                List<Long> ids = vaultItemRepository.findTombstoneIdsBefore(cutoff, PageRequest.of(0, batchSize));
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+                for (Object[] row : vaultItemRepository.findMaxVersionByUser(ids)) {
+                    userRepository.raiseVaultCompactedVersion((Long) row[0], (Long) row[1]);
+                }
+                return vaultItemRepository.deleteTombstones(ids);
+            });
+            if (deleted == null || deleted == 0) {
+                return total;
+            }
+            total += deleted;
+            if (deleted < batchSize) {
+                return total;
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.Server.backend.service;
+
+import com.Server.backend.model.PendingVerification;
+import com.Server.backend.model.User;
+import com.Server.backend.repository.PendingVerificationRepository;
+import com.Server.backend.util.HashedTimerWheel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Pending verification codes, keyed by email. The pending_verifications table is the source of
+// truth (primary-key lookup, survives restarts and works across nodes); the in-memory map in
+// front of it serves the common case without a read and is expired by a timer wheel.
+@Component
+public class VerificationCodeStore {
+
+    private final PendingVerificationRepository repository;
+    private final Map<String, PendingVerification> pending = new ConcurrentHashMap<>();
+    private final HashedTimerWheel<String> expiryWheel;
+    private final int maximumSize;
+    private final SecureRandom random = new SecureRandom();
+
+    public VerificationCodeStore(
+            PendingVerificationRepository repository,
+            @Value("${verification.store.maximum-size:100000}") int maximumSize
+    ) {
+        this.repository = repository;
+        this.maximumSize = maximumSize;
+        this.expiryWheel = new HashedTimerWheel<>(1000, 4096, System.currentTimeMillis());
+    }
+
+    // Replaces any earlier code for the same user
+    public String issue(User user, Duration ttl) {
+        String code = String.valueOf(random.nextInt(900000) + 100000);
+        PendingVerification entry = new PendingVerification(
+                user.getEmail(), user.getId(), code, LocalDateTime.now().plus(ttl));
+        repository.save(entry);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            pending.remove(entry.getEmail());
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remember(entry);
+                }
+            });
+        } else {
+            remember(entry);
+        }
+        return code;
+    }
+
+    // Falls back to the table when memory has nothing or a different code, since another
+    // node may have issued a newer code for the same email.
+    public Optional<PendingVerification> find(String email, String code) {
+        PendingVerification entry = pending.get(email);
+        if (entry != null && entry.getCode().equals(code)) {
+            return Optional.of(entry);
+        }
+        Optional<PendingVerification> stored = repository.findById(email);
+        stored.ifPresent(this::remember);
+        return stored;
+    }
+
+    public void consume(PendingVerification entry) {
+        pending.remove(entry.getEmail());
+        repository.deleteById(entry.getEmail());
+    }
+
+    public int size() {
+        return pending.size();
+    }
+
+    @Scheduled(fixedDelay = 1000)
+    public void expire() {
+        expire(System.currentTimeMillis());
+    }
+
+    // A timer left behind by a replaced code finds the newer entry and leaves it alone
+    void expire(long nowMillis) {
+        expiryWheel.advance(nowMillis, (email, deadline) ->
+                pending.computeIfPresent(email, (key, entry) -> toMillis(entry.getExpiresAt()) <= deadline ? null : entry));
+    }
+
+    boolean isCached(String email) {
+        return pending.containsKey(email);
+    }
+
+    private void remember(PendingVerification entry) {
+        if (pending.size() >= maximumSize && !pending.containsKey(entry.getEmail())) {
+            return;
+        }
+        pending.put(entry.getEmail(), entry);
+        expiryWheel.schedule(entry.getEmail(), toMillis(entry.getExpiresAt()));
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,34 @@
+package com.Server.backend.service;
+
+import io.jsonwebtoken.Claims;
+
+import java.time.Instant;
+import java.util.Map;
+
+// Immutable view of a token whose signature has already been checked.
+public record VerifiedToken(String subject, Instant issuedAt, Instant expiresAt, Map<String, Object> claims) {
+
+    static VerifiedToken from(Claims claims) {
+        return new VerifiedToken(
+                claims.getSubject(),
+                claims.getIssuedAt() == null ? null : claims.getIssuedAt().toInstant(),
+                claims.getExpiration() == null ? null : claims.getExpiration().toInstant(),
+                Map.copyOf(claims)
+        );
+    }
+
+    // jti, used for revocation
+    public String id() {
+        return get(Claims.ID, String.class);
+    }
+
+    public boolean isExpired(Instant now) {
+        return expiresAt != null && expiresAt.isBefore(now);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(String name, Class<T> type) {
+        Object value = claims.get(name);
+        return type.isInstance(value) ? (T) value : null;
+    }
+}
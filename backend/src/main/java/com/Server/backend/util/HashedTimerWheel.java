@@ -0,0 +1,70 @@
+package com.Server.backend.util;
+
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+
+// Hashed timer wheel: scheduling is O(1) and each advance only touches the buckets for the
+// ticks that elapsed. Deadlines further out than one revolution simply stay in their bucket
+// until the wheel comes round to them again.
+public class HashedTimerWheel<K> {
+
+    private record Timeout<K>(K key, long deadlineTick) {
+    }
+
+    private final long tickMillis;
+    private final int mask;
+    private final Queue<Timeout<K>>[] buckets;
+    // ReentrantLock rather than synchronized so a virtual thread never pins its carrier here
+    private final ReentrantLock advanceLock = new ReentrantLock();
+    private volatile long lastTick;
+
+    @SuppressWarnings("unchecked")
+    public HashedTimerWheel(long tickMillis, int wheelSize, long nowMillis) {
+        if (Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("wheelSize must be a power of two");
+        }
+        this.tickMillis = tickMillis;
+        this.mask = wheelSize - 1;
+        this.buckets = new Queue[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.lastTick = nowMillis / tickMillis;
+    }
+
+    public void schedule(K key, long deadlineMillis) {
+        long deadlineTick = Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis);
+        // An overdue deadline goes into the next bucket the wheel visits instead of waiting a revolution
+        long bucketTick = Math.max(deadlineTick, lastTick + 1);
+        buckets[(int) (bucketTick & mask)].add(new Timeout<>(key, deadlineTick));
+    }
+
+    // Hands every timeout whose deadline has passed to onExpire, together with the deadline in millis
+    public void advance(long nowMillis, BiConsumer<K, Long> onExpire) {
+        advanceLock.lock();
+        try {
+            advanceTo(nowMillis, onExpire);
+        } finally {
+            advanceLock.unlock();
+        }
+    }
+
+    private void advanceTo(long nowMillis, BiConsumer<K, Long> onExpire) {
+        long currentTick = nowMillis / tickMillis;
+        long from = Math.max(lastTick + 1, currentTick - mask);
+        for (long tick = from; tick <= currentTick; tick++) {
+            Iterator<Timeout<K>> it = buckets[(int) (tick & mask)].iterator();
+            while (it.hasNext()) {
+                Timeout<K> timeout = it.next();
+                if (timeout.deadlineTick() <= currentTick) {
+                    it.remove();
+                    onExpire.accept(timeout.key(), timeout.deadlineTick() * tickMillis);
+                }
+            }
+        }
+        lastTick = Math.max(lastTick, currentTick);
+    }
+}
@@ -0,0 +1,245 @@
+package com.Server.backend.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+// In-memory inverted index over values identified by a long id, with prefix lookups on words and
+// exact lookups on tags. Every write appends the value under a new, ever-increasing doc number, so
+// posting lists stay sorted by construction and an update is an append plus one cleared bit.
+// Numbers of replaced or removed values are dropped by compaction once they outnumber the live
+// ones. A query ORs the postings of each prefix into a bit set, ANDs those, and walks the result
+// from the most recently written value down.
+//
+// Writes carry the version of the change and older versions are ignored, so changes may be applied
+// out of order or twice.
+public class InvertedIndex<T> {
+
+    private static final int MIN_COMPACTION = 1024;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, Postings> words = new TreeMap<>();
+    private final Map<String, Postings> tags = new HashMap<>();
+    // Latest doc number per id, live or not
+    private final Map<Long, Integer> docs = new HashMap<>();
+    private long[] ids = new long[64];
+    private long[] versions = new long[64];
+    private Object[] values = new Object[64];
+    private BitSet live = new BitSet();
+    private int next;
+    private int liveCount;
+    private long version;
+
+    public void put(long id, long version, T value, Collection<String> words, Collection<String> tags) {
+        lock.writeLock().lock();
+        try {
+            if (!retire(id, version)) {
+                return;
+            }
+            int doc = append(id, version, value);
+            for (String word : words) {
+                this.words.computeIfAbsent(word, w -> new Postings()).add(doc);
+            }
+            for (String tag : tags) {
+                this.tags.computeIfAbsent(tag, t -> new Postings()).add(doc);
+            }
+            live.set(doc);
+            liveCount++;
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id, long version) {
+        lock.writeLock().lock();
+        try {
+            if (retire(id, version)) {
+                // Kept as a dead doc, so a late put of an older version is still recognised
+                append(id, version, null);
+                compactIfSparse();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Newest first. A value matches when each prefix starts one of its words and it has every tag.
+    @SuppressWarnings("unchecked")
+    public List<T> search(Collection<String> prefixes, Collection<String> tags, Predicate<T> filter, int limit) {
+        lock.readLock().lock();
+        try {
+            BitSet matches = null;
+            for (String tag : tags) {
+                Postings postings = this.tags.get(tag);
+                if (postings == null) {
+                    return List.of();
+                }
+                matches = intersect(matches, postings.bits(next));
+            }
+            for (String prefix : prefixes) {
+                BitSet any = new BitSet(next);
+                for (Postings postings : words.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+                    postings.addTo(any);
+                }
+                matches = intersect(matches, any);
+            }
+            matches = intersect(matches, live);
+            List<T> found = new ArrayList<>(Math.min(limit, 64));
+            for (int doc = matches.previousSetBit(next - 1); doc >= 0 && found.size() < limit; doc = matches.previousSetBit(doc - 1)) {
+                T value = (T) values[doc];
+                if (filter.test(value)) {
+                    found.add(value);
+                }
+            }
+            return found;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Highest version applied so far
+    public long version() {
+        lock.readLock().lock();
+        try {
+            return version;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // False when the index already holds this or a newer version of the id
+    private boolean retire(long id, long version) {
+        Integer doc = docs.get(id);
+        if (doc != null) {
+            if (versions[doc] >= version) {
+                return false;
+            }
+            if (live.get(doc)) {
+                live.clear(doc);
+                liveCount--;
+            }
+        }
+        this.version = Math.max(this.version, version);
+        return true;
+    }
+
+    private int append(long id, long version, T value) {
+        if (next == ids.length) {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            versions = Arrays.copyOf(versions, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        int doc = next++;
+        ids[doc] = id;
+        versions[doc] = version;
+        values[doc] = value;
+        docs.put(id, doc);
+        return doc;
+    }
+
+    private void compactIfSparse() {
+        int dead = next - liveCount;
+        if (dead < MIN_COMPACTION || dead < liveCount) {
+            return;
+        }
+        int[] renumbered = new int[next];
+        int kept = 0;
+        for (int doc = 0; doc < next; doc++) {
+            renumbered[doc] = live.get(doc) ? kept++ : -1;
+        }
+        compact(words.values().iterator(), renumbered);
+        compact(tags.values().iterator(), renumbered);
+        long[] keptIds = new long[Math.max(64, kept * 2)];
+        long[] keptVersions = new long[keptIds.length];
+        Object[] keptValues = new Object[keptIds.length];
+        docs.clear();
+        for (int doc = 0; doc < next; doc++) {
+            int target = renumbered[doc];
+            if (target >= 0) {
+                keptIds[target] = ids[doc];
+                keptVersions[target] = versions[doc];
+                keptValues[target] = values[doc];
+                docs.put(ids[doc], target);
+            }
+        }
+        ids = keptIds;
+        versions = keptVersions;
+        values = keptValues;
+        live = new BitSet(kept);
+        live.set(0, kept);
+        next = kept;
+    }
+
+    private static void compact(Iterator<Postings> postings, int[] renumbered) {
+        while (postings.hasNext()) {
+            Postings list = postings.next();
+            list.renumber(renumbered);
+            if (list.size == 0) {
+                postings.remove();
+            }
+        }
+    }
+
+    private static BitSet intersect(BitSet matches, BitSet other) {
+        if (matches == null) {
+            return (BitSet) other.clone();
+        }
+        matches.and(other);
+        return matches;
+    }
+
+    // Ascending doc numbers; may still hold numbers of dead docs until the next compaction
+    private static final class Postings {
+        private int[] docs = new int[4];
+        private int size;
+
+        void add(int doc) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            docs[size++] = doc;
+        }
+
+        void addTo(BitSet bits) {
+            for (int i = 0; i < size; i++) {
+                bits.set(docs[i]);
+            }
+        }
+
+        BitSet bits(int capacity) {
+            BitSet bits = new BitSet(capacity);
+            addTo(bits);
+            return bits;
+        }
+
+        void renumber(int[] renumbered) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int doc = renumbered[docs[i]];
+                if (doc >= 0) {
+                    docs[kept++] = doc;
+                }
+            }
+            size = kept;
+        }
+    }
+}
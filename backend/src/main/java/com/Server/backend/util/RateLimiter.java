@@ -0,0 +1,54 @@
+package com.Server.backend.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Token bucket in its GCRA form: each key is a single AtomicLong holding the theoretical arrival
+// time of the next request, updated with one CAS, so there are no locks on the hot path.
+// Keys idle for longer than a full refill are evicted, and the key count is capped.
+public class RateLimiter {
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final long origin = System.nanoTime();
+    private final Cache<String, AtomicLong> buckets;
+
+    // Allows bursts of `burst` requests, refilling one token every `refillEvery`
+    public RateLimiter(int burst, Duration refillEvery, long maximumKeys) {
+        this.intervalNanos = refillEvery.toNanos();
+        this.toleranceNanos = intervalNanos * (burst - 1);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maximumKeys)
+                .expireAfterAccess(intervalNanos * burst, TimeUnit.NANOSECONDS)
+                .build();
+    }
+
+    // Returns 0 if a token was taken, otherwise how long until one is available
+    public long tryAcquire(String key) {
+        return tryAcquire(key, System.nanoTime() - origin);
+    }
+
+    // now is in nanoseconds since the limiter was created
+    long tryAcquire(String key, long now) {
+        AtomicLong arrival = buckets.get(key, k -> new AtomicLong());
+        while (true) {
+            long current = arrival.get();
+            long base = Math.max(current, now);
+            long waitNanos = base - toleranceNanos - now;
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (arrival.compareAndSet(current, base + intervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    public long size() {
+        return buckets.estimatedSize();
+    }
+}
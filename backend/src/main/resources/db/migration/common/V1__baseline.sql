@@ -0,0 +1,19 @@
+-- The schema as Hibernate's ddl-auto=update created it before migrations were introduced: the
+-- original users table, verification code columns included. Databases built that way are baselined
+-- at this version instead of running it (spring.flyway.baseline-on-migrate); everything added since
+-- comes from the later versions, so they run on those databases as well.
+
+create sequence users_seq start with 1 increment by 50;
+
+create table users (
+    id bigint not null,
+    username varchar(255) not null,
+    email varchar(255) not null,
+    password varchar(255) not null,
+    enabled boolean not null,
+    verification_code varchar(255),
+    verification_expiration timestamp(6),
+    primary key (id),
+    constraint uk_users_username unique (username),
+    constraint uk_users_email unique (email)
+);
@@ -0,0 +1,20 @@
+-- Verification mail is queued here in the signup transaction and sent by EmailOutboxDispatcher.
+-- A dispatcher claims a row by setting it to SENDING with next_attempt_at as the end of its lease;
+-- a row still SENDING after that is claimed again.
+
+create sequence email_outbox_seq start with 1 increment by 50;
+
+create table email_outbox (
+    id bigint not null,
+    recipient varchar(255) not null,
+    subject varchar(255) not null,
+    body text not null,
+    status varchar(16) not null check (status in ('PENDING', 'SENDING', 'SENT', 'FAILED')),
+    attempts integer not null,
+    created_at timestamp(6) not null,
+    next_attempt_at timestamp(6) not null,
+    sent_at timestamp(6),
+    last_error varchar(1000),
+    primary key (id)
+);
+create index idx_email_outbox_status_next_attempt on email_outbox (status, next_attempt_at);
@@ -0,0 +1,28 @@
+-- Verification codes move out of users into their own expiring table. The purge of abandoned
+-- signups asks, per unverified user, whether a code is still inside the grace window; with
+-- expires_at in the (user_id, expires_at) index that is answered from the index alone.
+
+create table pending_verifications (
+    email varchar(255) not null,
+    user_id bigint not null,
+    code varchar(16) not null,
+    expires_at timestamp(6) not null,
+    primary key (email)
+);
+create index idx_pending_verifications_expires_at on pending_verifications (expires_at);
+create index idx_pending_verifications_user_id_expires_at on pending_verifications (user_id, expires_at);
+
+-- Codes of accounts still unverified carry over with their original expiry. One without a code gets
+-- a row that expires now: it can never verify, and the purge grace period counts from the upgrade.
+insert into pending_verifications (email, user_id, code, expires_at)
+select u.email, u.id, coalesce(substring(u.verification_code, 1, 16), ''), coalesce(u.verification_expiration, localtimestamp)
+from users u
+where u.enabled = false;
+
+alter table users drop column verification_code;
+alter table users drop column verification_expiration;
+
+-- enabled can later be switched off for an account that did verify; only verified_at tells the purge
+-- which accounts never did. Until now every enabled account was a verified one.
+alter table users add column verified_at timestamp(6);
+update users set verified_at = localtimestamp where enabled = true;
@@ -0,0 +1,32 @@
+-- Rotating refresh tokens (hashed) and the revocation log the in-memory filters are built from
+
+create sequence refresh_tokens_seq start with 1 increment by 50;
+create sequence token_revocations_seq start with 1 increment by 50;
+
+create table refresh_tokens (
+    id bigint not null,
+    token_hash varchar(64) not null,
+    family_id varchar(36) not null,
+    user_id bigint not null,
+    email varchar(255) not null,
+    expires_at timestamp(6) not null,
+    used boolean not null,
+    revoked boolean not null,
+    primary key (id),
+    constraint uk_refresh_tokens_token_hash unique (token_hash)
+);
+create index idx_refresh_tokens_family on refresh_tokens (family_id);
+create index idx_refresh_tokens_user_id on refresh_tokens (user_id);
+create index idx_refresh_tokens_expires_at on refresh_tokens (expires_at);
+
+create table token_revocations (
+    id bigint not null,
+    kind varchar(8) not null check (kind in ('TOKEN', 'USER')),
+    revoked_value varchar(255) not null,
+    created_at timestamp(6) not null,
+    expires_at timestamp(6) not null,
+    primary key (id)
+);
+create index idx_token_revocations_kind_value on token_revocations (kind, revoked_value);
+create index idx_token_revocations_expires_at on token_revocations (expires_at);
+create index idx_token_revocations_created_at on token_revocations (created_at);
@@ -0,0 +1,15 @@
+-- ES256 key ring for access tokens, published at /.well-known/jwks.json. private_key is the PKCS#8
+-- key sealed with AES-GCM under security.jwt.keys.encryption-key (12-byte nonce, then ciphertext and
+-- tag; the kid is the associated data), so reading the table does not yield a usable key.
+
+create table signing_keys (
+    kid varchar(36) not null,
+    algorithm varchar(16) not null,
+    public_key bytea not null,
+    private_key bytea not null,
+    created_at timestamp(6) not null,
+    activates_at timestamp(6) not null,
+    retires_at timestamp(6) not null,
+    primary key (kid)
+);
+create index idx_signing_keys_retires_at on signing_keys (retires_at);
@@ -0,0 +1,25 @@
+-- Vault items with client-encrypted payloads; deletes stay as tombstones for /sync, which reads
+-- changes by the per-user version handed out from users.vault_version
+
+create sequence vault_item_seq start with 1 increment by 50;
+
+alter table users add column vault_version bigint default 0 not null;
+alter table users add column vault_compacted_version bigint default 0 not null;
+
+create table vault_items (
+    id bigint not null,
+    user_id bigint not null,
+    type varchar(16) not null check (type in ('PROJECT', 'CREDENTIAL', 'NOTE')),
+    title varchar(255) not null,
+    tags varchar(512),
+    payload bytea,
+    version bigint not null,
+    deleted boolean not null,
+    created_at timestamp(6) not null,
+    updated_at timestamp(6) not null,
+    primary key (id),
+    constraint fk_vault_items_user foreign key (user_id) references users
+);
+create index idx_vault_items_user_id_id on vault_items (user_id, id);
+create index idx_vault_items_user_id_version on vault_items (user_id, version);
+create index idx_vault_items_deleted_updated_at on vault_items (deleted, updated_at);
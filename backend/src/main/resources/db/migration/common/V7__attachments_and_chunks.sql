@@ -0,0 +1,29 @@
+-- Attachments are lists of chunk hashes; each sealed chunk is stored once and reference counted
+
+create sequence attachment_seq start with 1 increment by 50;
+
+create table chunks (
+    hash varchar(64) not null,
+    size integer not null,
+    ref_count integer not null,
+    unreferenced_since timestamp(6),
+    created_at timestamp(6) not null,
+    primary key (hash)
+);
+create index idx_chunks_unreferenced_since on chunks (unreferenced_since);
+
+create table attachments (
+    id bigint not null,
+    vault_item_id bigint not null,
+    user_id bigint not null,
+    name varchar(255) not null,
+    content_type varchar(255) not null,
+    size bigint not null,
+    chunk_size integer not null,
+    sha256 varchar(64) not null,
+    chunk_hashes bytea not null,
+    created_at timestamp(6) not null,
+    primary key (id),
+    constraint fk_attachments_vault_item foreign key (vault_item_id) references vault_items
+);
+create index idx_attachments_vault_item_id on attachments (vault_item_id);
@@ -0,0 +1,2 @@
+-- H2 has no partial indexes; this stands in for the PostgreSQL one so plans can be tested
+create index idx_users_unverified on users (verified_at, id);
@@ -0,0 +1,17 @@
+-- Built without blocking writes. CONCURRENTLY cannot run inside a transaction, so Flyway runs this
+-- script without one; it waits for every transaction open on the table, which is why Flyway's own
+-- lock must not be a transaction (spring.flyway.postgresql.transactional-lock=false). A concurrent
+-- build that fails leaves an INVALID index behind, so each one is dropped first and rebuilt on retry.
+
+-- Unverified accounts are a small, short-lived slice of users; the purge walks them in id order
+drop index concurrently if exists idx_users_unverified;
+create index concurrently idx_users_unverified on users (id) where verified_at is null;
+
+-- Full-text search over vault metadata for vaults whose in-memory index is not built yet
+drop index concurrently if exists idx_vault_items_search;
+create index concurrently idx_vault_items_search on vault_items
+    using gin (to_tsvector('simple', title || ' ' || coalesce(tags, '')));
+
+-- Bulk provisioning checks for existing accounts case-insensitively (lower(email) in (...))
+drop index concurrently if exists idx_users_email_lower;
+create index concurrently idx_users_email_lower on users (lower(email));
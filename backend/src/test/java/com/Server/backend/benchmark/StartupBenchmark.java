@@ -0,0 +1,187 @@
+package com.Server.backend.benchmark;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Cold start of the packaged application, one fresh JVM per run: plain, with the fast-startup profile
+// (lazy beans, no schema inspection), on the AOT build, and with the CDS archive on top. Reports the
+// JVM's own "process running for" at ApplicationReadyEvent and the wall time until the first request
+// (GET /.well-known/jwks.json, through the security filters) is answered.
+// An H2 file database stands in for Postgres, so the archive is trained here on that classpath.
+// mvn -Pfast-startup package -DskipTests -Dcds.training.skip=true
+// mvn -Pbenchmark test -Dtest=StartupBenchmark [-Dbench.runs=10]
+@Tag("benchmark")
+class StartupBenchmark {
+
+	private static final int RUNS = Integer.getInteger("bench.runs", 5);
+	private static final Path APP = Path.of("target/fast-startup").toAbsolutePath();
+	private static final Path WORK = Path.of("target/startup-benchmark").toAbsolutePath();
+	private static final String ENCRYPTION_KEY = "YmVuY2gtb25seS1zaWduaW5nLWtleS1zZWFsLWtleSE=";
+	private static final Pattern STARTED = Pattern.compile("Started BackendApplication in \\S+ seconds \\(process running for (\\S+)\\)");
+
+	private record Mode(String name, List<String> jvmArgs, List<String> appArgs) {
+	}
+
+	private record Sample(double started, double firstResponse) {
+	}
+
+	@Test
+	void compareStartupModes() throws Exception {
+		Assumptions.assumeTrue(Files.exists(APP.resolve("backend.jar")),
+				"run mvn -Pfast-startup package -DskipTests -Dcds.training.skip=true first");
+		Files.createDirectories(WORK);
+		Path archive = WORK.resolve("backend-h2.jsa");
+		// The training start also migrates the fresh database the measured runs start against
+		Files.deleteIfExists(WORK.resolve("db.mv.db"));
+		train(archive);
+
+		List<String> fastStartup = List.of("--spring.profiles.active=fast-startup");
+		List<Mode> modes = List.of(
+				new Mode("default", List.of(), List.of()),
+				new Mode("lazy", List.of(), fastStartup),
+				new Mode("aot+lazy", List.of("-Dspring.aot.enabled=true"), fastStartup),
+				new Mode("aot+lazy+cds", List.of("-Dspring.aot.enabled=true", "-XX:SharedArchiveFile=" + archive), fastStartup));
+		List<double[]> results = new ArrayList<>();
+		for (Mode mode : modes) {
+			start(mode);
+			double[] started = new double[RUNS];
+			double[] firstResponse = new double[RUNS];
+			for (int i = 0; i < RUNS; i++) {
+				Sample sample = start(mode);
+				started[i] = sample.started();
+				firstResponse[i] = sample.firstResponse();
+			}
+			results.add(new double[]{median(started), min(started), median(firstResponse), min(firstResponse)});
+		}
+		System.out.printf("%n%-14s %12s %10s %14s %10s   (seconds, %d runs each after one warm-up run)%n",
+				"mode", "started p50", "min", "1st resp p50", "min", RUNS);
+		for (int i = 0; i < modes.size(); i++) {
+			double[] r = results.get(i);
+			System.out.printf("%-14s %12.3f %10.3f %14.3f %10.3f%n", modes.get(i).name(), r[0], r[1], r[2], r[3]);
+		}
+	}
+
+	private void train(Path archive) throws Exception {
+		Files.deleteIfExists(archive);
+		List<String> command = command(List.of("-XX:ArchiveClassesAtExit=" + archive, "-Dspring.aot.enabled=true",
+				"-Dspring.context.exit=onRefresh"), List.of("--spring.profiles.active=fast-startup"), freePort());
+		Process process = new ProcessBuilder(command).directory(APP.toFile()).redirectErrorStream(true)
+				.redirectOutput(WORK.resolve("training.log").toFile()).start();
+		if (!process.waitFor(5, TimeUnit.MINUTES) || process.exitValue() != 0 || !Files.exists(archive)) {
+			process.destroyForcibly();
+			throw new IllegalStateException("Training run failed, see " + WORK.resolve("training.log"));
+		}
+	}
+
+	private Sample start(Mode mode) throws Exception {
+		int port = freePort();
+		long begin = System.nanoTime();
+		Process process = new ProcessBuilder(command(mode.jvmArgs(), mode.appArgs(), port))
+				.directory(APP.toFile()).redirectErrorStream(true).start();
+		try {
+			CompletableFuture<Double> started = new CompletableFuture<>();
+			Thread.ofPlatform().daemon().start(() -> readStarted(process, started));
+			HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+			HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/.well-known/jwks.json")).build();
+			long deadline = begin + TimeUnit.MINUTES.toNanos(2);
+			while (true) {
+				if (!process.isAlive() || System.nanoTime() > deadline) {
+					throw new IllegalStateException(mode.name() + " did not come up: " + started.getNow(null));
+				}
+				try {
+					if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+						break;
+					}
+				} catch (IOException e) {
+					// not listening yet
+				}
+				Thread.sleep(5);
+			}
+			double firstResponse = (System.nanoTime() - begin) / 1e9;
+			return new Sample(started.get(30, TimeUnit.SECONDS), firstResponse);
+		} finally {
+			process.destroy();
+			if (!process.waitFor(30, TimeUnit.SECONDS)) {
+				process.destroyForcibly();
+			}
+		}
+	}
+
+	// Keeps draining the output so the child never blocks on a full pipe
+	private static void readStarted(Process process, CompletableFuture<Double> started) {
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				Matcher matcher = STARTED.matcher(line);
+				if (matcher.find()) {
+					started.complete(Double.parseDouble(matcher.group(1)));
+				}
+			}
+		} catch (IOException e) {
+			// process went away
+		}
+		started.complete(null);
+	}
+
+	// H2 goes after the application's own classpath, as the archive requires of later runs
+	private static List<String> command(List<String> jvmArgs, List<String> appArgs, int port) throws Exception {
+		String h2 = Path.of(org.h2.Driver.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+		List<String> command = new ArrayList<>();
+		command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+		command.addAll(jvmArgs);
+		command.addAll(List.of("-cp", "backend.jar" + File.pathSeparator + h2, "com.Server.backend.BackendApplication",
+				"--server.port=" + port,
+				"--management.server.port=0",
+				"--spring.datasource.url=jdbc:h2:file:" + WORK.resolve("db") + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+				"--spring.datasource.username=sa",
+				"--spring.datasource.password=",
+				"--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+				"--spring.mail.username=bench@devvault.local",
+				"--spring.mail.password=bench",
+				"--mail.outbox.dispatcher.enabled=false",
+				"--security.jwt.keys.encryption-key=" + ENCRYPTION_KEY,
+				"--vault.attachments.dir=" + WORK.resolve("attachments"),
+				"--logging.level.root=WARN",
+				"--logging.level.com.Server.backend.BackendApplication=INFO"));
+		command.addAll(appArgs);
+		return command;
+	}
+
+	private static int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+
+	private static double median(double[] values) {
+		double[] sorted = values.clone();
+		Arrays.sort(sorted);
+		return sorted[sorted.length / 2];
+	}
+
+	private static double min(double[] values) {
+		return Arrays.stream(values).min().orElse(Double.NaN);
+	}
+}
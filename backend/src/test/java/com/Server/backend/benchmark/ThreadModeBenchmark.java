@@ -0,0 +1,141 @@
+package com.Server.backend.benchmark;
+
+import com.Server.backend.BackendApplication;
+import com.Server.backend.model.User;
+import com.Server.backend.model.UserPrincipal;
+import com.Server.backend.repository.UserRepository;
+import com.Server.backend.service.JwtService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Platform vs virtual request threads under the same client load.
+// mvn -Pbenchmark test [-Dbench.clients=512 -Dbench.seconds=15]
+@Tag("benchmark")
+class ThreadModeBenchmark {
+
+	private static final int CLIENTS = Integer.getInteger("bench.clients", 256);
+	private static final Duration WARMUP = Duration.ofSeconds(Integer.getInteger("bench.warmup-seconds", 3));
+	private static final Duration MEASURE = Duration.ofSeconds(Integer.getInteger("bench.seconds", 10));
+	private static final String PATH = System.getProperty("bench.path", "/users/?limit=50");
+
+	@Test
+	void compareThreadModes() throws Exception {
+		Result platform = run(false);
+		Result virtual = run(true);
+		System.out.printf("%n%-10s %10s %10s %10s %10s %8s%n", "mode", "req/s", "p50 ms", "p99 ms", "max ms", "errors");
+		platform.print("platform");
+		virtual.print("virtual");
+	}
+
+	private Result run(boolean virtualThreads) throws Exception {
+		String mode = virtualThreads ? "virtual" : "platform";
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BackendApplication.class)
+				.profiles(virtualThreads ? "virtual" : "default")
+				.properties(
+						"server.port=0",
+						"spring.datasource.url=jdbc:h2:mem:bench-" + mode + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+						"server.tomcat.threads.max=64",
+						"spring.datasource.hikari.maximum-pool-size=20",
+						"logging.level.root=WARN")
+				.run()) {
+			int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+			String token = seed(context);
+			HttpClient client = HttpClient.newBuilder()
+					.version(HttpClient.Version.HTTP_1_1)
+					.executor(Executors.newVirtualThreadPerTaskExecutor())
+					.build();
+			HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + PATH))
+					.header("Authorization", "Bearer " + token)
+					.build();
+			drive(client, request, WARMUP);
+			return drive(client, request, MEASURE);
+		}
+	}
+
+	private String seed(ConfigurableApplicationContext context) {
+		UserRepository users = context.getBean(UserRepository.class);
+		PasswordEncoder encoder = context.getBean(PasswordEncoder.class);
+		String hash = encoder.encode("password");
+		User caller = null;
+		for (int i = 0; i < 500; i++) {
+			User user = new User("bench" + i, hash, "bench" + i + "@devvault.local");
+			user.setEnabled(true);
+			user.setVerifiedAt(LocalDateTime.now());
+			user = users.save(user);
+			if (caller == null) {
+				caller = user;
+			}
+		}
+		return context.getBean(JwtService.class).generateToken(UserPrincipal.of(caller));
+	}
+
+	private Result drive(HttpClient client, HttpRequest request, Duration duration) throws Exception {
+		long deadline = System.nanoTime() + duration.toNanos();
+		List<Future<long[]>> workers = new ArrayList<>();
+		long[] errors = new long[1];
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int i = 0; i < CLIENTS; i++) {
+				workers.add(executor.submit(() -> {
+					long[] samples = new long[1024];
+					int count = 0;
+					while (System.nanoTime() < deadline) {
+						long start = System.nanoTime();
+						HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+						long elapsed = System.nanoTime() - start;
+						if (response.statusCode() != 200) {
+							synchronized (errors) {
+								errors[0]++;
+							}
+							continue;
+						}
+						if (count == samples.length) {
+							samples = Arrays.copyOf(samples, count * 2);
+						}
+						samples[count++] = elapsed;
+					}
+					return Arrays.copyOf(samples, count);
+				}));
+			}
+		}
+		List<long[]> all = new ArrayList<>();
+		for (Future<long[]> worker : workers) {
+			all.add(worker.get());
+		}
+		long[] latencies = all.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+		return new Result(latencies, errors[0], duration);
+	}
+
+	private record Result(long[] sortedLatencies, long errors, Duration duration) {
+
+		double percentileMillis(double percentile) {
+			if (sortedLatencies.length == 0) {
+				return 0;
+			}
+			int index = (int) Math.min(sortedLatencies.length - 1, Math.ceil(percentile / 100 * sortedLatencies.length) - 1);
+			return sortedLatencies[Math.max(index, 0)] / 1_000_000.0;
+		}
+
+		void print(String mode) {
+			double throughput = sortedLatencies.length / (duration.toMillis() / 1000.0);
+			System.out.printf("%-10s %10.0f %10.2f %10.2f %10.2f %8d%n", mode, throughput,
+					percentileMillis(50), percentileMillis(99), percentileMillis(100), errors);
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package com.Server.backend.config;
+
+import com.Server.backend.dto.LoginUserDto;
+import com.Server.backend.service.AuthenticationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Tests export no metrics unless asked to
+@AutoConfigureObservability(tracing = false)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"management.server.address=127.0.0.1",
+		"management.endpoints.web.exposure.include=health,prometheus"
+})
+class MetricsTests {
+
+	private final HttpClient client = HttpClient.newHttpClient();
+
+	@LocalServerPort
+	private int port;
+
+	@LocalManagementPort
+	private int managementPort;
+
+	@Autowired
+	private AuthenticationService authenticationService;
+
+	// Port 0 for both would count as the same port; also, requests are told apart by their local port
+	@DynamicPropertySource
+	static void managementPort(DynamicPropertyRegistry registry) throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			int free = socket.getLocalPort();
+			registry.add("management.server.port", () -> free);
+		}
+	}
+
+	@Test
+	void actuatorIsOnlyServedOnTheManagementPort() throws Exception {
+		assertNotEquals(200, get(port, "/actuator/prometheus", null).statusCode());
+		assertNotEquals(200, get(port, "/actuator/health", null).statusCode());
+		assertEquals(200, get(managementPort, "/actuator/health", null).statusCode());
+		assertEquals(200, get(managementPort, "/actuator/prometheus", null).statusCode());
+	}
+
+	@Test
+	void ownMetersAreScraped() throws Exception {
+		// @Timed timers and the tagged rejection counter appear once something was recorded
+		LoginUserDto login = new LoginUserDto();
+		login.setEmail("metrics-nobody@devvault.local");
+		login.setPassword("secret");
+		assertThrows(RuntimeException.class, () -> authenticationService.authenticate(login));
+		get(port, "/users/me", "Bearer not-a-token");
+
+		String scrape = get(managementPort, "/actuator/prometheus", null).body();
+		for (String meter : List.of(
+				"auth_authenticate_seconds_count",
+				"auth_jwt_rejected_total",
+				"auth_jwt_verify_seconds_count",
+				"auth_jwt_filter_seconds_count",
+				"auth_cache_requests_total",
+				"auth_password_hash_seconds_count",
+				"auth_password_queue_size",
+				"auth_verification_pending",
+				"mail_outbox_depth",
+				"hikaricp_connections",
+				"http_server_requests_seconds_count")) {
+			assertTrue(scrape.lines().anyMatch(line -> line.startsWith(meter + "{") || line.startsWith(meter + " ")), meter);
+		}
+	}
+
+	private HttpResponse<String> get(int port, String path, String authorization) throws Exception {
+		HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + path));
+		if (authorization != null) {
+			request.header("Authorization", authorization);
+		}
+		return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+	}
+}
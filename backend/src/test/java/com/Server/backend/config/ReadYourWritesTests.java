@@ -0,0 +1,103 @@
+package com.Server.backend.config;
+
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReadYourWritesTests {
+
+	private static final String KEY = "dGVzdC1vbmx5LXJlYWQteW91ci13cml0ZXMta2V5LTMyYg==";
+	private static final String OTHER_KEY = "YW5vdGhlci1kZXBsb3ltZW50cy1yZWFkLXlvdXItd3JpdGVz";
+
+	@AfterEach
+	void unbind() {
+		RequestContextHolder.resetRequestAttributes();
+	}
+
+	@Test
+	void anotherNodeHonoursTheMarkerOfTheWriter() {
+		ReadYourWrites writer = new ReadYourWrites(Duration.ofMinutes(1), 100, KEY);
+		ReadYourWrites otherNode = new ReadYourWrites(Duration.ofMinutes(1), 100, KEY);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest(), response));
+		writer.wrote("writer@devvault.local");
+		String marker = response.getHeader(ReadYourWrites.MARKER);
+		assertNotNull(marker);
+		assertNotNull(response.getCookie("read_your_writes"));
+
+		// nothing sent back: only the writing node knows
+		request(null);
+		assertTrue(writer.readingFor("writer@devvault.local", writer::mustReadPrimary));
+		assertFalse(otherNode.readingFor("writer@devvault.local", otherNode::mustReadPrimary));
+
+		request(marker);
+		assertTrue(otherNode.readingFor("writer@devvault.local", otherNode::mustReadPrimary));
+		// signed for one reader only
+		assertFalse(otherNode.readingFor("someone@devvault.local", otherNode::mustReadPrimary));
+
+		request(null).setCookies(new Cookie("read_your_writes", marker));
+		assertTrue(otherNode.readingFor("writer@devvault.local", otherNode::mustReadPrimary));
+	}
+
+	@Test
+	void forgedOrExpiredMarkersAreIgnored() {
+		// never wrote anything itself, so only a marker could keep it on the primary
+		ReadYourWrites reader = new ReadYourWrites(Duration.ofMinutes(1), 100, KEY);
+
+		request(markerFrom(new ReadYourWrites(Duration.ofMinutes(1), 100, OTHER_KEY)));
+		assertFalse(reader.readingFor("writer@devvault.local", reader::mustReadPrimary));
+
+		// a later end of window under the original signature
+		String marker = markerFrom(new ReadYourWrites(Duration.ofMinutes(1), 100, KEY));
+		int dot = marker.indexOf('.');
+		request((Long.parseLong(marker.substring(0, dot)) + 3_600_000) + marker.substring(dot));
+		assertFalse(reader.readingFor("writer@devvault.local", reader::mustReadPrimary));
+
+		request(markerFrom(new ReadYourWrites(Duration.ZERO, 100, KEY)));
+		assertFalse(reader.readingFor("writer@devvault.local", reader::mustReadPrimary));
+
+		request(marker);
+		assertTrue(reader.readingFor("writer@devvault.local", reader::mustReadPrimary));
+	}
+
+	@Test
+	void withoutAReplicaItNeedsNoKeyAndMarksNothing() {
+		ReadYourWrites unrouted = new ReadYourWrites(Duration.ofMinutes(1), 100, "", "");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest(), response));
+		unrouted.wrote("writer@devvault.local");
+		assertNull(response.getHeader(ReadYourWrites.MARKER));
+		assertFalse(unrouted.readingFor("writer@devvault.local", unrouted::mustReadPrimary));
+
+		assertThrows(IllegalArgumentException.class,
+				() -> new ReadYourWrites(Duration.ofMinutes(1), 100, "jdbc:h2:mem:replica", ""));
+	}
+
+	private static String markerFrom(ReadYourWrites node) {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest(), response));
+		node.wrote("writer@devvault.local");
+		return response.getHeader(ReadYourWrites.MARKER);
+	}
+
+	private static MockHttpServletRequest request(String marker) {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		if (marker != null) {
+			request.addHeader(ReadYourWrites.MARKER, marker);
+		}
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, new MockHttpServletResponse()));
+		return request;
+	}
+}
@@ -0,0 +1,224 @@
+package com.Server.backend.controller;
+
+import com.Server.backend.model.User;
+import com.Server.backend.model.UserPrincipal;
+import com.Server.backend.repository.AttachmentRepository;
+import com.Server.backend.repository.ChunkRepository;
+import com.Server.backend.repository.UserRepository;
+import com.Server.backend.service.ChunkStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class AttachmentTests {
+
+	private static final int CHUNK_SIZE = 4096;
+	private static final int SEALED_CHUNK = CHUNK_SIZE + 16;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private AttachmentRepository attachmentRepository;
+
+	@Autowired
+	private ChunkRepository chunkRepository;
+
+	@Autowired
+	private ChunkStore chunkStore;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void uploadsSealedChunksAndServesByteRanges() throws Exception {
+		UserPrincipal owner = UserPrincipal.of(userRepository.save(new User("files", "x", "files@devvault.local")));
+		long itemId = objectMapper.readTree(mockMvc.perform(post("/vault/items").with(user(owner))
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"type\":\"NOTE\",\"title\":\"certificate\",\"payload\":\"AAEC\"}"))
+				.andReturn().getResponse().getContentAsString()).get("id").asLong();
+
+		byte[] plaintext = new byte[CHUNK_SIZE * 2 + 1000];
+		new Random(7).nextBytes(plaintext);
+		SecretKey key = KeyGenerator.getInstance("AES").generateKey();
+		byte[] sealed = seal(key, plaintext);
+
+		String uploaded = mockMvc.perform(post("/vault/items/" + itemId + "/attachments").with(user(owner))
+						.param("name", "cert.pdf")
+						.header("X-Chunk-Size", CHUNK_SIZE)
+						.contentType(MediaType.APPLICATION_OCTET_STREAM)
+						.content(sealed))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		long id = objectMapper.readTree(uploaded).get("id").asLong();
+		String path = "/vault/items/" + itemId + "/attachments/" + id;
+
+		byte[] whole = mockMvc.perform(get(path).with(user(owner)))
+				.andExpect(status().isOk())
+				.andExpect(header().string("Accept-Ranges", "bytes"))
+				.andReturn().getResponse().getContentAsByteArray();
+		assertArrayEquals(sealed, whole);
+
+		// the second sealed chunk alone decrypts to the second plaintext chunk
+		byte[] second = mockMvc.perform(get(path).with(user(owner))
+						.header("Range", "bytes=" + SEALED_CHUNK + "-" + (2 * SEALED_CHUNK - 1)))
+				.andExpect(status().isPartialContent())
+				.andExpect(header().string("Content-Range", "bytes " + SEALED_CHUNK + "-" + (2 * SEALED_CHUNK - 1) + "/" + sealed.length))
+				.andReturn().getResponse().getContentAsByteArray();
+		assertArrayEquals(Arrays.copyOfRange(plaintext, CHUNK_SIZE, 2 * CHUNK_SIZE), open(key, 1, second));
+
+		mockMvc.perform(get(path).with(user(owner)).header("Range", "bytes=" + sealed.length + "-"))
+				.andExpect(status().isRequestedRangeNotSatisfiable());
+
+		mockMvc.perform(post("/vault/items/" + itemId + "/attachments").with(user(owner))
+						.param("name", "torn.bin")
+						.header("X-Chunk-Size", CHUNK_SIZE)
+						.contentType(MediaType.APPLICATION_OCTET_STREAM)
+						.content(Arrays.copyOf(sealed, SEALED_CHUNK + 3)))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void storesIdenticalChunksOnceAndCollectsThemWhenUnreferenced() throws Exception {
+		UserPrincipal owner = UserPrincipal.of(userRepository.save(new User("dedup", "x", "dedup@devvault.local")));
+		long first = createItem(owner, "first");
+		long second = createItem(owner, "second");
+
+		// a convergent client seals the same file to the same bytes; the last two chunks repeat the first
+		byte[] plaintext = new byte[CHUNK_SIZE * 4];
+		new Random(11).nextBytes(plaintext);
+		System.arraycopy(plaintext, 0, plaintext, 2 * CHUNK_SIZE, 2 * CHUNK_SIZE);
+		byte[] chunk = Arrays.copyOf(plaintext, CHUNK_SIZE);
+		SecretKey key = KeyGenerator.getInstance("AES").generateKey();
+		byte[] sealed = new byte[4 * SEALED_CHUNK];
+		for (int i = 0; i < 4; i++) {
+			Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+			cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(128, nonce(i % 2)));
+			System.arraycopy(cipher.doFinal(plaintext, i * CHUNK_SIZE, CHUNK_SIZE), 0, sealed, i * SEALED_CHUNK, SEALED_CHUNK);
+		}
+
+		long a = upload(owner, first, sealed);
+		long b = upload(owner, second, sealed);
+		byte[] hashes = attachmentRepository.findById(a).orElseThrow().getChunkHashes();
+		List<String> distinct = ChunkStore.distinct(hashes);
+		assertEquals(4, ChunkStore.chunkCount(hashes));
+		assertEquals(2, distinct.size());
+		for (String hash : distinct) {
+			assertEquals(2, chunkRepository.findById(hash).orElseThrow().getRefCount());
+		}
+
+		byte[] whole = mockMvc.perform(get("/vault/items/" + second + "/attachments/" + b).with(user(owner)))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsByteArray();
+		assertArrayEquals(sealed, whole);
+		assertArrayEquals(chunk, open(key, 0, Arrays.copyOfRange(whole, 2 * SEALED_CHUNK, 3 * SEALED_CHUNK)));
+
+		// deleting the item drops its references; the shared chunks stay for the other attachment
+		mockMvc.perform(delete("/vault/items/" + first).with(user(owner))).andExpect(status().isNoContent());
+		assertEquals(1, chunkRepository.findById(distinct.get(0)).orElseThrow().getRefCount());
+		mockMvc.perform(delete("/vault/items/" + second + "/attachments/" + b).with(user(owner)))
+				.andExpect(status().isNoContent());
+
+		LocalDateTime cutoff = LocalDateTime.now().plusSeconds(1);
+		assertEquals(0, chunkStore.collect(LocalDateTime.now().minusHours(1), 100));
+		while (chunkStore.collect(cutoff, 100) > 0) {
+		}
+		for (String hash : distinct) {
+			assertFalse(chunkRepository.existsById(hash));
+			assertFalse(Files.exists(chunkStore.path(hash)));
+		}
+	}
+
+	@Test
+	void reusingACollectableChunkClaimsItBeforeTheCollectorCan() throws Exception {
+		UserPrincipal owner = UserPrincipal.of(userRepository.save(new User("reuse", "x", "reuse@devvault.local")));
+		long itemId = createItem(owner, "reuse");
+		byte[] sealed = seal(KeyGenerator.getInstance("AES").generateKey(), new byte[CHUNK_SIZE]);
+		long id = upload(owner, itemId, sealed);
+		String hash = ChunkStore.hashAt(attachmentRepository.findById(id).orElseThrow().getChunkHashes(), 0);
+		mockMvc.perform(delete("/vault/items/" + itemId + "/attachments/" + id).with(user(owner)))
+				.andExpect(status().isNoContent());
+		// unreferenced for longer than the grace period when the next upload finds it
+		jdbcTemplate.update("update chunks set unreferenced_since = ? where hash = ?", LocalDateTime.now().minusDays(1), hash);
+
+		chunkStore.write(new ByteArrayInputStream(sealed), SEALED_CHUNK, Long.MAX_VALUE);
+		assertEquals(0, chunkStore.collect(LocalDateTime.now().minusHours(1), 100));
+		assertTrue(chunkRepository.existsById(hash));
+		assertTrue(Files.exists(chunkStore.path(hash)));
+	}
+
+	private long createItem(UserPrincipal owner, String title) throws Exception {
+		return objectMapper.readTree(mockMvc.perform(post("/vault/items").with(user(owner))
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"type\":\"NOTE\",\"title\":\"" + title + "\",\"payload\":\"AAEC\"}"))
+				.andReturn().getResponse().getContentAsString()).get("id").asLong();
+	}
+
+	private long upload(UserPrincipal owner, long itemId, byte[] sealed) throws Exception {
+		return objectMapper.readTree(mockMvc.perform(post("/vault/items/" + itemId + "/attachments").with(user(owner))
+						.param("name", "id_ed25519")
+						.header("X-Chunk-Size", CHUNK_SIZE)
+						.contentType(MediaType.APPLICATION_OCTET_STREAM)
+						.content(sealed))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString()).get("id").asLong();
+	}
+
+	// Client side of the format: chunk i is sealed under nonce = 8 zero bytes + i
+	private static byte[] seal(SecretKey key, byte[] plaintext) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for (int i = 0, offset = 0; offset < plaintext.length; i++, offset += CHUNK_SIZE) {
+			Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+			cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(128, nonce(i)));
+			out.write(cipher.doFinal(plaintext, offset, Math.min(CHUNK_SIZE, plaintext.length - offset)));
+		}
+		return out.toByteArray();
+	}
+
+	private static byte[] open(SecretKey key, int index, byte[] chunk) throws Exception {
+		Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+		cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(128, nonce(index)));
+		return cipher.doFinal(chunk);
+	}
+
+	private static byte[] nonce(int index) {
+		return ByteBuffer.allocate(12).putInt(8, index).array();
+	}
+}
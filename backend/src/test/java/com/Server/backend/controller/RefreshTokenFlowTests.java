@@ -0,0 +1,90 @@
+package com.Server.backend.controller;
+
+import com.Server.backend.model.User;
+import com.Server.backend.repository.UserRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class RefreshTokenFlowTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private PasswordEncoder passwordEncoder;
+
+	@BeforeEach
+	void createUser() {
+		if (userRepository.findByEmail("refresh@devvault.local").isEmpty()) {
+			User user = new User("refresh", passwordEncoder.encode("secret"), "refresh@devvault.local");
+			user.setEnabled(true);
+			user.setVerifiedAt(LocalDateTime.now());
+			userRepository.save(user);
+		}
+	}
+
+	@Test
+	void refreshRotatesAndReuseRevokesTheFamily() throws Exception {
+		JsonNode login = login();
+		String first = login.get("refreshToken").asText();
+
+		JsonNode refreshed = refresh(first, 200);
+		String second = refreshed.get("refreshToken").asText();
+
+		// replaying the used token kills the whole family, including the token it was rotated into
+		refresh(first, 401);
+		refresh(second, 401);
+	}
+
+	@Test
+	void logoutRevokesTheAccessToken() throws Exception {
+		String accessToken = login().get("token").asText();
+
+		mockMvc.perform(get("/users/me").header("Authorization", "Bearer " + accessToken))
+				.andExpect(status().isOk());
+		mockMvc.perform(post("/auth/logout").header("Authorization", "Bearer " + accessToken))
+				.andExpect(status().isOk());
+		mockMvc.perform(get("/users/me").header("Authorization", "Bearer " + accessToken))
+				.andExpect(status().isForbidden());
+	}
+
+	private JsonNode login() throws Exception {
+		String body = mockMvc.perform(post("/auth/login")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"email\":\"refresh@devvault.local\",\"password\":\"secret\"}"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		return objectMapper.readTree(body);
+	}
+
+	private JsonNode refresh(String refreshToken, int expectedStatus) throws Exception {
+		String body = mockMvc.perform(post("/auth/refresh")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"refreshToken\":\"" + refreshToken + "\"}"))
+				.andExpect(status().is(expectedStatus))
+				.andReturn().getResponse().getContentAsString();
+		return expectedStatus == 200 ? objectMapper.readTree(body) : null;
+	}
+}
@@ -0,0 +1,165 @@
+package com.Server.backend.controller;
+
+import com.Server.backend.model.User;
+import com.Server.backend.model.UserPrincipal;
+import com.Server.backend.repository.UserRepository;
+import com.Server.backend.responses.UserSummary;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class UserListingTests {
+
+	private static final String PASSWORD_HASH = "$2a$10$listing.tests.password.hash.never.listed";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	private final List<User> created = new ArrayList<>();
+
+	@AfterEach
+	void removeUsers() {
+		userRepository.deleteAll(created);
+	}
+
+	@Test
+	void pagesContinueFromTheCursorWithoutDuplicatesOrGaps() throws Exception {
+		create("page", 7);
+		UserPrincipal reader = UserPrincipal.of(created.get(0));
+
+		List<Long> walked = new ArrayList<>();
+		Long cursor = 0L;
+		boolean insertedMidWalk = false;
+		while (cursor != null) {
+			JsonNode page = page(reader, cursor, 3);
+			page.get("users").forEach(user -> walked.add(user.get("id").asLong()));
+			cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asLong();
+			if (!insertedMidWalk) {
+				// lands after the cursor, so a later page picks it up
+				create("late", 1);
+				insertedMidWalk = true;
+			}
+		}
+
+		assertEquals(allIds(), walked);
+		for (int i = 1; i < walked.size(); i++) {
+			assertTrue(walked.get(i - 1) < walked.get(i));
+		}
+
+		// the repository query the pages are built from
+		long first = created.get(0).getId();
+		List<UserSummary> fromRepository = userRepository.findSummariesAfter(first, PageRequest.of(0, 2));
+		assertEquals(List.of(created.get(1).getId(), created.get(2).getId()),
+				fromRepository.stream().map(UserSummary::getId).toList());
+	}
+
+	@Test
+	void theLimitIsClampedToOneThroughFiveHundred() throws Exception {
+		create("clamp", 505);
+		UserPrincipal reader = UserPrincipal.of(created.get(0));
+		long before = created.get(0).getId() - 1;
+
+		for (int limit : List.of(0, -5)) {
+			JsonNode page = page(reader, before, limit);
+			assertEquals(1, page.get("users").size());
+			assertEquals(created.get(0).getId(), page.get("nextCursor").asLong());
+		}
+
+		JsonNode page = page(reader, before, 10_000);
+		assertEquals(500, page.get("users").size());
+		assertEquals(created.get(499).getId(), page.get("nextCursor").asLong());
+	}
+
+	@Test
+	void theStreamWritesOneSummaryPerLine() throws Exception {
+		create("stream", 5);
+		MvcResult started = mockMvc.perform(get("/users/stream").with(user(UserPrincipal.of(created.get(0)))))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		String body = mockMvc.perform(asyncDispatch(started))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType("application/x-ndjson"))
+				.andReturn().getResponse().getContentAsString();
+
+		assertFalse(body.contains(PASSWORD_HASH));
+		List<Long> streamed = new ArrayList<>();
+		for (String line : body.split("\n")) {
+			JsonNode summary = objectMapper.readTree(line);
+			List<String> fields = new ArrayList<>();
+			summary.fieldNames().forEachRemaining(fields::add);
+			assertEquals(Set.of("id", "username", "email", "enabled"), Set.copyOf(fields));
+			streamed.add(summary.get("id").asLong());
+		}
+		assertEquals(allIds(), streamed);
+
+		List<Long> fromRepository = transactionTemplate.execute(status -> {
+			try (var summaries = userRepository.streamSummaries()) {
+				return summaries.map(UserSummary::getId).toList();
+			}
+		});
+		assertEquals(streamed, fromRepository);
+	}
+
+	private JsonNode page(UserPrincipal reader, long after, int limit) throws Exception {
+		String body = mockMvc.perform(get("/users/").with(user(reader))
+						.param("after", String.valueOf(after))
+						.param("limit", String.valueOf(limit)))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		assertFalse(body.contains(PASSWORD_HASH));
+		return objectMapper.readTree(body);
+	}
+
+	private void create(String prefix, int count) {
+		List<User> users = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			User user = new User(prefix + i, PASSWORD_HASH, prefix + "-" + i + "@listing.devvault.local");
+			user.setEnabled(true);
+			user.setVerifiedAt(LocalDateTime.now());
+			users.add(user);
+		}
+		userRepository.saveAll(users).forEach(created::add);
+	}
+
+	private List<Long> allIds() {
+		return StreamSupport.stream(userRepository.findAll().spliterator(), false)
+				.map(User::getId)
+				.sorted()
+				.toList();
+	}
+}
@@ -0,0 +1,91 @@
+package com.Server.backend.controller;
+
+import com.Server.backend.model.User;
+import com.Server.backend.model.UserPrincipal;
+import com.Server.backend.repository.UserRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class VaultImportTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Test
+	void importsAStreamedArrayAcrossSeveralChunks() throws Exception {
+		UserPrincipal owner = UserPrincipal.of(userRepository.findByEmail("vault@devvault.local")
+				.orElseGet(() -> userRepository.save(new User("vault", "x", "vault@devvault.local"))));
+
+		StringBuilder body = new StringBuilder("[");
+		for (int i = 0; i < 2500; i++) {
+			String payload = Base64.getEncoder().encodeToString(("ciphertext-" + i).getBytes());
+			body.append(i == 0 ? "" : ",")
+					.append("{\"type\":\"CREDENTIAL\",\"title\":\"login ").append(i)
+					.append("\",\"tags\":\"imported\",\"payload\":\"").append(payload).append("\"}");
+		}
+		body.append("]");
+
+		mockMvc.perform(post("/vault/items/import").with(user(owner))
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(body.toString()))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.imported").value(2500));
+
+		int listed = 0;
+		long after = 0;
+		long lastId = 0;
+		while (true) {
+			String page = mockMvc.perform(get("/vault/items").with(user(owner))
+							.param("after", Long.toString(after)).param("limit", "500"))
+					.andExpect(status().isOk())
+					.andReturn().getResponse().getContentAsString();
+			JsonNode json = objectMapper.readTree(page);
+			listed += json.get("items").size();
+			if (json.get("items").size() > 0) {
+				lastId = json.get("items").get(json.get("items").size() - 1).get("id").asLong();
+			}
+			if (json.get("nextCursor").isNull()) {
+				break;
+			}
+			after = json.get("nextCursor").asLong();
+		}
+		assertEquals(2500, listed);
+
+		mockMvc.perform(get("/vault/items/" + lastId).with(user(owner)))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.payload").value(Base64.getEncoder().encodeToString("ciphertext-2499".getBytes())));
+	}
+
+	@Test
+	void rejectsAnItemWithoutPayload() throws Exception {
+		UserPrincipal owner = UserPrincipal.of(userRepository.findByEmail("vault@devvault.local")
+				.orElseGet(() -> userRepository.save(new User("vault", "x", "vault@devvault.local"))));
+		mockMvc.perform(post("/vault/items/import").with(user(owner))
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("[{\"type\":\"NOTE\",\"title\":\"empty\"}]"))
+				.andExpect(status().isBadRequest());
+	}
+}
@@ -0,0 +1,131 @@
+package com.Server.backend.controller;
+
+import com.Server.backend.model.User;
+import com.Server.backend.model.UserPrincipal;
+import com.Server.backend.repository.UserRepository;
+import com.Server.backend.repository.VaultItemRepository;
+import com.Server.backend.responses.VaultItemSummary;
+import com.Server.backend.service.VaultSearchIndex;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class VaultSearchTests {
+
+	private static final String ITEM = "{\"type\":\"%s\",\"title\":\"%s\",\"tags\":\"%s\",\"payload\":\"AAEC\"}";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private VaultSearchIndex searchIndex;
+
+	@Autowired
+	private VaultItemRepository vaultItemRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Test
+	void findsItemsByPrefixAndTagAndFollowsWrites() throws Exception {
+		UserPrincipal owner = UserPrincipal.of(userRepository.save(new User("search", "x", "search@devvault.local")));
+		UserPrincipal other = UserPrincipal.of(userRepository.save(new User("other", "x", "other@devvault.local")));
+		long kube = create(owner, "CREDENTIAL", "Kubernetes prod admin", "work, k8s");
+		long cert = create(owner, "NOTE", "AWS Solutions Architect certificate", "certification");
+		create(owner, "PROJECT", "devvault", "work");
+		create(other, "CREDENTIAL", "Kubernetes staging", "work");
+
+		assertFalse(searchIndex.isIndexed(owner.getId()));
+		assertEquals(List.of(kube), search(owner, "q=kub"));
+		assertTrue(searchIndex.isIndexed(owner.getId()));
+		assertEquals(List.of(kube), search(owner, "q=KUBE pro"));
+		assertEquals(List.of(), search(owner, "q=kube staging"));
+		assertEquals(2, search(owner, "tag=work").size());
+		assertEquals(List.of(kube), search(owner, "tag=work&type=CREDENTIAL"));
+		assertEquals(List.of(cert), search(owner, "q=cert"));
+
+		// writes after the index was built show up without a rebuild
+		long token = create(owner, "CREDENTIAL", "kubectl token", "k8s");
+		assertEquals(List.of(token, kube), search(owner, "q=kube"));
+		mockMvc.perform(put("/vault/items/" + kube).with(user(owner)).contentType(MediaType.APPLICATION_JSON)
+						.content(ITEM.formatted("CREDENTIAL", "Nomad prod admin", "work")))
+				.andExpect(status().isOk());
+		assertEquals(List.of(token), search(owner, "q=kube"));
+		assertEquals(List.of(), search(owner, "tag=k8s&q=nomad"));
+		mockMvc.perform(delete("/vault/items/" + token).with(user(owner))).andExpect(status().isNoContent());
+		assertEquals(List.of(), search(owner, "q=kube"));
+	}
+
+	@Test
+	void anIndexOnAnotherNodeCatchesUpWithWritesItNeverSaw() throws Exception {
+		UserPrincipal owner = UserPrincipal.of(userRepository.save(new User("search-nodes", "x", "search-nodes@devvault.local")));
+		long gateway = create(owner, "CREDENTIAL", "VPN gateway", "network");
+		// its own cache, and none of the writes below run its after-commit hooks
+		VaultSearchIndex otherNode = new VaultSearchIndex(vaultItemRepository, userRepository, jdbcTemplate,
+				transactionTemplate, 1000, Duration.ofMinutes(5), false);
+		assertEquals(List.of(gateway), search(otherNode, owner, "vpn"));
+
+		long backup = create(owner, "NOTE", "VPN backup keys", "network");
+		mockMvc.perform(put("/vault/items/" + gateway).with(user(owner)).contentType(MediaType.APPLICATION_JSON)
+						.content(ITEM.formatted("CREDENTIAL", "WireGuard gateway", "network")))
+				.andExpect(status().isOk());
+		assertEquals(List.of(backup), search(otherNode, owner, "vpn"));
+		assertEquals(List.of(gateway), search(otherNode, owner, "wireguard"));
+		mockMvc.perform(delete("/vault/items/" + backup).with(user(owner))).andExpect(status().isNoContent());
+		assertEquals(List.of(), search(otherNode, owner, "vpn"));
+	}
+
+	private static List<Long> search(VaultSearchIndex node, UserPrincipal owner, String text) {
+		return node.search(owner.getId(), VaultSearchIndex.query(text, null, null), 10).stream()
+				.map(VaultItemSummary::getId)
+				.toList();
+	}
+
+	private long create(UserPrincipal owner, String type, String title, String tags) throws Exception {
+		return objectMapper.readTree(mockMvc.perform(post("/vault/items").with(user(owner))
+						.contentType(MediaType.APPLICATION_JSON).content(ITEM.formatted(type, title, tags)))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString()).get("id").asLong();
+	}
+
+	private List<Long> search(UserPrincipal owner, String query) throws Exception {
+		JsonNode found = objectMapper.readTree(mockMvc.perform(get("/vault/items/search?" + query).with(user(owner)))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString());
+		List<Long> ids = new ArrayList<>();
+		found.forEach(item -> ids.add(item.get("id").asLong()));
+		return ids;
+	}
+}
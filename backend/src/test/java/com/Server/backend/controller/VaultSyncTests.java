@@ -0,0 +1,96 @@
+package com.Server.backend.controller;
+
+import com.Server.backend.model.User;
+import com.Server.backend.model.UserPrincipal;
+import com.Server.backend.repository.UserRepository;
+import com.Server.backend.service.VaultTombstoneCompactor;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class VaultSyncTests {
+
+	private static final String ITEM = "{\"type\":\"NOTE\",\"title\":\"%s\",\"payload\":\"AAEC\"}";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private VaultTombstoneCompactor compactor;
+
+	@Test
+	void returnsOnlyWhatChangedSinceTheCursor() throws Exception {
+		UserPrincipal owner = UserPrincipal.of(userRepository.save(new User("sync", "x", "sync@devvault.local")));
+		long first = create(owner, "first");
+		long second = create(owner, "second");
+		create(owner, "third");
+
+		JsonNode initial = sync(owner, 0, 2);
+		assertEquals(2, initial.get("changes").size());
+		assertTrue(initial.get("hasMore").asBoolean());
+		JsonNode rest = sync(owner, initial.get("cursor").asLong(), 2);
+		assertEquals(1, rest.get("changes").size());
+		assertFalse(rest.get("hasMore").asBoolean());
+		long cursor = rest.get("cursor").asLong();
+
+		assertEquals(0, sync(owner, cursor, 100).get("changes").size());
+
+		mockMvc.perform(put("/vault/items/" + first).with(user(owner))
+						.contentType(MediaType.APPLICATION_JSON).content(ITEM.formatted("renamed")))
+				.andExpect(status().isOk());
+		mockMvc.perform(delete("/vault/items/" + second).with(user(owner)))
+				.andExpect(status().isNoContent());
+
+		JsonNode changes = sync(owner, cursor, 100).get("changes");
+		assertEquals(2, changes.size());
+		assertEquals("renamed", changes.get(0).get("title").asText());
+		assertEquals(second, changes.get(1).get("id").asLong());
+		assertTrue(changes.get(1).get("deleted").asBoolean());
+
+		// once the tombstone is compacted, a cursor from before the delete can no longer be served
+		compactor.compact(LocalDateTime.now().plusMinutes(1));
+		assertTrue(sync(owner, cursor, 100).get("resetRequired").asBoolean());
+		assertEquals(2, sync(owner, 0, 100).get("changes").size());
+	}
+
+	private long create(UserPrincipal owner, String title) throws Exception {
+		String body = mockMvc.perform(post("/vault/items").with(user(owner))
+						.contentType(MediaType.APPLICATION_JSON).content(ITEM.formatted(title)))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		return objectMapper.readTree(body).get("id").asLong();
+	}
+
+	private JsonNode sync(UserPrincipal owner, long since, int limit) throws Exception {
+		String body = mockMvc.perform(get("/sync").with(user(owner))
+						.param("since", Long.toString(since)).param("limit", Integer.toString(limit)))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		return objectMapper.readTree(body);
+	}
+}
@@ -0,0 +1,87 @@
+package com.Server.backend.repository;
+
+import com.Server.backend.service.UnverifiedUserPurgeJob;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// A database as ddl-auto=update left it before Flyway: the original users table with its generated
+// constraint names and no schema history. The application has to baseline it at V1, migrate it and
+// pass Hibernate's validation without losing the accounts already in it, unverified ones included.
+@SpringBootTest
+class MigrationUpgradeTests {
+
+	private static final String URL = "jdbc:h2:mem:upgrade;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private UnverifiedUserPurgeJob purgeJob;
+
+	// Runs while the context is being built, before Flyway sees the database
+	@DynamicPropertySource
+	static void legacyDatabase(DynamicPropertyRegistry registry) throws SQLException {
+		try (Connection connection = DriverManager.getConnection(URL, "sa", "");
+			 Statement statement = connection.createStatement()) {
+			statement.execute("create sequence users_seq start with 1 increment by 50");
+			statement.execute("create table users (id bigint not null, email varchar(255) not null, enabled boolean not null, "
+					+ "password varchar(255) not null, username varchar(255) not null, verification_code varchar(255), "
+					+ "verification_expiration timestamp(6), primary key (id), "
+					+ "constraint uk6dotkott2kjsp8vw4d0m25fb7 unique (email), constraint ukr43af9ap4edm43mmtq01oddj6 unique (username))");
+			statement.execute("insert into users (id, email, enabled, password, username) "
+					+ "values (1, 'old@devvault.local', true, 'hash', 'old')");
+			// unverified before the upgrade: one with a live code in the old columns, one without any
+			statement.execute("insert into users (id, email, enabled, password, username, verification_code, verification_expiration) "
+					+ "values (2, 'pending@devvault.local', false, 'hash', 'pending', '424242', dateadd(minute, 10, localtimestamp))");
+			statement.execute("insert into users (id, email, enabled, password, username) "
+					+ "values (3, 'nocode@devvault.local', false, 'hash', 'nocode')");
+		}
+		registry.add("spring.datasource.url", () -> URL);
+	}
+
+	@Test
+	void existingDatabaseIsBaselinedAndMigrated() {
+		List<Map<String, Object>> history = jdbcTemplate.queryForList("select \"version\", \"type\" "
+				+ "from \"flyway_schema_history\" where \"version\" is not null order by \"installed_rank\"");
+		assertEquals("BASELINE", history.get(0).get("type"));
+		assertEquals(List.of("1", "2", "3", "4", "5", "6", "7", "8"),
+				history.stream().map(row -> (String) row.get("version")).toList());
+
+		assertEquals(0L, jdbcTemplate.queryForObject(
+				"select vault_version from users where email = 'old@devvault.local'", Long.class));
+		jdbcTemplate.update("insert into vault_items (id, user_id, type, title, version, deleted, created_at, updated_at) "
+				+ "values (1, 1, 'NOTE', 'after upgrade', 1, false, localtimestamp, localtimestamp)");
+	}
+
+	@Test
+	void unverifiedAccountsKeepTheirCodesAndSurviveThePurge() {
+		assertEquals("424242", jdbcTemplate.queryForObject(
+				"select code from pending_verifications where email = 'pending@devvault.local'", String.class));
+		assertEquals(1, jdbcTemplate.queryForObject(
+				"select count(*) from pending_verifications where email = 'nocode@devvault.local'", Integer.class));
+		// enabled before the upgrade means verified
+		assertEquals(List.of("old@devvault.local"),
+				jdbcTemplate.queryForList("select email from users where verified_at is not null", String.class));
+
+		assertEquals(0, purgeJob.purge(LocalDateTime.now().minusDays(1)));
+		assertEquals(3, jdbcTemplate.queryForObject("select count(*) from users", Integer.class));
+		// the grace period of the account without a code started at the upgrade
+		assertEquals(1, purgeJob.purge(LocalDateTime.now().plusMinutes(1)));
+		assertEquals(List.of("old@devvault.local", "pending@devvault.local"),
+				jdbcTemplate.queryForList("select email from users order by id", String.class));
+	}
+}
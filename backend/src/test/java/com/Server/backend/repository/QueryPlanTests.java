@@ -0,0 +1,65 @@
+package com.Server.backend.repository;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Plans of the UserRepository lookups against the migrated schema, on a database of the size the
+// indexes are for. The SQL mirrors what Hibernate generates for each query. H2 plans with its own
+// optimizer and gets the plain stand-in for the PostgreSQL partial index (db/migration/h2).
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:plans;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryPlanTests {
+
+	private static final int USERS = 200_000;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	// One account in twenty unverified, half of those still holding a code
+	@BeforeAll
+	void seed() {
+		jdbcTemplate.update("insert into users (id, username, email, password, enabled, verified_at, vault_version, vault_compacted_version) "
+				+ "select n, 'user' || n, 'user' || n || '@devvault.local', 'hash', mod(n, 20) <> 0, "
+				+ "case when mod(n, 20) <> 0 then localtimestamp end, 0, 0 "
+				+ "from (select \"X\" n from system_range(1, ?))", USERS);
+		jdbcTemplate.update("insert into pending_verifications (email, user_id, code, expires_at) "
+				+ "select 'user' || n || '@devvault.local', n, '123456', dateadd(minute, 15, localtimestamp) "
+				+ "from (select \"X\" n from system_range(1, ?)) where mod(n, 40) = 0", USERS);
+		jdbcTemplate.execute("analyze");
+	}
+
+	@Test
+	void findByEmailUsesTheUniqueIndex() {
+		String plan = explain("select u.id, u.email, u.enabled, u.password, u.username from users u where u.email = 'user4242@devvault.local'");
+		assertTrue(plan.contains("uk_users_email"), plan);
+	}
+
+	@Test
+	void summaryPagesAreRangeScansOfThePrimaryKey() {
+		String plan = explain("select u.id, u.username, u.email, u.enabled from users u where u.id > 150000 order by u.id offset 0 rows fetch first 50 rows only");
+		assertTrue(plan.contains("PRIMARY_KEY"), plan);
+		// read in key order, so the scan stops after one page
+		assertTrue(plan.contains("index sorted"), plan);
+	}
+
+	@Test
+	void abandonedAccountsComeFromTheUnverifiedAndExpiryIndexes() {
+		String plan = explain("select u.id from users u where u.verified_at is null and not exists "
+				+ "(select 1 from pending_verifications p where p.user_id = u.id and p.expires_at >= localtimestamp) "
+				+ "order by u.id offset 0 rows fetch first 500 rows only");
+		assertTrue(plan.contains("idx_users_unverified"), plan);
+		assertTrue(plan.contains("idx_pending_verifications_user_id_expires_at"), plan);
+		assertFalse(plan.contains("tableScan"), plan);
+	}
+
+	private String explain(String sql) {
+		return jdbcTemplate.queryForObject("explain " + sql, String.class);
+	}
+}
@@ -0,0 +1,50 @@
+package com.Server.backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AuthRateLimiterTests {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	// Refills far slower than the test runs, so nothing refills in between
+	private final AuthRateLimiter limiter = new AuthRateLimiter(registry, 100,
+			2, Duration.ofMinutes(1), 3, Duration.ofMinutes(1),
+			2, Duration.ofMinutes(1), 3, Duration.ofMinutes(1),
+			2, Duration.ofMinutes(1), 3, Duration.ofMinutes(1));
+
+	@Test
+	void anEmailIsLimitedWhateverItsCase() {
+		limiter.checkLogin("victim@devvault.local", "10.0.0.1");
+		limiter.checkLogin("VICTIM@devvault.local", "10.0.0.2");
+		RateLimitExceededException rejected = assertThrows(RateLimitExceededException.class,
+				() -> limiter.checkLogin("Victim@devvault.local", "10.0.0.3"));
+		assertEquals(429, rejected.getStatusCode().value());
+		// the next token is a full refill away
+		long retryAfter = Long.parseLong(rejected.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+		assertEquals(60, retryAfter, 1);
+		assertEquals(1, registry.counter("auth.rate_limited", "action", "login").count());
+
+		// other actions have their own budget
+		limiter.checkVerify("victim@devvault.local", "10.0.0.1");
+	}
+
+	@Test
+	void anAddressOverItsLimitDoesNotDrainTheEmailBudget() {
+		for (int i = 0; i < 3; i++) {
+			limiter.checkLogin("user" + i + "@devvault.local", "10.0.0.9");
+		}
+		for (int i = 0; i < 3; i++) {
+			assertThrows(RateLimitExceededException.class, () -> limiter.checkLogin("target@devvault.local", "10.0.0.9"));
+		}
+		// rejected by address before the email was charged, so the owner still has both tokens
+		limiter.checkLogin("target@devvault.local", "10.0.1.1");
+		limiter.checkLogin("target@devvault.local", "10.0.1.2");
+	}
+}
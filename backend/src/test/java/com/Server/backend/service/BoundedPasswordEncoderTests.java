@@ -0,0 +1,80 @@
+package com.Server.backend.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.servlet.mvc.annotation.ResponseStatusExceptionResolver;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundedPasswordEncoderTests {
+
+	@Test
+	void aFullQueueIsRejectedWithA429() throws Exception {
+		CountDownLatch hashing = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		PasswordEncoder blocking = new PasswordEncoder() {
+			@Override
+			public String encode(CharSequence rawPassword) {
+				hashing.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					throw new IllegalStateException(e);
+				}
+				return "hash";
+			}
+
+			@Override
+			public boolean matches(CharSequence rawPassword, String encodedPassword) {
+				return false;
+			}
+		};
+		try (BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(blocking, 4, 1, 1)) {
+			// one on the pool thread, one in the queue
+			CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("a"));
+			hashing.await();
+			CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("b"));
+			while (encoder.getQueueSize() == 0) {
+				Thread.onSpinWait();
+			}
+
+			HashingCapacityExceededException rejected = assertThrows(HashingCapacityExceededException.class,
+					() -> encoder.encode("c"));
+			assertEquals(1, encoder.getRejections());
+			MockHttpServletResponse response = new MockHttpServletResponse();
+			new ResponseStatusExceptionResolver().resolveException(new MockHttpServletRequest(), response, null, rejected);
+			assertEquals(429, response.getStatus());
+
+			release.countDown();
+			assertEquals("hash", running.get());
+			assertEquals("hash", queued.get());
+			assertEquals(2, encoder.getOperations());
+		}
+	}
+
+	@Test
+	void hashesOfAnotherCostAreUpgraded() {
+		try (BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(5, 1, 1)) {
+			String current = encoder.encode("secret");
+			String cheaper = new BCryptPasswordEncoder(4).encode("secret");
+			String dearer = new BCryptPasswordEncoder(6).encode("secret");
+
+			assertFalse(encoder.upgradeEncoding(current));
+			assertTrue(encoder.upgradeEncoding(cheaper));
+			assertTrue(encoder.upgradeEncoding(dearer));
+			assertFalse(encoder.upgradeEncoding(null));
+			assertFalse(encoder.upgradeEncoding("plain"));
+			// the old hash still logs in until it is rewritten
+			assertTrue(encoder.matches("secret", cheaper));
+		}
+	}
+}
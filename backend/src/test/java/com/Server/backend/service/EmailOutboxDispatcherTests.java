@@ -0,0 +1,236 @@
+package com.Server.backend.service;
+
+import com.Server.backend.dto.RegisterUserDto;
+import com.Server.backend.model.EmailOutbox;
+import com.Server.backend.repository.EmailOutboxRepository;
+import com.Server.backend.repository.PendingVerificationRepository;
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class EmailOutboxDispatcherTests {
+
+	@RegisterExtension
+	static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP)
+			.withConfiguration(GreenMailConfiguration.aConfig().withUser("test@devvault.local", "test"));
+
+	@Autowired
+	private AuthenticationService authenticationService;
+
+	@Autowired
+	private EmailOutboxDispatcher dispatcher;
+
+	@Autowired
+	private PendingVerificationRepository pendingVerificationRepository;
+
+	@Autowired
+	private EmailOutboxRepository outboxRepository;
+
+	@Autowired
+	private EmailService emailService;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@AfterEach
+	void emptyOutbox() {
+		outboxRepository.deleteAll();
+	}
+
+	@Test
+	void signupQueuesMailAndDispatcherSendsIt() throws Exception {
+		RegisterUserDto input = new RegisterUserDto();
+		input.setEmail("outbox@devvault.local");
+		input.setUsername("outbox");
+		input.setPassword("secret");
+
+		authenticationService.signup(input);
+		String code = pendingVerificationRepository.findById("outbox@devvault.local").orElseThrow().getCode();
+
+		assertEquals(0, greenMail.getReceivedMessages().length);
+		assertEquals(1, dispatcher.queueDepth());
+
+		assertEquals(1, dispatcher.dispatchBatch());
+
+		MimeMessage[] received = greenMail.getReceivedMessages();
+		assertEquals(1, received.length);
+		assertEquals("Account Verification", received[0].getSubject());
+		assertTrue(GreenMailUtil.getBody(received[0]).contains(code));
+		assertEquals(0, dispatcher.queueDepth());
+	}
+
+	@Test
+	void sendsOutsideTheTransactionAndRetriesOnlyTheMessagesThatFailed() {
+		FakeMailSender sender = new FakeMailSender(Set.of("bounce@devvault.local"));
+		EmailOutboxDispatcher dispatcher = dispatcher(sender, 3);
+		long delivered = enqueue("first@devvault.local");
+		long bounced = enqueue("bounce@devvault.local");
+		long alsoDelivered = enqueue("second@devvault.local");
+
+		LocalDateTime before = LocalDateTime.now();
+		assertEquals(3, dispatcher.dispatchBatch());
+
+		assertFalse(sender.sentInTransaction);
+		assertEquals(List.of("first@devvault.local", "second@devvault.local"), sender.delivered);
+		for (long id : List.of(delivered, alsoDelivered)) {
+			EmailOutbox entry = outboxRepository.findById(id).orElseThrow();
+			assertEquals(EmailOutbox.Status.SENT, entry.getStatus());
+			assertNotNull(entry.getSentAt());
+			assertEquals(0, entry.getAttempts());
+		}
+		EmailOutbox retry = outboxRepository.findById(bounced).orElseThrow();
+		assertEquals(EmailOutbox.Status.PENDING, retry.getStatus());
+		assertEquals(1, retry.getAttempts());
+		assertEquals("mailbox unavailable", retry.getLastError());
+		assertFalse(retry.getNextAttemptAt().isBefore(before.plusMinutes(1)));
+		assertEquals(1, dispatcher.queueDepth());
+	}
+
+	@Test
+	void backsOffExponentiallyBetweenAttempts() {
+		EmailOutboxDispatcher dispatcher = dispatcher(new FakeMailSender(Set.of("bounce@devvault.local")), 8);
+		long id = enqueue("bounce@devvault.local");
+
+		for (int attempt = 1; attempt <= 3; attempt++) {
+			LocalDateTime before = LocalDateTime.now();
+			assertEquals(1, dispatcher.dispatchBatch());
+			LocalDateTime after = LocalDateTime.now();
+			// not due until the backoff has passed
+			assertEquals(0, dispatcher.dispatchBatch());
+
+			EmailOutbox entry = outboxRepository.findById(id).orElseThrow();
+			Duration delay = Duration.ofMinutes(1L << (attempt - 1));
+			assertEquals(attempt, entry.getAttempts());
+			assertFalse(entry.getNextAttemptAt().isBefore(before.plus(delay)));
+			assertFalse(entry.getNextAttemptAt().isAfter(after.plus(delay)));
+			makeDue(entry);
+		}
+
+		// capped at mail.outbox.max-backoff
+		assertEquals(Duration.ofMinutes(10), dispatcher.backoff(5));
+		assertEquals(Duration.ofMinutes(10), dispatcher.backoff(40));
+	}
+
+	@Test
+	void givesUpAfterMaxAttempts() {
+		FakeMailSender sender = new FakeMailSender(Set.of("bounce@devvault.local"));
+		EmailOutboxDispatcher dispatcher = dispatcher(sender, 3);
+		long id = enqueue("bounce@devvault.local");
+
+		for (int attempt = 1; attempt <= 3; attempt++) {
+			assertEquals(1, dispatcher.dispatchBatch());
+			makeDue(outboxRepository.findById(id).orElseThrow());
+		}
+
+		EmailOutbox entry = outboxRepository.findById(id).orElseThrow();
+		assertEquals(EmailOutbox.Status.FAILED, entry.getStatus());
+		assertEquals(3, entry.getAttempts());
+		assertEquals(0, dispatcher.dispatchBatch());
+		assertEquals(3, sender.attempts);
+		assertEquals(0, dispatcher.queueDepth());
+	}
+
+	@Test
+	void aClaimWhoseLeaseRanOutIsClaimedAgain() {
+		FakeMailSender sender = new FakeMailSender(Set.of());
+		EmailOutboxDispatcher dispatcher = dispatcher(sender, 3);
+		long id = enqueue("stranded@devvault.local");
+		// left behind by a dispatcher that died mid-send
+		EmailOutbox entry = outboxRepository.findById(id).orElseThrow();
+		entry.setStatus(EmailOutbox.Status.SENDING);
+		entry.setNextAttemptAt(LocalDateTime.now().plusMinutes(5));
+		outboxRepository.save(entry);
+
+		assertEquals(0, dispatcher.dispatchBatch());
+		assertEquals(1, dispatcher.queueDepth());
+
+		makeDue(outboxRepository.findById(id).orElseThrow());
+		assertEquals(1, dispatcher.dispatchBatch());
+		assertEquals(List.of("stranded@devvault.local"), sender.delivered);
+		EmailOutbox sent = outboxRepository.findById(id).orElseThrow();
+		assertEquals(EmailOutbox.Status.SENT, sent.getStatus());
+		assertNull(sent.getLastError());
+	}
+
+	// Backoff of 1, 2, 4... minutes capped at 10, and a 5 minute lease
+	private EmailOutboxDispatcher dispatcher(FakeMailSender sender, int maxAttempts) {
+		return new EmailOutboxDispatcher(outboxRepository, emailService, sender, transactionTemplate, true, 50,
+				maxAttempts, Duration.ofMinutes(1), Duration.ofMinutes(10), Duration.ofMinutes(5), new SimpleMeterRegistry());
+	}
+
+	private long enqueue(String recipient) {
+		return outboxRepository.save(new EmailOutbox(recipient, "Subject", "<p>body</p>")).getId();
+	}
+
+	private void makeDue(EmailOutbox entry) {
+		entry.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+		outboxRepository.save(entry);
+	}
+
+	// Delivers every message except those to the given recipients, which fail the way JavaMailSenderImpl reports them
+	private static class FakeMailSender extends JavaMailSenderImpl {
+
+		private final Set<String> bouncing;
+		private final List<String> delivered = new ArrayList<>();
+		private int attempts;
+		private boolean sentInTransaction;
+
+		FakeMailSender(Set<String> bouncing) {
+			this.bouncing = bouncing;
+		}
+
+		@Override
+		public void send(MimeMessage... mimeMessages) {
+			sentInTransaction |= TransactionSynchronizationManager.isActualTransactionActive();
+			Map<Object, Exception> failed = new HashMap<>();
+			for (MimeMessage message : mimeMessages) {
+				attempts++;
+				String recipient = recipient(message);
+				if (bouncing.contains(recipient)) {
+					failed.put(message, new MessagingException("mailbox unavailable"));
+				} else {
+					delivered.add(recipient);
+				}
+			}
+			if (!failed.isEmpty()) {
+				throw new MailSendException(failed);
+			}
+		}
+
+		private static String recipient(MimeMessage message) {
+			try {
+				return message.getAllRecipients()[0].toString();
+			} catch (MessagingException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,126 @@
+package com.Server.backend.service;
+
+import com.Server.backend.repository.SigningKeyRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class JwtKeyRingTests {
+
+	@Autowired
+	private JwtService jwtService;
+
+	@Autowired
+	private JwtKeyRing keyRing;
+
+	@Autowired
+	private SigningKeyRepository signingKeyRepository;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Test
+	void tokensSignedBeforeARotationStayValid() throws Exception {
+		UserDetails user = User.withUsername("rotation@devvault.local").password("x").build();
+		String before = jwtService.generateToken(user);
+
+		keyRing.rotate();
+		String after = jwtService.generateToken(user);
+
+		assertNotEquals(kid(before), kid(after));
+		assertTrue(jwtService.isTokenValid(before, user));
+		assertTrue(jwtService.isTokenValid(after, user));
+
+		MvcResult result = mockMvc.perform(get("/.well-known/jwks.json"))
+				.andExpect(status().isOk())
+				.andReturn();
+		List<String> kids = new ArrayList<>();
+		JsonNode jwks = objectMapper.readTree(result.getResponse().getContentAsByteArray());
+		jwks.get("keys").forEach(key -> kids.add(key.get("kid").asText()));
+		assertTrue(kids.containsAll(List.of(kid(before), kid(after))));
+
+		String etag = result.getResponse().getHeader("ETag");
+		mockMvc.perform(get("/.well-known/jwks.json").header("If-None-Match", etag))
+				.andExpect(status().isNotModified())
+				.andExpect(header().string("ETag", etag));
+	}
+
+	@Test
+	void hmacTokensAreRejected() {
+		String forged = Jwts.builder()
+				.setHeaderParam("kid", keyRing.activeKey().kid())
+				.setSubject("rotation@devvault.local")
+				.signWith(Keys.hmacShaKeyFor(new byte[32]))
+				.compact();
+		assertFalse(verifies(forged));
+	}
+
+	@Test
+	void privateKeysAreStoredSealed() {
+		JwtKeyRing.ActiveKey active = keyRing.activeKey();
+		byte[] stored = signingKeyRepository.findById(active.kid()).orElseThrow().getPrivateKey();
+		byte[] pkcs8 = active.privateKey().getEncoded();
+		for (int i = 0; i + pkcs8.length <= stored.length; i++) {
+			assertFalse(Arrays.equals(pkcs8, 0, pkcs8.length, stored, i, i + pkcs8.length));
+		}
+	}
+
+	@Test
+	void unknownKidsNeverWriteToTheKeyTable() {
+		List<String> kids = kids();
+		for (int i = 0; i < 3; i++) {
+			assertNull(keyRing.publicKey(UUID.randomUUID().toString()));
+		}
+		assertEquals(kids, kids());
+	}
+
+	private List<String> kids() {
+		List<String> kids = new ArrayList<>();
+		signingKeyRepository.findAll().forEach(key -> kids.add(key.getKid()));
+		kids.sort(null);
+		return kids;
+	}
+
+	private boolean verifies(String token) {
+		try {
+			jwtService.verify(token);
+			return true;
+		} catch (RuntimeException e) {
+			return false;
+		}
+	}
+
+	private String kid(String token) throws Exception {
+		byte[] header = Base64.getUrlDecoder().decode(token.substring(0, token.indexOf('.')));
+		return objectMapper.readTree(header).get("kid").asText();
+	}
+}
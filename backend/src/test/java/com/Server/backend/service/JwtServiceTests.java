@@ -0,0 +1,185 @@
+package com.Server.backend.service;
+
+import com.Server.backend.model.User;
+import com.Server.backend.model.UserPrincipal;
+import com.Server.backend.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class JwtServiceTests {
+
+	private static final String EMAIL = "jwt@devvault.local";
+
+	@Autowired
+	private JwtService jwtService;
+
+	@Autowired
+	private JwtKeyRing keyRing;
+
+	@Autowired
+	private TokenRevocationService tokenRevocationService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void createUser() {
+		if (userRepository.findByEmail(EMAIL).isEmpty()) {
+			User user = new User("jwt", "unused", EMAIL);
+			user.setEnabled(true);
+			user.setVerifiedAt(LocalDateTime.now());
+			userRepository.save(user);
+		}
+	}
+
+	@Test
+	void aTokenIsParsedOnceAndThenServedFromTheCache() {
+		// its own cache, so the counts are not shared with other tests
+		JwtService service = new JwtService(keyRing, 60_000, true, 100);
+		String token = service.generateToken(principal());
+
+		VerifiedToken verified = service.verify(token);
+		assertSame(verified, service.verify(token));
+		assertEquals(EMAIL, service.extractUsername(token));
+		assertTrue(service.isTokenValid(token, principal()));
+
+		CacheStats stats = service.getTokenCache().stats();
+		assertEquals(1, stats.missCount());
+		assertEquals(3, stats.hitCount());
+	}
+
+	@Test
+	void tamperedExpiredAndUnknownKeyTokensAreRejectedAndNeverCached() {
+		JwtService service = new JwtService(keyRing, 60_000, true, 100);
+		String token = service.generateToken(principal());
+		String[] parts = token.split("\\.");
+
+		String payload = new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8)
+				.replace(EMAIL, "admin@devvault.local");
+		String otherSubject = parts[0] + "." + Base64.getUrlEncoder().withoutPadding()
+				.encodeToString(payload.getBytes(StandardCharsets.UTF_8)) + "." + parts[2];
+		assertThrows(SignatureException.class, () -> service.verify(otherSubject));
+
+		char flipped = parts[2].charAt(10) == 'A' ? 'B' : 'A';
+		String otherSignature = parts[0] + "." + parts[1] + "."
+				+ parts[2].substring(0, 10) + flipped + parts[2].substring(11);
+		assertThrows(SignatureException.class, () -> service.verify(otherSignature));
+
+		String expired = new JwtService(keyRing, -60_000, true, 100).generateToken(principal());
+		assertThrows(ExpiredJwtException.class, () -> service.verify(expired));
+
+		String unknownKid = Jwts.builder()
+				.setHeaderParam(JwsHeader.KEY_ID, UUID.randomUUID().toString())
+				.setSubject(EMAIL)
+				.setExpiration(new Date(System.currentTimeMillis() + 60_000))
+				.signWith(keyRing.activeKey().privateKey(), JwtKeyRing.ALGORITHM)
+				.compact();
+		assertThrows(SignatureException.class, () -> service.verify(unknownKid));
+
+		// each one was parsed, and failed, every time
+		assertThrows(SignatureException.class, () -> service.verify(otherSignature));
+		assertEquals(0, service.getTokenCache().stats().hitCount());
+		assertEquals(0, service.getTokenCache().size());
+	}
+
+	@Test
+	void aCachedVerificationNeverOutlivesTheToken() throws Exception {
+		JwtService service = new JwtService(keyRing, 1_000, true, 100);
+		String token = service.generateToken(principal());
+		VerifiedToken verified = service.verify(token);
+		assertSame(verified, service.verify(token));
+
+		while (!Instant.now().isAfter(verified.expiresAt().plusMillis(10))) {
+			Thread.sleep(20);
+		}
+		assertThrows(ExpiredJwtException.class, () -> service.verify(token));
+	}
+
+	@Test
+	void lapsedOrOpenEndedTokensAreNotKept() {
+		VerifiedTokenCache cache = new VerifiedTokenCache(100);
+		AtomicInteger parses = new AtomicInteger();
+		Instant now = Instant.now();
+		VerifiedToken lapsed = new VerifiedToken(EMAIL, now.minus(Duration.ofMinutes(2)), now.minusSeconds(1), Map.of());
+		VerifiedToken openEnded = new VerifiedToken(EMAIL, now, null, Map.of());
+
+		for (int i = 0; i < 2; i++) {
+			cache.get("lapsed", t -> {
+				parses.incrementAndGet();
+				return lapsed;
+			});
+			cache.get("open-ended", t -> {
+				parses.incrementAndGet();
+				return openEnded;
+			});
+		}
+		assertEquals(4, parses.get());
+	}
+
+	@Test
+	void aRevokedTokenIsNeverServedFromTheCache() throws Exception {
+		String loggedOut = jwtService.generateToken(principal());
+		me(loggedOut, 200);
+		mockMvc.perform(post("/auth/logout").header("Authorization", "Bearer " + loggedOut))
+				.andExpect(status().isOk());
+		assertNotServedFromTheCache(loggedOut);
+
+		// revoked on another node, so this one only learns of it from the revocation log
+		String revokedElsewhere = jwtService.generateToken(principal());
+		me(revokedElsewhere, 200);
+		tokenRevocationService.revoke(jwtService.verify(revokedElsewhere));
+		me(revokedElsewhere, 403);
+		assertNotServedFromTheCache(revokedElsewhere);
+	}
+
+	private void assertNotServedFromTheCache(String token) throws Exception {
+		for (int i = 0; i < 2; i++) {
+			CacheStats before = jwtService.getTokenCache().stats();
+			me(token, 403);
+			CacheStats after = jwtService.getTokenCache().stats();
+			assertEquals(before.hitCount(), after.hitCount());
+			assertEquals(before.missCount() + 1, after.missCount());
+		}
+	}
+
+	private void me(String token, int expected) throws Exception {
+		mockMvc.perform(get("/users/me").header("Authorization", "Bearer " + token))
+				.andExpect(status().is(expected));
+	}
+
+	private UserPrincipal principal() {
+		return UserPrincipal.of(userRepository.findByEmail(EMAIL).orElseThrow());
+	}
+}
@@ -0,0 +1,169 @@
+package com.Server.backend.service;
+
+import com.Server.backend.config.ReadWriteRoutingDataSource;
+import com.Server.backend.dto.LoginUserDto;
+import com.Server.backend.dto.RegisterUserDto;
+import com.Server.backend.dto.VaultItemDto;
+import com.Server.backend.dto.VerifyUserDto;
+import com.Server.backend.model.User;
+import com.Server.backend.model.UserPrincipal;
+import com.Server.backend.model.VaultItem;
+import com.Server.backend.repository.UserRepository;
+import com.Server.backend.responses.UserSummary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.ByteArrayInputStream;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Two in-memory databases stand in for the primary and the replica; the replica is a snapshot of the
+// primary taken whenever the test says so, i.e. a replica with unbounded lag
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:routing-primary;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+		"datasource.replica.jdbc-url=" + ReadReplicaRoutingTests.REPLICA_URL,
+		"datasource.replica.username=sa",
+		"datasource.read-your-writes.window=PT1M"
+})
+class ReadReplicaRoutingTests {
+
+	static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+	@Autowired
+	private AuthenticationService authenticationService;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private VaultService vaultService;
+
+	@Autowired
+	private AttachmentService attachmentService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ReadWriteRoutingDataSource routing;
+
+	@Test
+	void readsGoToTheReplicaExceptForRecentWriters() throws Exception {
+		authenticationService.signup(register("fresh"));
+		String code = jdbcTemplate.queryForObject(
+				"select code from pending_verifications where email = ?", String.class, "fresh@devvault.local");
+		// the replica has the account, but not yet verified
+		snapshotToReplica();
+		authenticationService.verifyUser(verify("fresh@devvault.local", code));
+
+		long replicaBefore = routing.connections(ReadWriteRoutingDataSource.Route.REPLICA);
+		User user = authenticationService.authenticate(login("fresh@devvault.local"));
+		assertTrue(user.isEnabled());
+
+		// nobody wrote lately in this thread's eyes: the listing is the replica's stale snapshot
+		authenticationService.signup(register("late"));
+		assertFalse(emails().contains("late@devvault.local"));
+		assertTrue(routing.connections(ReadWriteRoutingDataSource.Route.REPLICA) > replicaBefore);
+		snapshotToReplica();
+		assertTrue(emails().contains("late@devvault.local"));
+	}
+
+	@Test
+	void vaultWritersReadTheirItemsAndAttachmentsFromThePrimary() throws Exception {
+		User writer = verifiedUser("vault-writer");
+		User uploader = verifiedUser("uploader");
+		// nobody is authenticated, so nobody is marked as a recent writer
+		long existing = vaultService.create(uploader.getId(), item("existing")).getId();
+		snapshotToReplica();
+
+		authenticateAs(writer);
+		long replicaBefore = routing.connections(ReadWriteRoutingDataSource.Route.REPLICA);
+		assertTrue(vaultService.items(writer.getId(), 0, 10).getItems().isEmpty());
+		assertTrue(routing.connections(ReadWriteRoutingDataSource.Route.REPLICA) > replicaBefore);
+		long created = vaultService.create(writer.getId(), item("fresh")).getId();
+		assertEquals("fresh", vaultService.item(writer.getId(), created).getTitle());
+		assertEquals(1, vaultService.changesSince(writer.getId(), 0, 10).getChanges().size());
+
+		authenticateAs(uploader);
+		assertTrue(attachmentService.attachments(uploader.getId(), existing).isEmpty());
+		attachmentService.upload(uploader.getId(), existing, "notes.txt", null, 4096,
+				new ByteArrayInputStream(new byte[100]));
+		assertEquals(1, attachmentService.attachments(uploader.getId(), existing).size());
+	}
+
+	@AfterEach
+	void clearAuthentication() {
+		SecurityContextHolder.clearContext();
+	}
+
+	private User verifiedUser(String name) {
+		User user = new User(name, "hash", name + "@devvault.local");
+		user.setEnabled(true);
+		user.setVerifiedAt(LocalDateTime.now());
+		return userRepository.save(user);
+	}
+
+	private static void authenticateAs(User user) {
+		SecurityContextHolder.getContext().setAuthentication(
+				UsernamePasswordAuthenticationToken.authenticated(UserPrincipal.of(user), null, List.of()));
+	}
+
+	private static VaultItemDto item(String title) {
+		VaultItemDto dto = new VaultItemDto();
+		dto.setType(VaultItem.Type.NOTE);
+		dto.setTitle(title);
+		dto.setPayload(new byte[] {1, 2, 3});
+		return dto;
+	}
+
+	private List<String> emails() {
+		return userService.users(0, 100).getUsers().stream().map(UserSummary::getEmail).toList();
+	}
+
+	// Not through the replica pool, whose connections are read-only
+	private void snapshotToReplica() throws Exception {
+		jdbcTemplate.execute("script to 'target/routing-replica.sql'");
+		try (Connection connection = DriverManager.getConnection(REPLICA_URL, "sa", "");
+			 Statement statement = connection.createStatement()) {
+			statement.execute("drop all objects");
+			statement.execute("runscript from 'target/routing-replica.sql'");
+		}
+	}
+
+	private static RegisterUserDto register(String name) {
+		RegisterUserDto dto = new RegisterUserDto();
+		dto.setUsername(name);
+		dto.setEmail(name + "@devvault.local");
+		dto.setPassword("secret");
+		return dto;
+	}
+
+	private static VerifyUserDto verify(String email, String code) {
+		VerifyUserDto dto = new VerifyUserDto();
+		dto.setEmail(email);
+		dto.setVerificationCode(code);
+		return dto;
+	}
+
+	private static LoginUserDto login(String email) {
+		LoginUserDto dto = new LoginUserDto();
+		dto.setEmail(email);
+		dto.setPassword("secret");
+		return dto;
+	}
+}
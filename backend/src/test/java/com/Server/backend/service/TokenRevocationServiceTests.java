@@ -0,0 +1,60 @@
+package com.Server.backend.service;
+
+import com.Server.backend.model.TokenRevocation;
+import com.Server.backend.repository.TokenRevocationRepository;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class TokenRevocationServiceTests {
+
+	@Autowired
+	private TokenRevocationRepository repository;
+
+	@Test
+	void theTailReadsEachEntryOnceAndTheSweepCatchesLateCommits() {
+		// not the shared bean, whose scheduled tail would race this one
+		TokenRevocationService service = new TokenRevocationService(repository, 900_000, Duration.ofMinutes(15),
+				1000, 0.01, Duration.ofMinutes(2));
+		service.rebuild();
+		VerifiedToken onTime = token();
+		VerifiedToken late = token();
+
+		// written by another node
+		log(onTime, LocalDateTime.now());
+		assertEquals(1, service.tail());
+		assertTrue(service.isRevoked(onTime));
+		assertEquals(0, service.tail());
+
+		// committed only after the cursor had passed its createdAt
+		log(late, LocalDateTime.now().minusSeconds(30));
+		assertEquals(0, service.tail());
+		assertFalse(service.isRevoked(late));
+		service.sweep();
+		assertTrue(service.isRevoked(late));
+	}
+
+	private void log(VerifiedToken token, LocalDateTime createdAt) {
+		repository.save(new TokenRevocation(TokenRevocation.Kind.TOKEN, token.id(), createdAt,
+				LocalDateTime.ofInstant(token.expiresAt(), ZoneId.systemDefault())));
+	}
+
+	private static VerifiedToken token() {
+		Instant now = Instant.now();
+		return new VerifiedToken("tail@devvault.local", now, now.plus(Duration.ofMinutes(10)),
+				Map.of(Claims.ID, UUID.randomUUID().toString()));
+	}
+}
@@ -0,0 +1,66 @@
+package com.Server.backend.service;
+
+import com.Server.backend.model.PendingVerification;
+import com.Server.backend.model.User;
+import com.Server.backend.repository.PendingVerificationRepository;
+import com.Server.backend.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class UnverifiedUserPurgeJobTests {
+
+	@Autowired
+	private UnverifiedUserPurgeJob purgeJob;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private PendingVerificationRepository pendingVerificationRepository;
+
+	@Test
+	void onlyUnverifiedAccountsWithoutACodeInTheGraceWindowArePurged() {
+		LocalDateTime now = LocalDateTime.now();
+		LocalDateTime cutoff = now.minusDays(1);
+		User verified = save("purge-verified", true, null);
+		User disabled = save("purge-disabled", true, null);
+		disabled.setEnabled(false);
+		userRepository.save(disabled);
+		User waiting = save("purge-waiting", false, now.plusMinutes(10));
+		User recentlyExpired = save("purge-recent", false, now.minusHours(2));
+		User abandoned = save("purge-abandoned", false, now.minusDays(3));
+		User codeless = save("purge-codeless", false, null);
+
+		assertTrue(purgeJob.purge(cutoff) >= 2);
+
+		assertTrue(userRepository.existsById(verified.getId()));
+		// switched off after verifying, which is not an abandoned signup
+		assertTrue(userRepository.existsById(disabled.getId()));
+		assertTrue(userRepository.existsById(waiting.getId()));
+		assertTrue(userRepository.existsById(recentlyExpired.getId()));
+		assertFalse(userRepository.existsById(abandoned.getId()));
+		assertFalse(userRepository.existsById(codeless.getId()));
+		// the purged account's stale code goes with it
+		assertFalse(pendingVerificationRepository.existsById(abandoned.getEmail()));
+		assertEquals(0, purgeJob.purge(cutoff));
+	}
+
+	private User save(String name, boolean verified, LocalDateTime codeExpiresAt) {
+		User user = new User(name, "x", name + "@devvault.local");
+		user.setEnabled(verified);
+		user.setVerifiedAt(verified ? LocalDateTime.now().minusDays(7) : null);
+		user = userRepository.save(user);
+		if (codeExpiresAt != null) {
+			pendingVerificationRepository.save(new PendingVerification(user.getEmail(), user.getId(), "123456", codeExpiresAt));
+		}
+		return user;
+	}
+}
@@ -0,0 +1,88 @@
+package com.Server.backend.service;
+
+import com.Server.backend.dto.VerifyUserDto;
+import com.Server.backend.model.User;
+import com.Server.backend.model.UserPrincipal;
+import com.Server.backend.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class UserDetailsCacheTests {
+
+	@Autowired
+	private AuthenticationService authenticationService;
+
+	@Autowired
+	private UserDetailsService userDetailsService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private VerificationCodeStore verificationCodeStore;
+
+	@Test
+	void verifyingAnAccountReplacesTheCachedPrincipal() {
+		// not through signup, which would leave a mail in the shared outbox
+		String code = verificationCodeStore.issue(userRepository.save(new User("cached", "x", "cached@devvault.local")),
+				Duration.ofMinutes(15));
+
+		UserDetails before = userDetailsService.loadUserByUsername("cached@devvault.local");
+		assertInstanceOf(UserPrincipal.class, before);
+		assertFalse(before.isEnabled());
+		assertSame(before, userDetailsService.loadUserByUsername("cached@devvault.local"));
+
+		VerifyUserDto verify = new VerifyUserDto();
+		verify.setEmail("cached@devvault.local");
+		verify.setVerificationCode(code);
+		authenticationService.verifyUser(verify);
+
+		assertTrue(userDetailsService.loadUserByUsername("cached@devvault.local").isEnabled());
+	}
+
+	@Test
+	void aLoadOverlappingAnInvalidationIsNotCached() throws Exception {
+		UserDetailsCache cache = new UserDetailsCache(100, Duration.ofMinutes(5));
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch written = new CountDownLatch(1);
+		CompletableFuture<UserDetails> stale = CompletableFuture.supplyAsync(() -> cache.get("race@devvault.local", email -> {
+			loading.countDown();
+			await(written);
+			return principal(email, false);
+		}));
+
+		loading.await();
+		cache.invalidate("race@devvault.local");
+		written.countDown();
+		assertFalse(stale.get().isEnabled());
+
+		assertTrue(cache.get("race@devvault.local", email -> principal(email, true)).isEnabled());
+		assertEquals(1, cache.size());
+	}
+
+	private static UserPrincipal principal(String email, boolean enabled) {
+		return new UserPrincipal(1, email, "race", "x", enabled);
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,71 @@
+package com.Server.backend.service;
+
+import com.Server.backend.model.PendingVerification;
+import com.Server.backend.model.User;
+import com.Server.backend.repository.PendingVerificationRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Expiry is driven with explicit clock values, each test on its own store so that no other clock
+// (the scheduled expire() of the application's store included) moves its wheel
+@SpringBootTest
+class VerificationCodeStoreTests {
+
+	@Autowired
+	private PendingVerificationRepository repository;
+
+	@Test
+	void codesLeaveMemoryOnceExpiredButStayInTheTable() {
+		VerificationCodeStore store = new VerificationCodeStore(repository, 1000);
+		User user = user(9001, "expiry@devvault.local");
+		long now = System.currentTimeMillis();
+		String code = store.issue(user, Duration.ofSeconds(30));
+
+		store.expire(now + 10_000);
+		assertTrue(store.isCached(user.getEmail()));
+		store.expire(now + 32_000);
+		assertFalse(store.isCached(user.getEmail()));
+
+		// the table still answers, and the caller sees that the code has expired
+		PendingVerification found = store.find(user.getEmail(), code).orElseThrow();
+		assertEquals(code, found.getCode());
+	}
+
+	@Test
+	void aReissuedCodeOutlivesTheTimerOfTheOneItReplaced() {
+		VerificationCodeStore store = new VerificationCodeStore(repository, 1000);
+		User user = user(9002, "reissue@devvault.local");
+		long now = System.currentTimeMillis();
+		store.issue(user, Duration.ofSeconds(30));
+		String replacement = store.issue(user, Duration.ofHours(1));
+
+		store.expire(now + 32_000);
+		assertTrue(store.isCached(user.getEmail()));
+		assertEquals(replacement, store.find(user.getEmail(), replacement).orElseThrow().getCode());
+		assertEquals(replacement, repository.findById(user.getEmail()).orElseThrow().getCode());
+	}
+
+	@Test
+	void consumedCodesAreGoneFromMemoryAndTable() {
+		VerificationCodeStore store = new VerificationCodeStore(repository, 1000);
+		User user = user(9003, "consume@devvault.local");
+		String code = store.issue(user, Duration.ofMinutes(15));
+
+		store.consume(store.find(user.getEmail(), code).orElseThrow());
+		assertFalse(store.isCached(user.getEmail()));
+		assertTrue(store.find(user.getEmail(), code).isEmpty());
+	}
+
+	private static User user(long id, String email) {
+		User user = new User(email.substring(0, email.indexOf('@')), "x", email);
+		user.setId(id);
+		return user;
+	}
+}
@@ -0,0 +1,68 @@
+package com.Server.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HashedTimerWheelTests {
+
+	private static final long START = 1_000_000;
+
+	@Test
+	void firesOnceTheDeadlineTickHasPassed() {
+		HashedTimerWheel<String> wheel = new HashedTimerWheel<>(100, 8, START);
+		wheel.schedule("a", START + 250);
+		wheel.schedule("b", START + 400);
+
+		assertEquals(List.of(), advance(wheel, START + 200));
+		// deadlines round up to the next tick
+		assertEquals(List.of(), advance(wheel, START + 299));
+		assertEquals(List.of("a@" + (START + 300)), advance(wheel, START + 300));
+		assertEquals(List.of("b@" + (START + 400)), advance(wheel, START + 1000));
+		assertEquals(List.of(), advance(wheel, START + 2000));
+	}
+
+	@Test
+	void deadlinesBeyondOneRevolutionWaitForTheirRound() {
+		HashedTimerWheel<String> wheel = new HashedTimerWheel<>(100, 8, START);
+		// same bucket as START + 300, one revolution later
+		wheel.schedule("late", START + 1100);
+
+		assertEquals(List.of(), advance(wheel, START + 300));
+		assertEquals(List.of(), advance(wheel, START + 1000));
+		assertEquals(List.of("late@" + (START + 1100)), advance(wheel, START + 1100));
+	}
+
+	@Test
+	void aLongPauseStillFiresEverythingDue() {
+		HashedTimerWheel<String> wheel = new HashedTimerWheel<>(100, 8, START);
+		for (int i = 1; i <= 20; i++) {
+			wheel.schedule("t" + i, START + i * 100);
+		}
+		assertEquals(20, advance(wheel, START + 60_000).size());
+	}
+
+	@Test
+	void overdueDeadlinesFireOnTheNextTick() {
+		HashedTimerWheel<String> wheel = new HashedTimerWheel<>(100, 8, START);
+		advance(wheel, START + 500);
+		wheel.schedule("overdue", START + 200);
+		assertEquals(List.of(), advance(wheel, START + 500));
+		assertEquals(List.of("overdue@" + (START + 200)), advance(wheel, START + 600));
+	}
+
+	@Test
+	void wheelSizeMustBeAPowerOfTwo() {
+		assertThrows(IllegalArgumentException.class, () -> new HashedTimerWheel<String>(100, 10, START));
+	}
+
+	private static List<String> advance(HashedTimerWheel<String> wheel, long now) {
+		List<String> fired = new ArrayList<>();
+		wheel.advance(now, (key, deadline) -> fired.add(key + "@" + deadline));
+		return fired;
+	}
+}
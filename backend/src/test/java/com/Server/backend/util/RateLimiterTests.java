@@ -0,0 +1,48 @@
+package com.Server.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RateLimiterTests {
+
+	private static final long SECOND = Duration.ofSeconds(1).toNanos();
+
+	@Test
+	void allowsTheBurstThenOneRequestPerRefill() {
+		RateLimiter limiter = new RateLimiter(3, Duration.ofSeconds(1), 100);
+		assertEquals(0, limiter.tryAcquire("a", 0));
+		assertEquals(0, limiter.tryAcquire("a", 0));
+		assertEquals(0, limiter.tryAcquire("a", 0));
+		assertEquals(SECOND, limiter.tryAcquire("a", 0));
+		// a rejected request takes nothing
+		assertEquals(SECOND / 2, limiter.tryAcquire("a", SECOND / 2));
+
+		assertEquals(0, limiter.tryAcquire("a", SECOND));
+		assertEquals(SECOND, limiter.tryAcquire("a", SECOND));
+		assertEquals(0, limiter.tryAcquire("a", 2 * SECOND));
+	}
+
+	@Test
+	void anIdleKeyRefillsUpToTheBurstAndNoFurther() {
+		RateLimiter limiter = new RateLimiter(3, Duration.ofSeconds(1), 100);
+		for (int i = 0; i < 3; i++) {
+			assertEquals(0, limiter.tryAcquire("a", 0));
+		}
+		long later = 60 * SECOND;
+		for (int i = 0; i < 3; i++) {
+			assertEquals(0, limiter.tryAcquire("a", later));
+		}
+		assertEquals(SECOND, limiter.tryAcquire("a", later));
+	}
+
+	@Test
+	void keysHaveTheirOwnBuckets() {
+		RateLimiter limiter = new RateLimiter(1, Duration.ofSeconds(10), 100);
+		assertEquals(0, limiter.tryAcquire("a", 0));
+		assertEquals(10 * SECOND, limiter.tryAcquire("a", 0));
+		assertEquals(0, limiter.tryAcquire("b", 0));
+	}
+}
@@ -0,0 +1,38 @@
+package com.Server.benchmarks;
+
+import com.Server.backend.model.User;
+import com.Server.backend.service.JwtKeyRing;
+import com.Server.backend.service.JwtService;
+import com.Server.backend.service.TokenRevocationService;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+final class Fixtures {
+
+    static final long EXPIRATION = 3_600_000;
+
+    private Fixtures() {
+    }
+
+    // A single active key, installed directly instead of loaded from signing_keys
+    static JwtService jwtService(boolean cacheEnabled) {
+        JwtKeyRing keyRing = new JwtKeyRing(null, Duration.ofDays(1), Duration.ofMinutes(10), EXPIRATION);
+        LocalDateTime now = LocalDateTime.now();
+        keyRing.install(List.of(keyRing.newKey(now, now)));
+        return new JwtService(keyRing, EXPIRATION, cacheEnabled, 10_000);
+    }
+
+    // Nothing revoked, so the filter never reaches the (absent) revocation log
+    static TokenRevocationService tokenRevocationService() {
+        return new TokenRevocationService(null, EXPIRATION, Duration.ofMinutes(15), 100_000, 0.01);
+    }
+
+    static User user() {
+        User user = new User("bench", "$2a$10$7EqJtq98hPqEX7fNZaFWoOa1tS1bq3J4E3ZL0I4BM5N2a6x0hK3e2", "bench@devvault.local");
+        user.setId(42);
+        user.setEnabled(true);
+        return user;
+    }
+}
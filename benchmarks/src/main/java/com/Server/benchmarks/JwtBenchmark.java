@@ -0,0 +1,77 @@
+package com.Server.benchmarks;
+
+import com.Server.backend.model.User;
+import com.Server.backend.service.JwtService;
+import com.Server.backend.service.VerifiedToken;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+    private static final String HMAC_SECRET = "3cfa76ef14937c1c0ea519f8fc057a80fcd04a7420f8e8bcd0a7567c272e007b";
+
+    private JwtService uncached;
+    private JwtService cached;
+    private User user;
+    private String token;
+    private JwtParser hmacParser;
+    private String hmacToken;
+
+    @Setup
+    public void setup() {
+        uncached = Fixtures.jwtService(false);
+        cached = Fixtures.jwtService(true);
+        user = Fixtures.user();
+        token = uncached.generateToken(user);
+        cached.verify(token);
+        Key hmacKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(HMAC_SECRET));
+        hmacParser = Jwts.parserBuilder().setSigningKey(hmacKey).build();
+        hmacToken = Jwts.builder()
+                .setSubject(user.getUsername())
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + Fixtures.EXPIRATION))
+                .signWith(hmacKey, SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return uncached.generateToken(user);
+    }
+
+    @Benchmark
+    public VerifiedToken verify() {
+        return uncached.verify(token);
+    }
+
+    @Benchmark
+    public VerifiedToken verifyCached() {
+        return cached.verify(token);
+    }
+
+    @Benchmark
+    public boolean isTokenValid() {
+        return uncached.isTokenValid(uncached.verify(token), user);
+    }
+
+    // The shared-secret HS256 setup tokens used before the ES256 key ring, for comparison with verify()
+    @Benchmark
+    public Claims parseHmacToken() {
+        return hmacParser.parseClaimsJws(hmacToken).getBody();
+    }
+}
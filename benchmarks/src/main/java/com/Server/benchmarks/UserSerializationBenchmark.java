@@ -0,0 +1,43 @@
+package com.Server.benchmarks;
+
+import com.Server.backend.model.User;
+import com.Server.backend.responses.UserSummary;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserSerializationBenchmark {
+
+    private ObjectWriter userWriter;
+    private ObjectWriter summaryWriter;
+    private User user;
+    private UserSummary summary;
+
+    @Setup
+    public void setup() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        userWriter = objectMapper.writerFor(User.class);
+        summaryWriter = objectMapper.writerFor(UserSummary.class);
+        user = Fixtures.user();
+        summary = new UserSummary(user.getId(), user.getDisplayName(), user.getEmail(), user.isEnabled());
+    }
+
+    @Benchmark
+    public byte[] userEntity() throws JsonProcessingException {
+        return userWriter.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public byte[] userSummary() throws JsonProcessingException {
+        return summaryWriter.writeValueAsBytes(summary);
+    }
+}
@@ -0,0 +1,66 @@
+package com.Server.benchmarks;
+
+import com.Server.backend.util.InvertedIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// One 100k-item vault in the search index. SampleTime reports the latency distribution, so the
+// p0.99 line of the output is the number to watch.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VaultSearchBenchmark {
+
+    private static final String[] WORDS = {"kubernetes", "prod", "staging", "admin", "aws", "gcp", "azure", "token",
+            "certificate", "ssh", "key", "github", "gitlab", "deploy", "database", "postgres", "redis", "kafka",
+            "vault", "api", "client", "secret", "backup", "monitoring", "grafana", "terraform", "docker", "registry"};
+    private static final String[] TAGS = {"work", "personal", "k8s", "cloud", "certification", "oss", "infra", "ci"};
+
+    @Param("100000")
+    public int items;
+
+    private InvertedIndex<Long> index;
+
+    @Setup
+    public void setup() {
+        index = new InvertedIndex<>();
+        Random random = new Random(42);
+        for (long id = 1; id <= items; id++) {
+            List<String> words = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                words.add(WORDS[random.nextInt(WORDS.length)]);
+            }
+            // a unique word per item, so the dictionary is as large as a real vault's
+            words.add("item" + id);
+            index.put(id, id, id, words, Set.of(TAGS[random.nextInt(TAGS.length)]));
+        }
+    }
+
+    @Benchmark
+    public List<Long> twoPrefixes() {
+        return index.search(List.of("kube", "pro"), List.of(), value -> true, 50);
+    }
+
+    @Benchmark
+    public List<Long> shortPrefix() {
+        return index.search(List.of("d"), List.of(), value -> true, 50);
+    }
+
+    @Benchmark
+    public List<Long> rareWord() {
+        return index.search(List.of("item4242"), List.of(), value -> true, 50);
+    }
+
+    @Benchmark
+    public List<Long> tagAndPrefix() {
+        return index.search(List.of("cert"), List.of("certification"), value -> true, 50);
+    }
+}
@@ -0,0 +1,62 @@
+package com.Server.loadtest;
+
+import com.Server.backend.BackendApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// The backend started in this JVM on a free port, with its mail going to the MailCatcher. Every
+// request comes from 127.0.0.1, so the per-IP rate limits are lifted; the per-email ones still apply.
+final class EmbeddedBackend implements AutoCloseable {
+
+    private static final String UNLIMITED = "1000000";
+    // Fixed, so later runs against the same database can still open the signing keys
+    private static final String ENCRYPTION_KEY = "bG9hZHRlc3Qtb25seS1zaWduaW5nLWtleS1zZWFsITE=";
+    private static final String READ_YOUR_WRITES_KEY = "bG9hZHRlc3Qtb25seS1yZWFkLXlvdXItd3JpdGVzLWtleQ==";
+
+    private final ConfigurableApplicationContext context;
+
+    private EmbeddedBackend(ConfigurableApplicationContext context) {
+        this.context = context;
+    }
+
+    static EmbeddedBackend start(Options options, int smtpPort) {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--management.server.port=0",
+                "--spring.datasource.url=" + options.dbUrl(),
+                "--spring.datasource.username=" + options.dbUser(),
+                "--spring.datasource.password=" + options.dbPassword(),
+                "--spring.mail.host=127.0.0.1",
+                "--spring.mail.port=" + smtpPort,
+                "--spring.mail.username=loadtest@devvault.local",
+                "--spring.mail.password=loadtest",
+                "--spring.mail.properties.mail.smtp.auth=false",
+                "--spring.mail.properties.mail.smtp.starttls.enable=false",
+                "--security.rate-limit.login.ip.burst=" + UNLIMITED,
+                "--security.rate-limit.verify.ip.burst=" + UNLIMITED,
+                "--security.rate-limit.resend.ip.burst=" + UNLIMITED,
+                "--security.jwt.keys.encryption-key=" + ENCRYPTION_KEY,
+                "--datasource.read-your-writes.signing-key=" + READ_YOUR_WRITES_KEY,
+                "--vault.attachments.dir=target/loadtest/attachments",
+                "--logging.level.root=WARN"));
+        if (options.dbUrl().startsWith("jdbc:h2:")) {
+            args.add("--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect");
+        }
+        options.appProperties().forEach((name, value) -> args.add("--" + name + "=" + value));
+        return new EmbeddedBackend(new SpringApplicationBuilder(BackendApplication.class)
+                .run(args.toArray(String[]::new)));
+    }
+
+    String url() {
+        return "http://127.0.0.1:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
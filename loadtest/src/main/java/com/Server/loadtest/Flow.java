@@ -0,0 +1,131 @@
+package com.Server.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+// One simulated user: signs up, reads the code from the verification mail, verifies, logs in and
+// fetches /users/me a few times with the access token. A failed step ends the session.
+final class Flow {
+
+    private static final String PASSWORD = "loadtest-Passw0rd";
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final HttpClient http;
+    private final String baseUrl;
+    private final MailCatcher mail;
+    private final Options options;
+    // Addresses stay unique across runs against the same database
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong sequence = new AtomicLong();
+
+    Flow(String baseUrl, MailCatcher mail, Options options) {
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        this.baseUrl = baseUrl;
+        this.mail = mail;
+        this.options = options;
+    }
+
+    // Signup is timed from when the session was due to arrive rather than from when the request went
+    // out, so a generator that falls behind still shows up in the latencies
+    void run(long scheduledAt, Stats stats) {
+        long n = sequence.incrementAndGet();
+        String username = "lt-" + runId + "-" + n;
+        String email = username + "@loadtest.devvault.local";
+        CompletableFuture<String> code = mail.expect(email, options.mailTimeout());
+
+        if (send(stats, Stats.SIGNUP, post("/auth/signup", Map.of("username", username, "email", email, "password", PASSWORD)),
+                scheduledAt) == null) {
+            code.cancel(false);
+            return;
+        }
+        long signedUp = System.nanoTime();
+        String verificationCode;
+        try {
+            verificationCode = code.get();
+            stats.record(Stats.MAIL, System.nanoTime() - signedUp);
+        } catch (ExecutionException e) {
+            stats.failed(Stats.MAIL, e.getCause() instanceof TimeoutException ? "timeout" : e.getCause().getClass().getSimpleName());
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        if (send(stats, Stats.VERIFY, post("/auth/verify", Map.of("email", email, "verificationCode", verificationCode)),
+                System.nanoTime()) == null) {
+            return;
+        }
+        String login = send(stats, Stats.LOGIN, post("/auth/login", Map.of("email", email, "password", PASSWORD)),
+                System.nanoTime());
+        if (login == null) {
+            return;
+        }
+        String token;
+        try {
+            token = JSON.readTree(login).get("token").asText();
+        } catch (JsonProcessingException e) {
+            stats.failed(Stats.LOGIN, "unreadable response");
+            return;
+        }
+        HttpRequest me = request("/users/me").header("Authorization", "Bearer " + token).GET().build();
+        for (int i = 0; i < options.meRequests(); i++) {
+            if (send(stats, Stats.USERS_ME, me, System.nanoTime()) == null) {
+                return;
+            }
+        }
+        stats.record(Stats.SESSION, System.nanoTime() - scheduledAt);
+        stats.completed.increment();
+    }
+
+    // The response body, or null when the step failed
+    private String send(Stats stats, String step, HttpRequest request, long startedAt) {
+        try {
+            HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() / 100 != 2) {
+                stats.failed(step, String.valueOf(response.statusCode()));
+                return null;
+            }
+            stats.record(step, System.nanoTime() - startedAt);
+            return response.body();
+        } catch (HttpTimeoutException e) {
+            stats.failed(step, "timeout");
+        } catch (IOException e) {
+            stats.failed(step, e.getClass().getSimpleName());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    private HttpRequest post(String path, Map<String, String> body) {
+        try {
+            return request(path).header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(JSON.writeValueAsString(body))).build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(REQUEST_TIMEOUT);
+    }
+}
@@ -0,0 +1,94 @@
+package com.Server.loadtest;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Open-loop load generator: sessions arrive at the configured rate whether or not earlier ones have
+// finished, each on its own virtual thread. Sessions arriving during the warm-up are run but not
+// counted; those arriving in the measured window are counted and waited for, however long they take.
+// Arrivals beyond --max-in-flight are dropped and reported rather than queued.
+public final class LoadTest {
+
+    private static final long PROGRESS_INTERVAL = TimeUnit.SECONDS.toNanos(10);
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        try (MailCatcher mail = new MailCatcher(options.smtpPort());
+             EmbeddedBackend backend = options.embedded() ? EmbeddedBackend.start(options, mail.port()) : null) {
+            String baseUrl = backend != null ? backend.url() : options.target();
+            System.out.printf("%s against %s, SMTP on %d: %.2f sessions/s (%s), %s warm-up, %s measured%n",
+                    options.label(), baseUrl, mail.port(), options.rate(), options.poisson() ? "poisson" : "uniform",
+                    options.warmup(), options.duration());
+            Instant startedAt = Instant.now();
+            Stats stats = run(new Flow(baseUrl, mail, options), options);
+            Map<String, Object> report = stats.report(options, startedAt, options.duration());
+            Stats.write(report, options.report());
+            Stats.print(report, System.out);
+            if (options.compare() != null) {
+                Stats.compare(report, options.compare(), System.out);
+            }
+            System.out.printf("%nreport written to %s%n", options.report().toAbsolutePath());
+        }
+    }
+
+    private static Stats run(Flow flow, Options options) throws InterruptedException {
+        Stats warmup = new Stats();
+        Stats measured = new Stats();
+        Semaphore inFlight = new Semaphore(options.maxInFlight());
+        SplittableRandom random = new SplittableRandom();
+        double meanGap = TimeUnit.SECONDS.toNanos(1) / options.rate();
+        long start = System.nanoTime();
+        long measureFrom = start + options.warmup().toNanos();
+        long end = measureFrom + options.duration().toNanos();
+        long nextProgress = start + PROGRESS_INTERVAL;
+        double next = start;
+        try (ExecutorService sessions = Executors.newVirtualThreadPerTaskExecutor()) {
+            while (next < end) {
+                long scheduledAt = (long) next;
+                long wait;
+                while ((wait = scheduledAt - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                Stats stats = scheduledAt < measureFrom ? warmup : measured;
+                if (inFlight.tryAcquire()) {
+                    stats.started.increment();
+                    sessions.execute(() -> {
+                        try {
+                            flow.run(scheduledAt, stats);
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                } else {
+                    stats.dropped.increment();
+                }
+                if (System.nanoTime() >= nextProgress) {
+                    progress(start, warmup, measured, options.maxInFlight() - inFlight.availablePermits());
+                    nextProgress += PROGRESS_INTERVAL;
+                }
+                next += options.poisson() ? -Math.log(1 - random.nextDouble()) * meanGap : meanGap;
+            }
+            System.out.printf("arrivals done, waiting for %d sessions in flight%n",
+                    options.maxInFlight() - inFlight.availablePermits());
+            // Closing the executor waits for every session; each step is bounded by its own timeout
+        }
+        return measured;
+    }
+
+    private static void progress(long start, Stats warmup, Stats measured, int inFlight) {
+        System.out.printf("%4ds  started %d  completed %d  in flight %d  dropped %d%n",
+                Duration.ofNanos(System.nanoTime() - start).toSeconds(),
+                warmup.started.sum() + measured.started.sum(), warmup.completed.sum() + measured.completed.sum(),
+                inFlight, warmup.dropped.sum() + measured.dropped.sum());
+    }
+}
@@ -0,0 +1,114 @@
+package com.Server.loadtest;
+
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.store.FolderException;
+import com.icegreen.greenmail.store.FolderListener;
+import com.icegreen.greenmail.store.MailFolder;
+import com.icegreen.greenmail.store.StoredMessage;
+import com.icegreen.greenmail.user.GreenMailUser;
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetup;
+import jakarta.mail.Flags;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Multipart;
+import jakarta.mail.Part;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// In-process SMTP server standing in for the mail provider. Each session registers its address
+// before signing up and gets the code out of the verification mail as soon as it is delivered; the
+// mailbox is dropped again once the code has been read, so a long run does not keep every message.
+final class MailCatcher implements AutoCloseable {
+
+    // templates/verification-email.html puts the code in the paragraph after this heading
+    private static final Pattern CODE = Pattern.compile("Verification Code:</h3>.*?>(\\d{6})<", Pattern.DOTALL);
+
+    private final GreenMail greenMail;
+
+    MailCatcher(int port) {
+        ServerSetup setup = new ServerSetup(port, "127.0.0.1", ServerSetup.PROTOCOL_SMTP);
+        // Whatever account the backend is configured to send from is accepted
+        this.greenMail = new GreenMail(port == 0 ? setup.dynamicPort() : setup)
+                .withConfiguration(GreenMailConfiguration.aConfig().withDisabledAuthentication());
+        this.greenMail.start();
+    }
+
+    int port() {
+        return greenMail.getSmtp().getPort();
+    }
+
+    // Completes with the code once the verification mail for this address arrives, or fails with a
+    // TimeoutException
+    CompletableFuture<String> expect(String email, Duration timeout) {
+        CompletableFuture<String> code = new CompletableFuture<>();
+        GreenMailUser user = greenMail.setUser(email, email, "loadtest");
+        MailFolder inbox;
+        try {
+            inbox = greenMail.getManagers().getImapHostManager().getInbox(user);
+        } catch (FolderException e) {
+            throw new IllegalStateException(e);
+        }
+        inbox.addListener(new FolderListener() {
+            @Override
+            public void added(int msn) {
+                List<StoredMessage> messages = inbox.getMessages();
+                try {
+                    code.complete(code(messages.get(messages.size() - 1).getMimeMessage()));
+                } catch (RuntimeException | MessagingException | IOException e) {
+                    code.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            public void expunged(int msn) {
+            }
+
+            @Override
+            public void flagsUpdated(int msn, Flags flags, Long uid) {
+            }
+
+            @Override
+            public void mailboxDeleted() {
+            }
+        });
+        // Cancelling the returned future drops the mailbox as well
+        code.whenComplete((result, failure) -> greenMail.getUserManager().deleteUser(user));
+        return code.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private static String code(Part part) throws MessagingException, IOException {
+        Matcher matcher = CODE.matcher(html(part));
+        if (!matcher.find()) {
+            throw new IllegalStateException("No verification code in the mail");
+        }
+        return matcher.group(1);
+    }
+
+    // The decoded text/html part; the message is multipart/mixed around multipart/related
+    private static String html(Part part) throws MessagingException, IOException {
+        if (part.isMimeType("text/html")) {
+            return (String) part.getContent();
+        }
+        if (part.isMimeType("multipart/*")) {
+            Multipart multipart = (Multipart) part.getContent();
+            for (int i = 0; i < multipart.getCount(); i++) {
+                String html = html(multipart.getBodyPart(i));
+                if (!html.isEmpty()) {
+                    return html;
+                }
+            }
+        }
+        return "";
+    }
+
+    @Override
+    public void close() {
+        greenMail.stop();
+    }
+}
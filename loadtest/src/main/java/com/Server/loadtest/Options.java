@@ -0,0 +1,108 @@
+package com.Server.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+// Command line of the harness, all --name=value. Anything under --app. is handed to the embedded
+// backend as a Spring property, e.g. --app.security.password.bcrypt-strength=4.
+record Options(
+        double rate,
+        boolean poisson,
+        Duration warmup,
+        Duration duration,
+        int meRequests,
+        int maxInFlight,
+        Duration mailTimeout,
+        String target,
+        int smtpPort,
+        String dbUrl,
+        String dbUser,
+        String dbPassword,
+        String label,
+        Path report,
+        Path compare,
+        Map<String, String> appProperties
+) {
+
+    static final String H2_URL = "jdbc:h2:mem:loadtest;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    private static final Set<String> KNOWN = Set.of("rate", "arrival", "warmup", "duration", "me-requests",
+            "max-in-flight", "mail-timeout", "target", "smtp-port", "db-url", "db-user", "db-password",
+            "label", "report", "compare");
+
+    static Options parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>();
+        Map<String, String> appProperties = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || arg.indexOf('=') < 0) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (name.startsWith("app.")) {
+                appProperties.put(name.substring(4), value);
+            } else {
+                values.put(name, value);
+            }
+        }
+        String arrival = values.getOrDefault("arrival", "poisson");
+        if (!arrival.equals("poisson") && !arrival.equals("uniform")) {
+            throw new IllegalArgumentException("--arrival must be poisson or uniform");
+        }
+        String target = values.get("target");
+        if (target != null && !values.containsKey("smtp-port")) {
+            throw new IllegalArgumentException("--target needs --smtp-port, the port the backend sends its mail to");
+        }
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        Options options = new Options(
+                Double.parseDouble(values.getOrDefault("rate", "5")),
+                arrival.equals("poisson"),
+                Duration.parse(values.getOrDefault("warmup", "PT10S")),
+                Duration.parse(values.getOrDefault("duration", "PT60S")),
+                Integer.parseInt(values.getOrDefault("me-requests", "5")),
+                Integer.parseInt(values.getOrDefault("max-in-flight", "2000")),
+                Duration.parse(values.getOrDefault("mail-timeout", "PT30S")),
+                target == null ? null : target.replaceAll("/+$", ""),
+                Integer.parseInt(values.getOrDefault("smtp-port", "0")),
+                values.getOrDefault("db-url", H2_URL),
+                values.getOrDefault("db-user", "sa"),
+                values.getOrDefault("db-password", ""),
+                values.getOrDefault("label", timestamp),
+                Path.of(values.getOrDefault("report", "target/loadtest-" + timestamp + ".json")),
+                values.containsKey("compare") ? Path.of(values.get("compare")) : null,
+                appProperties);
+        values.keySet().removeAll(KNOWN);
+        if (!values.isEmpty()) {
+            throw new IllegalArgumentException("Unknown options " + values.keySet());
+        }
+        if (options.rate() <= 0 || options.duration().isNegative() || options.duration().isZero()) {
+            throw new IllegalArgumentException("--rate and --duration must be positive");
+        }
+        return options;
+    }
+
+    boolean embedded() {
+        return target == null;
+    }
+
+    // What the report records about the run; credentials are left out
+    Map<String, Object> describe() {
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("rate", rate);
+        config.put("arrival", poisson ? "poisson" : "uniform");
+        config.put("warmup", warmup.toString());
+        config.put("duration", duration.toString());
+        config.put("meRequests", meRequests);
+        config.put("maxInFlight", maxInFlight);
+        config.put("target", embedded() ? "embedded" : target);
+        if (embedded()) {
+            config.put("database", dbUrl.replaceAll("\\?.*$", ""));
+            config.put("appProperties", appProperties);
+        }
+        return config;
+    }
+}
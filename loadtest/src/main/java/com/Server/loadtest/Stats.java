@@ -0,0 +1,172 @@
+package com.Server.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latency histograms (microseconds) and failures per step of the flow, for the sessions that arrived
+// inside the measured window. The JSON report keeps the percentiles for comparing runs plus the full
+// histograms, base64 of HdrHistogram's compressed encoding, for anything the summary leaves out.
+final class Stats {
+
+    static final String SIGNUP = "signup";
+    static final String MAIL = "verification_mail";
+    static final String VERIFY = "verify";
+    static final String LOGIN = "login";
+    static final String USERS_ME = "users_me";
+    static final String SESSION = "session";
+    static final List<String> STEPS = List.of(SIGNUP, MAIL, VERIFY, LOGIN, USERS_ME, SESSION);
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final ObjectMapper JSON = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final Map<String, Histogram> latencies = new LinkedHashMap<>();
+    // Step -> HTTP status, "timeout" or the exception type -> count
+    private final Map<String, Map<String, LongAdder>> errors = new LinkedHashMap<>();
+    final LongAdder started = new LongAdder();
+    final LongAdder completed = new LongAdder();
+    final LongAdder dropped = new LongAdder();
+
+    Stats() {
+        for (String step : STEPS) {
+            latencies.put(step, new ConcurrentHistogram(3));
+            errors.put(step, new ConcurrentHashMap<>());
+        }
+    }
+
+    void record(String step, long nanos) {
+        latencies.get(step).recordValue(Math.max(1, nanos / 1000));
+    }
+
+    void failed(String step, String reason) {
+        errors.get(step).computeIfAbsent(reason, key -> new LongAdder()).increment();
+    }
+
+    Map<String, Object> report(Options options, Instant startedAt, Duration measured) {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("label", options.label());
+        report.put("startedAt", startedAt.toString());
+        report.put("config", options.describe());
+        report.put("measuredSeconds", measured.toMillis() / 1000.0);
+        Map<String, Object> sessions = new LinkedHashMap<>();
+        sessions.put("started", started.sum());
+        sessions.put("completed", completed.sum());
+        sessions.put("failed", started.sum() - completed.sum());
+        sessions.put("dropped", dropped.sum());
+        sessions.put("arrivalRate", started.sum() / seconds(measured));
+        sessions.put("completionRate", completed.sum() / seconds(measured));
+        report.put("sessions", sessions);
+        Map<String, Object> steps = new LinkedHashMap<>();
+        latencies.forEach((step, histogram) -> {
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("count", histogram.getTotalCount());
+            summary.put("errors", errorCount(step));
+            summary.put("throughput", histogram.getTotalCount() / seconds(measured));
+            summary.put("meanMs", histogram.getTotalCount() == 0 ? 0 : histogram.getMean() / 1000);
+            for (double percentile : PERCENTILES) {
+                summary.put(percentileKey(percentile), histogram.getValueAtPercentile(percentile) / 1000.0);
+            }
+            summary.put("maxMs", histogram.getMaxValue() / 1000.0);
+            Map<String, Long> reasons = new TreeMap<>();
+            errors.get(step).forEach((reason, count) -> reasons.put(reason, count.sum()));
+            summary.put("errorReasons", reasons);
+            summary.put("histogram", encode(histogram));
+            steps.put(step, summary);
+        });
+        report.put("steps", steps);
+        return report;
+    }
+
+    static void write(Map<String, Object> report, Path path) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        JSON.writeValue(path.toFile(), report);
+    }
+
+    static void print(Map<String, Object> report, PrintStream out) {
+        JsonNode node = JSON.valueToTree(report);
+        JsonNode sessions = node.get("sessions");
+        out.printf("%n%s: %d sessions in %.1fs (%.2f/s arrived, %.2f/s completed), %d failed, %d dropped%n",
+                node.get("label").asText(), sessions.get("started").asLong(), node.get("measuredSeconds").asDouble(),
+                sessions.get("arrivalRate").asDouble(), sessions.get("completionRate").asDouble(),
+                sessions.get("failed").asLong(), sessions.get("dropped").asLong());
+        out.printf("%-18s %8s %7s %9s %9s %9s %9s %9s %9s   (ms)%n",
+                "step", "count", "errors", "p50", "p90", "p99", "p99.9", "max", "mean");
+        node.get("steps").properties().forEach(entry -> {
+            JsonNode step = entry.getValue();
+            out.printf("%-18s %8d %7d %9.2f %9.2f %9.2f %9.2f %9.2f %9.2f%n", entry.getKey(),
+                    step.get("count").asLong(), step.get("errors").asLong(),
+                    step.get("p50Ms").asDouble(), step.get("p90Ms").asDouble(), step.get("p99Ms").asDouble(),
+                    step.get("p99_9Ms").asDouble(), step.get("maxMs").asDouble(), step.get("meanMs").asDouble());
+            if (!step.get("errorReasons").isEmpty()) {
+                out.printf("%-18s %s%n", "", step.get("errorReasons"));
+            }
+        });
+    }
+
+    // Side by side with an earlier report; percentages are the change from the baseline
+    static void compare(Map<String, Object> report, Path baselinePath, PrintStream out) throws IOException {
+        JsonNode current = JSON.valueToTree(report);
+        JsonNode baseline = JSON.readTree(baselinePath.toFile());
+        out.printf("%nagainst %s (%s)%n", baseline.get("label").asText(), baselinePath);
+        out.printf("%-18s %24s %24s %24s %12s%n", "step", "p50", "p99", "p99.9", "errors");
+        current.get("steps").properties().forEach(entry -> {
+            JsonNode before = baseline.get("steps").get(entry.getKey());
+            if (before == null) {
+                return;
+            }
+            JsonNode after = entry.getValue();
+            out.printf("%-18s %24s %24s %24s %12s%n", entry.getKey(),
+                    delta(before.get("p50Ms").asDouble(), after.get("p50Ms").asDouble()),
+                    delta(before.get("p99Ms").asDouble(), after.get("p99Ms").asDouble()),
+                    delta(before.get("p99_9Ms").asDouble(), after.get("p99_9Ms").asDouble()),
+                    before.get("errors").asLong() + " -> " + after.get("errors").asLong());
+        });
+        if (!baseline.get("config").equals(current.get("config"))) {
+            out.printf("configuration differs: %s%nbaseline was:           %s%n", current.get("config"), baseline.get("config"));
+        }
+    }
+
+    private long errorCount(String step) {
+        return errors.get(step).values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    private static String delta(double before, double after) {
+        String change = before == 0 ? "" : String.format(" (%+.0f%%)", (after - before) * 100 / before);
+        return String.format("%.1f -> %.1f%s", before, after, change);
+    }
+
+    private static String percentileKey(double percentile) {
+        String digits = percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile);
+        return "p" + digits.replace('.', '_') + "Ms";
+    }
+
+    private static String encode(Histogram histogram) {
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        return Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length));
+    }
+
+    private static double seconds(Duration duration) {
+        return Math.max(duration.toMillis(), 1) / 1000.0;
+    }
+}